@@ -0,0 +1,62 @@
+package tbs_game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.hexes.AxialPos;
+import tbs_game.units.Unit;
+
+/**
+ * One full round of turns. Each player's units are spent and the turn is
+ * ended, which makes the next AI player plan its turn with RandomAI. The
+ * planned actions are only queued, so a fresh game is set up before each
+ * invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiTurnBenchmark {
+
+    @Param({"32", "128"})
+    public int size;
+
+    @Param({"4", "16"})
+    public int numPlayers;
+
+    private Game game;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        game = new Game(size, size, numPlayers);
+        game.setUpGame();
+    }
+
+    @Benchmark
+    public Game randomAiRound() {
+        for (int i = 0; i < game.getNumPlayers(); i++) {
+            for (AxialPos pos : game.getPositionsForPlayer(game.getCurrentPlayer())) {
+                Unit unit = game.getUnitAt(pos);
+                unit.spendMovementPoints(unit.getMovementPoints());
+            }
+            game.endTurn();
+        }
+        game.getActionQueue().clear();
+        return game;
+    }
+}
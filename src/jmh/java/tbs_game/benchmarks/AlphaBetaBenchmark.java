@@ -0,0 +1,73 @@
+package tbs_game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.player.AlphaBetaAI;
+import tbs_game.player.Player;
+
+/**
+ * Alpha-beta turn planning on the 25x20 battle map, searched to a fixed depth
+ * so every op does the same work. The nodes counter is the search speed, in
+ * nodes/ms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphaBetaBenchmark {
+
+    @Param({"2", "4"})
+    public int numPlayers;
+
+    @Param({"4"})
+    public int depth;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    private AlphaBetaAI ai;
+    private GameState state;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        Game game = Game.battleSim(25, 20, numPlayers);
+        state = game.copyState();
+        player = game.getCurrentPlayer();
+        ai = new AlphaBetaAI(60_000, depth);
+    }
+
+    @Benchmark
+    public int planTurn(Counters counters) {
+        int moves = ai.planTurn(state, player).size();
+        counters.nodes += ai.getLastStats().nodes();
+        return moves;
+    }
+}
@@ -0,0 +1,55 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.Terrain;
+
+/**
+ * Shared board setup for the benchmarks. Boards are painted from a fixed seed
+ * so every run measures the same maps.
+ */
+final class BenchmarkMaps {
+
+    static final long SEED = 42;
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Creates a game on a square board where roughly {@code density} of the
+     * tiles are forest, water or mountain and the rest are plains.
+     */
+    static Game game(int size, double density, int numPlayers) {
+        Game game = Game.allPlains(size, size, numPlayers);
+        paint(game.getBoard(), density);
+        return game;
+    }
+
+    static void paint(Board board, double density) {
+        Random random = new Random(SEED);
+        for (int i = 0; i < board.getTileCount(); i++) {
+            Terrain terrain = Terrain.PLAINS;
+            if (random.nextDouble() < density) {
+                double kind = random.nextDouble();
+                if (kind < 0.5) {
+                    terrain = Terrain.FOREST;
+                } else if (kind < 0.8) {
+                    terrain = Terrain.WATER;
+                } else {
+                    terrain = Terrain.MOUNTAIN;
+                }
+            }
+            board.setTerrain(i, terrain);
+        }
+    }
+
+    static int randomPassableTile(Board board, Random random) {
+        int index;
+        do {
+            index = random.nextInt(board.getTileCount());
+        } while (!board.isPassable(index));
+        return index;
+    }
+}
@@ -0,0 +1,91 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.FlowField;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.utils.IntList;
+
+/**
+ * Many units heading for one tile: a search per unit against a single cached
+ * flow field. Each operation routes all of the units.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlowFieldBenchmark {
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"16", "128"})
+    public int units;
+
+    private Board board;
+    private MovementPlanner planner;
+    private int target;
+    private int[] starts;
+    private final IntList out = new IntList();
+
+    @Setup
+    public void setUp() {
+        Game game = BenchmarkMaps.game(size, density, 2);
+        GameState state = game.copyState();
+        board = state.getBoard();
+        planner = new MovementPlanner(state);
+
+        Random random = new Random(BenchmarkMaps.SEED);
+        target = BenchmarkMaps.randomPassableTile(board, random);
+        starts = new int[units];
+        for (int i = 0; i < units; i++) {
+            starts[i] = BenchmarkMaps.randomPassableTile(board, random);
+        }
+    }
+
+    @Benchmark
+    public int pathEachUnit() {
+        int total = 0;
+        for (int start : starts) {
+            total += planner.findPath(start, target, out);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int followCachedField() {
+        FlowField field = board.getFlowFields().get(target);
+        int total = 0;
+        for (int start : starts) {
+            total += field.path(start, out);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public FlowField buildField() {
+        board.getFlowFields().clear(); // Measure the build, not a cache hit
+        return board.getFlowFields().get(target);
+    }
+}
@@ -0,0 +1,95 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.board.Board;
+import tbs_game.game.board.PathHierarchy;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.PackedHex;
+import tbs_game.utils.IntList;
+
+/**
+ * Long searches on a 1024x512 world map, flat A* against the path hierarchy,
+ * and the planner's own choice between them.
+ * Endpoints are random passable tiles at least a quarter of the map apart.
+ * Clusters are built during setup, so the hierarchy numbers are for warm
+ * queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HierarchyBenchmark {
+
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 512;
+    private static final int SAMPLES = 32;
+
+    @Param({"0.0", "0.2", "0.4"})
+    public double density;
+
+    @Param({"16", "32", "64"})
+    public int clusterSize;
+
+    private MovementPlanner planner;
+    private PathHierarchy paths;
+    private int[] starts;
+    private int[] ends;
+    private final IntList out = new IntList();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Board board = new Board(WIDTH, HEIGHT, BenchmarkMaps.SEED);
+        BenchmarkMaps.paint(board, density);
+        planner = new MovementPlanner(new GameState(board));
+        paths = new PathHierarchy(board, clusterSize);
+
+        Random random = new Random(BenchmarkMaps.SEED);
+        starts = new int[SAMPLES];
+        ends = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            do {
+                starts[i] = BenchmarkMaps.randomPassableTile(board, random);
+                ends[i] = BenchmarkMaps.randomPassableTile(board, random);
+            } while (PackedHex.wrappedDistance(board.hexAt(starts[i]), board.hexAt(ends[i]), WIDTH) < WIDTH / 4
+                    || planner.findFlatPath(starts[i], ends[i], out) < 0);
+            paths.findPath(starts[i], ends[i], out);
+            planner.findPath(starts[i], ends[i], out);
+        }
+    }
+
+    @Benchmark
+    public int flat() {
+        int i = next++ & (SAMPLES - 1);
+        return planner.findFlatPath(starts[i], ends[i], out);
+    }
+
+    @Benchmark
+    public int hierarchical() {
+        int i = next++ & (SAMPLES - 1);
+        return paths.findPath(starts[i], ends[i], out);
+    }
+
+    @Benchmark
+    public int planner() {
+        int i = next++ & (SAMPLES - 1);
+        return planner.findPath(starts[i], ends[i], out);
+    }
+}
@@ -0,0 +1,96 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+/**
+ * Cost of keeping the influence map current. A step and its rollback, as a
+ * search makes them, with tracking off and on, and the threat lookup a search
+ * makes per candidate move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfluenceBenchmark {
+
+    @Param({"false", "true"})
+    public boolean tracking;
+
+    private GameState state;
+    private int[] unitTiles;
+    private int[] stepTiles;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Game game = Game.allPlains(64, 64, 4);
+        state = game.copyState();
+
+        Board board = state.getBoard();
+        Random random = new Random(BenchmarkMaps.SEED);
+        UnitType[] types = {UnitType.WARRIOR, UnitType.ARCHER, UnitType.CAVALRY};
+        unitTiles = new int[256];
+        stepTiles = new int[unitTiles.length];
+        for (int i = 0; i < unitTiles.length; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(board.getTileCount());
+            } while (state.getUnitAt(tile) != null || board.neighbor(tile, 0) < 0
+                    || state.getUnitAt(board.neighbor(tile, 0)) != null);
+
+            state.placeUnitAt(board.getPos(tile), new Unit(types[i % 3], game.getPlayer(i % 4)));
+            unitTiles[i] = tile;
+        }
+        for (int i = 0; i < unitTiles.length; i++) {
+            stepTiles[i] = board.neighbor(unitTiles[i], 0);
+        }
+        // Units stepping onto each other's target tiles are skipped below
+        state.setInfluenceTracking(tracking);
+        state.setJournaling(true);
+    }
+
+    @Benchmark
+    public int stepAndRollback() {
+        int i = next;
+        next = (next + 1) % unitTiles.length;
+        if (state.getUnitAt(stepTiles[i]) != null) {
+            return 0;
+        }
+
+        int mark = state.mark();
+        state.moveUnitInternal(unitTiles[i], stepTiles[i]);
+        state.rollback(mark);
+        return mark;
+    }
+
+    @Benchmark
+    public int threatLookup() {
+        if (!tracking) {
+            return 0;
+        }
+        int i = next;
+        next = (next + 1) % unitTiles.length;
+        return state.getInfluenceMap().threat(i & 3, stepTiles[i]);
+    }
+}
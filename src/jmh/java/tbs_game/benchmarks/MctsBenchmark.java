@@ -0,0 +1,70 @@
+package tbs_game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.player.MctsAI;
+import tbs_game.player.Player;
+
+/**
+ * Playouts per second of {@link MctsAI} on a set up game, by thread count.
+ * Each op plans one turn with a fixed 100ms budget, so compare the playouts
+ * counter, in playouts/s, rather than the op rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MctsBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long playouts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            playouts = 0;
+        }
+    }
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private MctsAI ai;
+    private GameState state;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        Game game = Game.selfPlay(40, 30, 4, BenchmarkMaps.SEED);
+        state = game.copyState();
+        player = game.getCurrentPlayer();
+        ai = new MctsAI(100, threads, 0, BenchmarkMaps.SEED);
+    }
+
+    @Benchmark
+    public void planTurn(Counters counters, Blackhole blackhole) {
+        blackhole.consume(ai.planTurn(state, player));
+        counters.playouts += ai.getLastStats().playouts();
+    }
+}
@@ -0,0 +1,121 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MoveOrders;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+/**
+ * Units with standing orders to far off goals, while another player's units
+ * wander about. Each operation is one turn: the wanderers each take a step,
+ * then every ordered unit's path is brought up to date, either by a fresh
+ * search or by repairing its standing order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveOrdersBenchmark {
+
+    private static final int WANDERERS = 32;
+
+    @Param({"0.0", "0.3"})
+    public double density;
+
+    @Param({"200"})
+    public int units;
+
+    private GameState state;
+    private Board board;
+    private MovementPlanner planner;
+    private MoveOrders orders;
+    private int[] starts;
+    private int[] goals;
+    private int[] wanderers;
+    private Random random;
+    private final IntList out = new IntList();
+
+    @Setup
+    public void setUp() {
+        Game game = BenchmarkMaps.game(256, density, 2);
+        state = game.copyState();
+        board = state.getBoard();
+        planner = new MovementPlanner(state);
+        orders = new MoveOrders(state);
+
+        random = new Random(BenchmarkMaps.SEED);
+        starts = new int[units];
+        goals = new int[units];
+        for (int i = 0; i < units; i++) {
+            starts[i] = freeTile();
+            state.placeUnitAt(board.getPos(starts[i]), new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+            goals[i] = BenchmarkMaps.randomPassableTile(board, random);
+            orders.give(starts[i], goals[i]);
+            orders.path(starts[i], out); // First search, as when the order is given
+        }
+        wanderers = new int[WANDERERS];
+        for (int i = 0; i < WANDERERS; i++) {
+            wanderers[i] = freeTile();
+            state.placeUnitAt(board.getPos(wanderers[i]), new Unit(UnitType.WARRIOR, game.getPlayer(1)));
+        }
+    }
+
+    private int freeTile() {
+        int tile;
+        do {
+            tile = BenchmarkMaps.randomPassableTile(board, random);
+        } while (state.hasUnitAt(tile));
+        return tile;
+    }
+
+    private void wander() {
+        for (int i = 0; i < WANDERERS; i++) {
+            int next = board.neighbor(wanderers[i], random.nextInt(6));
+            if (next >= 0 && board.isPassable(next) && !state.hasUnitAt(next)) {
+                state.moveUnitInternal(wanderers[i], next);
+                wanderers[i] = next;
+            }
+        }
+    }
+
+    @Benchmark
+    public int searchEachTurn() {
+        wander();
+        int total = 0;
+        for (int i = 0; i < units; i++) {
+            total += planner.findPath(starts[i], goals[i], out);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int repairStandingOrders() {
+        wander();
+        int total = 0;
+        for (int i = 0; i < units; i++) {
+            total += orders.path(starts[i], out);
+        }
+        return total;
+    }
+}
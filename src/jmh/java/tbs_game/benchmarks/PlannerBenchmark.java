@@ -0,0 +1,143 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.game.game_helpers.ReachableSets;
+import tbs_game.hexes.AxialPos;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+/**
+ * MovementPlanner searches on several map sizes and terrain densities. Each
+ * operation is a single search, except the per-player ones, which search all
+ * of one player's units; origins and path endpoints cycle through a fixed set
+ * of random passable tiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+
+    private static final int SAMPLES = 64;
+
+    @Param({"64", "256", "512"})
+    public int size;
+
+    @Param({"0.0", "0.2", "0.4"})
+    public double density;
+
+    private GameState state;
+    private MovementPlanner planner;
+
+    private int[] unitTiles;
+    private AxialPos[] unitPositions;
+    private int[] pathStarts;
+    private int[] pathEnds;
+    private final IntList out = new IntList();
+    private final ReachableSets sets = new ReachableSets();
+    private Player player;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Game game = BenchmarkMaps.game(size, density, 2);
+        state = game.copyState();
+        planner = new MovementPlanner(state);
+        player = game.getPlayer(0);
+
+        Board board = state.getBoard();
+        Random random = new Random(BenchmarkMaps.SEED);
+
+        unitTiles = new int[SAMPLES];
+        unitPositions = new AxialPos[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int tile;
+            do {
+                tile = BenchmarkMaps.randomPassableTile(board, random);
+            } while (state.getUnitAt(tile) != null);
+
+            state.placeUnitAt(board.getPos(tile), new Unit(UnitType.CAVALRY, game.getPlayer(i % 2)));
+            unitTiles[i] = tile;
+            unitPositions[i] = board.getPos(tile);
+        }
+
+        // Long distance pairs between empty tiles that are actually connected
+        pathStarts = new int[SAMPLES];
+        pathEnds = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int start;
+            int end;
+            do {
+                start = BenchmarkMaps.randomPassableTile(board, random);
+                end = BenchmarkMaps.randomPassableTile(board, random);
+            } while (state.getUnitAt(start) != null || state.getUnitAt(end) != null
+                    || state.distanceBetween(board.hexAt(start), board.hexAt(end)) < size / 4
+                    || planner.findPath(start, end, out) < 0);
+            pathStarts[i] = start;
+            pathEnds[i] = end;
+        }
+    }
+
+    private int nextSample() {
+        next = (next + 1) % SAMPLES;
+        return next;
+    }
+
+    @Benchmark
+    public int reachableTiles() {
+        return planner.getReachableTiles(unitTiles[nextSample()], out);
+    }
+
+    @Benchmark
+    public Object reachableHexes() {
+        return planner.getReachableHexes(unitPositions[nextSample()]);
+    }
+
+    // The player's units one at a time, as AIs used to
+    @Benchmark
+    public int reachableHexesForPlayer() {
+        int total = 0;
+        for (AxialPos pos : state.getUnitPositionsForPlayer(player)) {
+            total += planner.getReachableHexes(pos).size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public ReachableSets reachableSetsForPlayer() {
+        return planner.getReachableSets(player, sets, false);
+    }
+
+    @Benchmark
+    public ReachableSets reachableSetsForPlayerParallel() {
+        return planner.getReachableSets(player, sets, true);
+    }
+
+    @Benchmark
+    public int findPath() {
+        int i = nextSample();
+        return planner.findPath(pathStarts[i], pathEnds[i], out);
+    }
+}
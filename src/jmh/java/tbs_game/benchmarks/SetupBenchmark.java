@@ -0,0 +1,50 @@
+package tbs_game.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.SetupHandler;
+import tbs_game.hexes.AxialPos;
+
+/**
+ * Spawn spot selection on generated boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetupBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"4", "16"})
+    public int numPlayers;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = new Game(size, size, numPlayers);
+    }
+
+    @Benchmark
+    public ArrayList<AxialPos> generateSpawnSpots() {
+        return SetupHandler.generateSpawnSpots(game, Game.SEED);
+    }
+}
@@ -0,0 +1,86 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+/**
+ * Cost of copying a game state for AI simulation, by number of units. Forks
+ * share storage, so both benchmarks should stay flat as units grow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateCopyBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int unitCount;
+
+    private GameState state;
+    private AxialPos[] unitPositions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Game game = Game.allPlains(128, 128, 4);
+        state = game.copyState();
+
+        Board board = state.getBoard();
+        Random random = new Random(BenchmarkMaps.SEED);
+        for (int i = 0; i < unitCount; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(board.getTileCount());
+            } while (state.getUnitAt(tile) != null);
+
+            state.placeUnitAt(board.getPos(tile), new Unit(UnitType.WARRIOR, game.getPlayer(i % 4)));
+        }
+        unitPositions = state.getAllUnitPositions().toArray(AxialPos[]::new);
+    }
+
+    @Benchmark
+    public GameState createSimulationCopy() {
+        return state.createSimluationCopy();
+    }
+
+    // Fork, then damage one unit and move another, like one ply of a search
+    @Benchmark
+    public GameState forkAndMutate() {
+        GameState copy = state.createSimluationCopy();
+
+        AxialPos damaged = unitPositions[next];
+        next = (next + 1) % unitPositions.length;
+        copy.getUnitAt(damaged).dealDamage(1);
+
+        AxialPos moved = unitPositions[next];
+        for (AxialPos neighbor : moved.getNeighbors()) {
+            AxialPos to = copy.wrap(neighbor);
+            if (copy.getBoard().isOnBoard(to) && copy.getUnitAt(to) == null) {
+                copy.moveUnitInternal(moved, to);
+                break;
+            }
+        }
+        return copy;
+    }
+}
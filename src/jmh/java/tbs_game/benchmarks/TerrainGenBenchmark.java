@@ -0,0 +1,59 @@
+package tbs_game.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.board.CellularGenerator;
+import tbs_game.game.board.MapGenerator;
+import tbs_game.game.board.MapLayers;
+
+/**
+ * Terrain generation alone, over a bare grid, at sizes well past what the
+ * board's neighbor table is built for, by the cellular generator and by the
+ * noise pipeline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainGenBenchmark {
+
+    @Param({"512", "4096"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private byte[] terrain;
+    private final MapGenerator noise = MapGenerator.noise();
+
+    @Setup
+    public void setUp() {
+        terrain = new byte[size * size];
+    }
+
+    @Benchmark
+    public byte[] generate() {
+        CellularGenerator.generate(terrain, size, BenchmarkMaps.SEED, parallel);
+        return terrain;
+    }
+
+    @Benchmark
+    public byte[] generateNoise() {
+        noise.generate(new MapLayers(terrain, size, BenchmarkMaps.SEED, parallel));
+        return terrain;
+    }
+}
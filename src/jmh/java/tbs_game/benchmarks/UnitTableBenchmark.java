@@ -0,0 +1,80 @@
+package tbs_game.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+/**
+ * Walking and updating every unit of a player, for large unit counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnitTableBenchmark {
+
+    private static final int PLAYERS = 4;
+
+    @Param({"1000", "10000", "40000"})
+    public int unitCount;
+
+    private GameState state;
+    private Player player;
+    private final IntList tiles = new IntList();
+
+    @Setup
+    public void setUp() {
+        Game game = Game.allPlains(256, 256, PLAYERS);
+        state = game.copyState();
+        player = game.getPlayer(0);
+
+        Board board = state.getBoard();
+        Random random = new Random(BenchmarkMaps.SEED);
+        for (int i = 0; i < unitCount; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(board.getTileCount());
+            } while (state.getUnitAt(tile) != null);
+
+            state.placeUnitAt(board.getPos(tile), new Unit(UnitType.WARRIOR, game.getPlayer(i % PLAYERS)));
+        }
+    }
+
+    @Benchmark
+    public IntList unitTilesForPlayer() {
+        state.getUnitTilesForPlayer(player, tiles);
+        return tiles;
+    }
+
+    @Benchmark
+    public int unitCount() {
+        return state.getUnitCount(player);
+    }
+
+    @Benchmark
+    public boolean startTurnThenCanEndTurn() {
+        state.startTurn(player);
+        return state.canEndTurn();
+    }
+}
@@ -5,6 +5,7 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import tbs_game.game.Game;
+import tbs_game.game.game_helpers.AiTurnPlanner;
 import tbs_game.gui.GameGUI;
 import tbs_game.gui.camera.CameraPlayground;
 
@@ -35,6 +36,11 @@ public class Main extends Application {
     game.setUpGame();
     // Game game = Game.battleSim(25, 20, 5);
 
+    // AIs think in the background so the UI stays responsive
+    AiTurnPlanner aiPlanner = new AiTurnPlanner();
+    game.setAiPlanner(aiPlanner);
+    stage.setOnHidden(e -> aiPlanner.close());
+
     GameGUI gui = new GameGUI(game, WINDOW_WIDTH, WINDOW_HEIGHT);
     Scene scene = new Scene(gui.getRoot(), WINDOW_WIDTH, WINDOW_HEIGHT);
 
@@ -55,11 +61,12 @@ public class Main extends Application {
     AnimationTimer timer = new AnimationTimer() {
       @Override
       public void handle(long now) {
+        game.pollAiTurn();
         if (game.getActionQueue().isEmpty() || isBusy) {
           return;
         }
         isBusy = true;
-        game.getActionQueue().performNextAction(gui, () -> {
+        game.getActionQueue().performNextAction(game, gui, () -> {
           isBusy = false;
           gui.updateHUD();
         });
@@ -1,5 +1,6 @@
 package tbs_game.game;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -9,13 +10,17 @@ import javafx.scene.paint.Color;
 import tbs_game.game.actions.ActionQueue;
 import tbs_game.game.board.Board;
 import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.AiClock;
+import tbs_game.game.game_helpers.AiTurnPlanner;
 import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MoveOrders;
 import tbs_game.game.game_helpers.MovementPlanner;
 import tbs_game.game.game_helpers.SetupHandler;
 import tbs_game.hexes.AxialPos;
 import tbs_game.player.Player;
 import tbs_game.player.PlayerType;
 import tbs_game.player.RandomAI;
+import tbs_game.player.TurnBudget;
 import tbs_game.units.Unit;
 import tbs_game.units.UnitType;
 
@@ -26,12 +31,19 @@ public class Game {
   private static final int MAX_PLAYERS = 16;
   private static final int MIN_PLAYERS = 2;
 
+  // How long the user's edits must settle before speculation restarts from them
+  private static final long SPECULATION_DELAY_NANOS = 250_000_000L;
+
+  private final long seed;
   private final Board board;
   private final GameState state;
 
   private final MovementPlanner planner;
   private final ActionExecutor executor;
 
+  // Standing orders to move units over several turns
+  private final MoveOrders moveOrders;
+
   // For queueing AI actions
   private final ActionQueue actionQueue = new ActionQueue();
 
@@ -40,13 +52,39 @@ public class Game {
 
   private int numPlayersRemaining;
   private int currentPlayerIdx;
+  private int turnNumber;
+
+  // Time AI turns may take, and when the current turn started
+  private AiClock aiClock = new AiClock();
+  private long turnStartNanos;
+
+  // Plans AI turns in the background when set. Otherwise AIs plan on the game thread
+  private AiTurnPlanner aiPlanner;
+  private boolean aiTurnQueued;
+  private long speculatedHash;
+  private long editedHash;
+  private long editedNanos;
+
+  // The user's moves this turn, newest first, for undo and redo
+  private final ArrayDeque<MoveMark> undoMoves = new ArrayDeque<>();
+  private final ArrayDeque<MoveMark> redoMoves = new ArrayDeque<>();
+
+  // A journal mark taken just before a move along a path, and the goal of the order the move cancelled, or -1
+  private record MoveMark(int mark, ActionPath move, int orderGoal) {
+  }
 
   public Game(int width, int height, int numPlayers) {
-    this.board = new Board(width, height);
+    this(width, height, numPlayers, SEED, true);
+  }
+
+  private Game(int width, int height, int numPlayers, long seed, boolean hasUser) {
+    this.seed = seed;
+    this.board = new Board(width, height, seed);
     this.state = new GameState(board);
 
-    this.planner = new MovementPlanner(state);
-    this.executor = new ActionExecutor(state);
+    this.planner = new MovementPlanner(state, MovementPlanner.DEFAULT_CACHE_CAPACITY);
+    this.executor = new ActionExecutor(state, planner);
+    this.moveOrders = new MoveOrders(state);
 
     // Set up players
     assert (numPlayers >= MIN_PLAYERS);
@@ -56,8 +94,8 @@ public class Game {
     this.numPlayersRemaining = numPlayers;
     playerList = new ArrayList<>(numPlayers);
     for (int i = 0; i < numPlayers; i++) {
-      Player newPlayer = new Player(PlayerType.AI, Color.DARKRED, new RandomAI());
-      if (i == 0) {
+      Player newPlayer = new Player(PlayerType.AI, Color.DARKRED, new RandomAI(seed * 7 + i));
+      if (i == 0 && hasUser) {
         newPlayer = new Player(PlayerType.USER, Color.BLUE, null);
       }
       playerList.add(newPlayer);
@@ -65,6 +103,7 @@ public class Game {
     }
     this.currentPlayerIdx = 0;
     state.setCurrentPlayer(playerList.get(currentPlayerIdx));
+    state.setJournaling(hasUser);
   }
 
   public boolean isGameOver() {
@@ -72,13 +111,40 @@ public class Game {
   }
 
   public boolean isUsersTurn() {
-    return this.currentPlayerIdx == 0; // User is always first player
+    return this.currentPlayerIdx == 0 && !getCurrentPlayer().isAI(); // User is always first player
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  // Number of turns ended so far, across all players
+  public int getTurnNumber() {
+    return this.turnNumber;
+  }
+
+  /**
+   * Gets the winner once the game is over.
+   *
+   * @return the last player standing, or null if the game is not over or
+   * ended with the user losing
+   */
+  public Player getWinner() {
+    if (!isGameOver() || playerList.size() != 1) {
+      return null;
+    }
+    return playerList.get(0);
   }
 
   public Board getBoard() {
     return this.board;
   }
 
+  // Zobrist hash of the current position. See GameState.hash
+  public long getStateHash() {
+    return state.hash();
+  }
+
   public GameState copyState() {
     return state.createSimluationCopy();
   }
@@ -169,40 +235,75 @@ public class Game {
   }
 
   public boolean resolveAction(AxialPos from, AxialPos to) {
-    from = state.wrap(from);
-    to = state.wrap(to);
+    ActionPath planned = planner.planAction(state.wrap(from), state.wrap(to));
+    return planned != null && resolveAction(planned);
+  }
 
-    Unit unit = state.getUnitAt(from);
-    if (unit == null || !unit.getOwner().equals(state.getCurrentPlayer())) {
-      return false;
+  /**
+   * Resolves an action along the path it was planned with, so the unit goes
+   * the way whoever planned it chose.
+   */
+  public boolean resolveAction(ActionPath move) {
+    if (!isUsersTurn() || !state.isJournaling()) {
+      return resolve(move);
     }
 
-    ActionPath planned = planner.planAction(from, to);
-    if (planned == null) {
+    int mark = state.mark();
+    int orderGoal = moveOrders.goalOf(board.indexOf(move.from));
+    if (!resolve(move)) {
       return false;
     }
-    if (planned.cost > unit.getMovementPoints()) {
+    undoMoves.push(new MoveMark(mark, move, orderGoal));
+    redoMoves.clear();
+    return true;
+  }
+
+  /**
+   * Undoes the user's newest move this turn. A move order the move cancelled
+   * is given back.
+   *
+   * @return false if there was nothing to undo
+   */
+  public boolean undoLastMove() {
+    MoveMark move = undoMoves.poll();
+    if (move == null) {
       return false;
     }
 
-    if (Rules.isValidMove(state, from, to)) {
-      executor.move(planned);
-      return true;
+    state.rollback(move.mark());
+    if (move.orderGoal() >= 0) {
+      moveOrders.give(board.indexOf(move.move().from), move.orderGoal());
     }
-    if (Rules.isValidAttack(state, from, to)) {
-      executor.attack(from, to);
-      return true;
+    redoMoves.push(move);
+    return true;
+  }
+
+  /**
+   * Replays the user's newest undone move.
+   *
+   * @return false if there was nothing to redo
+   */
+  public boolean redoMove() {
+    MoveMark move = redoMoves.poll();
+    if (move == null) {
+      return false;
     }
 
-    // Check if unit can move to the penultimate tile then attack
-    AxialPos penultimate = planned.path.get(planned.path.size() - 2);
-    boolean canAttack = Rules.isValidAttack(state, penultimate, to);
-    boolean canMove = Rules.isValidMove(state, from, penultimate);
-    if (!canMove && !canAttack) {
+    int mark = state.mark();
+    int orderGoal = moveOrders.goalOf(board.indexOf(move.move().from));
+    if (!resolve(move.move())) {
+      redoMoves.clear();
       return false;
     }
+    undoMoves.push(new MoveMark(mark, move.move(), orderGoal));
+    return true;
+  }
 
-    executor.moveThenAttack(planned);
+  private boolean resolve(ActionPath move) {
+    if (!executor.resolvePath(move)) {
+      return false;
+    }
+    moveOrders.cancel(board.indexOf(move.from));
     return true;
   }
 
@@ -227,6 +328,7 @@ public class Game {
     }
 
     executor.move(planned);
+    moveOrders.cancel(board.indexOf(from));
     return true;
   }
 
@@ -250,9 +352,38 @@ public class Game {
       return false;
     }
     executor.attack(from, to);
+    moveOrders.cancel(board.indexOf(from));
     return true;
   }
 
+  /**
+   * Orders the current player's unit to move to the goal. From the owner's
+   * next turn on, it moves as far as it can towards the goal at the start of
+   * each turn, until it gets there. Moving the unit by hand cancels the order.
+   */
+  public boolean giveMoveOrder(AxialPos from, AxialPos goal) {
+    from = state.wrap(from);
+    goal = state.wrap(goal);
+
+    Unit unit = state.getUnitAt(from);
+    if (unit == null || !unit.getOwner().equals(state.getCurrentPlayer()) || !board.isOnBoard(goal)) {
+      return false;
+    }
+    return moveOrders.give(board.indexOf(from), board.indexOf(goal));
+  }
+
+  public void cancelMoveOrder(AxialPos pos) {
+    pos = state.wrap(pos);
+
+    if (board.isOnBoard(pos)) {
+      moveOrders.cancel(board.indexOf(pos));
+    }
+  }
+
+  public MoveOrders getMoveOrders() {
+    return this.moveOrders;
+  }
+
   public Set<AxialPos> getReachableHexes(AxialPos from) {
     from = state.wrap(from);
 
@@ -270,31 +401,157 @@ public class Game {
   }
 
   public void endTurn() {
-    if (!state.canEndTurn()) {
+    // AIs decide when they are done. Units boxed in with no moves would otherwise block them forever
+    if (!getCurrentPlayer().isAI() && !state.canEndTurn()) {
       return;
     }
 
+    // Moves from a finished turn can no longer be undone
+    undoMoves.clear();
+    redoMoves.clear();
+    state.clearJournal();
+
     updatePlayers();
 
     this.currentPlayerIdx = (currentPlayerIdx + 1) % numPlayersRemaining;
+    this.turnNumber++;
     state.setCurrentPlayer(playerList.get(currentPlayerIdx));
     startTurn();
   }
 
+  /**
+   * Starts the first player's turn. Only needed when the first player is an
+   * AI, since the user's first turn needs no setup.
+   */
+  public void startGame() {
+    startTurn();
+  }
+
   private void startTurn() {
     Player player = state.getCurrentPlayer();
 
     state.startTurn(player);
+    moveOrders.advance(player);
+    turnStartNanos = System.nanoTime();
+    aiClock.setAiPlayers(countAiPlayers());
+
+    if (aiPlanner == null) {
+      if (player.isAI()) {
+        TurnBudget budget = aiClock.newTurnBudget();
+        player.getAI().doTurn(this, player, budget);
+        aiClock.finish(player, budget);
+      }
+      return;
+    }
 
+    aiTurnQueued = false;
     if (player.isAI()) {
-      player.getAI().doTurn(this, player);
+      aiPlanner.request(state.createSimluationCopy(), aiClock);
+    } else {
+      speculate(List.of());
+    }
+  }
+
+  public AiClock getAiClock() {
+    return this.aiClock;
+  }
+
+  /**
+   * Limits how long AI turns may take from the next turn on. With a planner
+   * set, a turn not planned in time is skipped.
+   */
+  public void setAiClock(AiClock clock) {
+    this.aiClock = clock;
+  }
+
+  /**
+   * Plans AI turns on background threads from now on. The game thread must
+   * then call {@link #pollAiTurn} regularly to queue each turn once it is
+   * planned.
+   */
+  public void setAiPlanner(AiTurnPlanner planner) {
+    this.aiPlanner = planner;
+    this.aiTurnQueued = false;
+    if (getCurrentPlayer().isAI()) {
+      planner.request(state.createSimluationCopy(), aiClock);
+    } else {
+      speculate(List.of());
+    }
+  }
+
+  /**
+   * Queues the current AI player's turn once its background plan is ready.
+   * During the user's turn, restarts speculation on the AI turns that follow
+   * once the user has changed the state and then left it alone for a moment.
+   * Does nothing without an AI planner.
+   *
+   * @return true if a turn was queued
+   */
+  public boolean pollAiTurn() {
+    if (aiPlanner == null || state.isGameOver()) {
+      return false;
     }
+
+    if (!getCurrentPlayer().isAI()) {
+      long hash = state.hash();
+      if (hash != editedHash) {
+        editedHash = hash;
+        editedNanos = System.nanoTime();
+      } else if (hash != speculatedHash && System.nanoTime() - editedNanos >= SPECULATION_DELAY_NANOS) {
+        speculate(List.of());
+      }
+      return false;
+    }
+    if (aiTurnQueued) {
+      return false;
+    }
+
+    List<ActionPath> moves = aiPlanner.take(state.hash());
+    if (moves == null) {
+      if (!aiClock.isOverdue(turnStartNanos)) {
+        return false;
+      }
+      // Out of time. The AI loses its turn rather than hold up the game
+      aiPlanner.forfeit(state.hash());
+      aiClock.recordForfeit(getCurrentPlayer(), turnStartNanos);
+      moves = List.of();
+    }
+    aiTurnQueued = true;
+    actionQueue.addTurn(moves);
+    speculate(moves);
+    return true;
+  }
+
+  // Plans ahead for the AI players after the current one, as if the current player makes the moves then ends their turn
+  private void speculate(List<ActionPath> moves) {
+    List<Player> upcoming = new ArrayList<>();
+    for (int i = 1; i < playerList.size(); i++) {
+      Player player = playerList.get((currentPlayerIdx + i) % playerList.size());
+      if (!player.isAI()) {
+        break; // Cannot guess what the user will do
+      }
+      upcoming.add(player);
+    }
+
+    speculatedHash = state.hash();
+    editedHash = speculatedHash;
+    aiPlanner.speculate(state.createSimluationCopy(), moves, upcoming, aiClock);
+  }
+
+  private int countAiPlayers() {
+    int count = 0;
+    for (Player player : playerList) {
+      if (player.isAI()) {
+        count++;
+      }
+    }
+    return count;
   }
 
   private void updatePlayers() {
     for (int i = 0; i < playerList.size(); i++) {
       Player player = playerList.get(i);
-      if (state.getUnitPositionsForPlayer(player).isEmpty()) { // No units left
+      if (state.getUnitCount(player) == 0) { // No units left
         if (!player.isAI()) { // User lost all units -> loss
           state.endGame();
           return;
@@ -317,8 +574,8 @@ public class Game {
   }
 
   public void setUpGame() {
-    ArrayList<AxialPos> spawnLocations = SetupHandler.generateSpawnSpots(this, SEED);
-    ArrayList<AxialPos> warriorSpawns = SetupHandler.generateUnitSpawns(this, spawnLocations, SEED);
+    ArrayList<AxialPos> spawnLocations = SetupHandler.generateSpawnSpots(this, seed);
+    ArrayList<AxialPos> warriorSpawns = SetupHandler.generateUnitSpawns(this, spawnLocations, seed);
     for (int i = 0; i < numPlayers; i++) {
       Unit settler = new Unit(UnitType.SETTLER, getPlayer(i));
       Unit warrior = new Unit(UnitType.WARRIOR, getPlayer(i));
@@ -327,6 +584,17 @@ public class Game {
     }
   }
 
+  /**
+   * Creates a game where every player is an AI, for headless self-play. The
+   * seed drives terrain, spawns and the AIs.
+   */
+  public static Game selfPlay(int width, int height, int numPlayers, long seed) {
+    Game game = new Game(width, height, numPlayers, seed, false);
+    game.setUpGame();
+
+    return game;
+  }
+
   public static Game allPlains(int width, int height, int numPlayers) {
     Game game = new Game(width, height, numPlayers);
     game.getBoard().makeAllPlains();
@@ -1,6 +1,5 @@
 package tbs_game.game;
 
-import tbs_game.game.board.Tile;
 import tbs_game.game.game_helpers.GameState;
 import tbs_game.hexes.AxialPos;
 import tbs_game.units.AttackType;
@@ -13,8 +12,7 @@ public class Rules {
             return false;
         }
 
-        Tile tile = state.getBoard().getTile(to);
-        if (!tile.isPassable()) {
+        if (!state.getBoard().isPassable(to)) {
             return false;
         }
 
@@ -1,7 +1,8 @@
 package tbs_game.game.actions;
 
-import tbs_game.gui.GameGUI;
+import tbs_game.game.Game;
 
 public interface Action {
-  public void execute(GameGUI gui, Runnable onFinish);
+  // Changes the game and reports what happened. Never touches presentation
+  public GameEvent apply(Game game);
 }
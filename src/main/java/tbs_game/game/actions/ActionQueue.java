@@ -1,9 +1,11 @@
 package tbs_game.game.actions;
 
 import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Queue;
 
-import tbs_game.gui.GameGUI;
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
 
 public class ActionQueue {
 
@@ -17,20 +19,48 @@ public class ActionQueue {
         queue.add(act);
     }
 
+    /**
+     * Queues a planned turn: each move, then ending the turn.
+     */
+    public void addTurn(List<ActionPath> moves) {
+        for (ActionPath move : moves) {
+            queue.add(new MoveAction(move));
+        }
+        queue.add(new EndTurnAction());
+    }
+
     public boolean isEmpty() {
         return queue.isEmpty();
     }
 
-    public void performNextAction(GameGUI gui, Runnable onComplete) {
-        if (isEmpty()) {
-            return;
-        }
+    public void clear() {
+        queue.clear();
+    }
 
+    /**
+     * Applies the next action to the game.
+     *
+     * @return What the action did, or null if the queue was empty
+     */
+    public GameEvent applyNextAction(Game game) {
         Action act = queue.poll();
         if (act == null) {
+            return null;
+        }
+
+        return act.apply(game);
+    }
+
+    /**
+     * Applies the next action, then hands its event to the listener to present.
+     * onComplete runs once the listener is done.
+     */
+    public void performNextAction(Game game, GameEventListener listener, Runnable onComplete) {
+        GameEvent event = applyNextAction(game);
+        if (event == null) {
             return;
         }
 
-        act.execute(gui, onComplete);
+        listener.onEvent(event, onComplete);
     }
 }
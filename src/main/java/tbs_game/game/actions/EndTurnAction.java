@@ -1,20 +1,15 @@
 package tbs_game.game.actions;
 
 import tbs_game.game.Game;
-import tbs_game.gui.GameGUI;
+import tbs_game.player.Player;
 
 public class EndTurnAction implements Action {
 
-    private final Game game;
-
-    public EndTurnAction(Game game) {
-        this.game = game;
-    }
-
     @Override
-    public void execute(GameGUI gui, Runnable onFinish) {
+    public GameEvent apply(Game game) {
+        Player previous = game.getCurrentPlayer();
         game.endTurn();
-        onFinish.run();
+        return new EndTurnEvent(previous, game.getCurrentPlayer());
     }
 
 }
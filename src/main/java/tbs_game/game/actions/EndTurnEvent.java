@@ -0,0 +1,13 @@
+package tbs_game.game.actions;
+
+import tbs_game.player.Player;
+
+/**
+ * A player ended their turn.
+ *
+ * @param previous - The player whose turn ended
+ * @param next - The player whose turn it is now. Same as previous if the turn
+ * could not end
+ */
+public record EndTurnEvent(Player previous, Player next) implements GameEvent {
+}
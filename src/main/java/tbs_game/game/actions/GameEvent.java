@@ -0,0 +1,8 @@
+package tbs_game.game.actions;
+
+/**
+ * Describes what an applied {@link Action} did, so a presentation layer can
+ * play it back without re-running any game logic.
+ */
+public sealed interface GameEvent permits MoveEvent, EndTurnEvent {
+}
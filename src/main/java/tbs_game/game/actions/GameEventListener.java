@@ -0,0 +1,15 @@
+package tbs_game.game.actions;
+
+/**
+ * Presents applied actions, e.g. by animating them. Called after the action
+ * has already changed the game.
+ */
+public interface GameEventListener {
+
+    public static final GameEventListener NONE = (event, onFinish) -> onFinish.run();
+
+    /**
+     * @param onFinish - Must be run once the event has been presented
+     */
+    public void onEvent(GameEvent event, Runnable onFinish);
+}
@@ -0,0 +1,12 @@
+package tbs_game.game.actions;
+
+import tbs_game.game.ActionPath;
+
+/**
+ * A unit moved, attacked, or moved then attacked along the given path.
+ *
+ * @param move - The planned path the action followed
+ * @param applied - False if the game rejected the move
+ */
+public record MoveEvent(ActionPath move, boolean applied) implements GameEvent {
+}
@@ -1,42 +1,111 @@
 package tbs_game.game.board;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.Collections;
+import java.util.List;
 
 import tbs_game.game.Game;
 import tbs_game.hexes.AxialPos;
 import tbs_game.hexes.OffsetPos;
+import tbs_game.hexes.PackedHex;
 
+/**
+ * The game board. Terrain is stored densely as one byte (the {@link Terrain}
+ * ordinal) per tile, in row-major offset order: the tile at offset (col, row)
+ * lives at index {@code row * width + col}.
+ */
 public class Board {
 
-    private final Random random;
+    private static final Terrain[] TERRAINS = Terrain.values();
+    private static final int MIN_COST = minCost();
 
     private final int width;
     private final int height;
-    private final Map<AxialPos, Tile> tiles;
+    private final byte[] terrain;
+
+    // Wrapped neighbor tile index for each tile and direction, -1 off the top or bottom edge
+    private final int[] neighbors;
+
+    // Bumped on every terrain change, so results derived from the terrain can tell they are stale
+    private int version;
+    private int roughTiles; // Impassable or dearer than the cheapest terrain
+    private final FlowFieldCache flowFields = new FlowFieldCache(this);
+    private volatile PathHierarchy paths; // Created by the first search over it, see getPathHierarchy
+
+    // Lazily created tile views and position list, only used by callers of the AxialPos API
+    private Tile[] tiles;
+    private List<AxialPos> positions;
 
     public Board(int width, int height) {
+        this(width, height, Game.SEED);
+    }
+
+    public Board(int width, int height, long seed) {
+        this(width, height, seed, MapGenerator.cellular());
+    }
+
+    public Board(int width, int height, long seed, MapGenerator generator) {
         this.width = width;
         this.height = height;
-        this.tiles = new HashMap<>();
-
-        this.random = new Random(Game.SEED);
+        this.terrain = new byte[width * height];
+        this.neighbors = buildNeighborTable();
 
-        initializeTiles();
+        generator.generate(terrain, width, seed);
+        this.roughTiles = countRough();
     }
 
     public Collection<AxialPos> getPositions() {
-        return tiles.keySet();
+        if (positions == null) {
+            List<AxialPos> all = new ArrayList<>(terrain.length);
+            for (int i = 0; i < terrain.length; i++) {
+                all.add(getPos(i));
+            }
+            positions = Collections.unmodifiableList(all);
+        }
+        return positions;
     }
 
     public Tile getTile(AxialPos pos) {
-        return tiles.get(pos);
+        int index = indexOf(pos);
+        if (index < 0) {
+            return null;
+        }
+        return getTile(index);
     }
 
+    public Tile getTile(int index) {
+        if (tiles == null) {
+            tiles = new Tile[terrain.length];
+        }
+
+        Tile tile = tiles[index];
+        if (tile == null) {
+            tile = new Tile(this, index);
+            tiles[index] = tile;
+        }
+        return tile;
+    }
+
+    /**
+     * Puts a tile on the board, replacing the tile already at that position.
+     * The given tile becomes the board's view of that position.
+     *
+     * @return the replaced tile, detached from the board
+     */
     public Tile putTile(AxialPos pos, Tile tile) {
-        return tiles.put(pos, tile);
+        int index = indexOf(pos);
+        if (index < 0) {
+            throw new IllegalArgumentException("Position " + pos + " is not on the board");
+        }
+
+        Tile previous = getTile(index);
+        previous.detach();
+
+        tile.attach(this, index);
+        tiles[index] = tile;
+        return previous;
     }
 
     public int getWidth() {
@@ -47,84 +116,171 @@ public class Board {
         return height;
     }
 
+    public int getTileCount() {
+        return terrain.length;
+    }
+
     public boolean isOnBoard(AxialPos pos) {
-        return tiles.get(pos) != null;
+        return indexOf(pos) >= 0;
     }
 
-    private void initializeTiles() {
-        for (int row = 0; row < height; row++) { // pointy top
-            for (int col = 0; col < width; col++) {
-                Terrain type = Terrain.PLAINS;
-                if (random.nextDouble() < 0.4) {
-                    type = Terrain.WATER;
-                }
-                tiles.put(new OffsetPos(col, row).toAxial(), new Tile(type));
-            }
-        }
+    // ----- Index based access -----
+    /**
+     * Gets the storage index of an axial position. Does not wrap.
+     *
+     * @return the tile index, or -1 if the position is not on the board
+     */
+    public int indexOf(AxialPos pos) {
+        return indexOf(pos.q, pos.r);
+    }
 
-        // Smooth water out
-        for (int i = 0; i < 2; i++) {
-            for (Map.Entry<AxialPos, Tile> entry : tiles.entrySet()) {
-                AxialPos pos = entry.getKey();
-                Tile tile = entry.getValue();
+    public int indexOf(int q, int r) {
+        if (r < 0 || r >= height) {
+            return -1;
+        }
 
-                int waterNeighbors = countNeighbors(pos, Terrain.WATER);
-                if (waterNeighbors >= 4) {
-                    tile.setTerrain(Terrain.WATER);
-                } else if (waterNeighbors < 2) {
-                    tile.setTerrain(Terrain.PLAINS);
-                }
-            }
+        int col = q + (r + OffsetPos.OFFSET * (r & 1)) / 2;
+        if (col < 0 || col >= width) {
+            return -1;
         }
+        return r * width + col;
+    }
 
-        for (Map.Entry<AxialPos, Tile> entry : tiles.entrySet()) {
-            AxialPos pos = entry.getKey();
-            Tile tile = entry.getValue();
+    /**
+     * Gets the storage index of a packed hex (see {@link PackedHex}). Does not
+     * wrap.
+     *
+     * @return the tile index, or -1 if the hex is not on the board
+     */
+    public int indexOfHex(int hex) {
+        return indexOf(PackedHex.q(hex), PackedHex.r(hex));
+    }
 
-            if (tile.getTerrain() == Terrain.PLAINS) {
-                double baseChance = 0.15;
-                int forestNeighbors = countNeighbors(pos, Terrain.FOREST);
+    public AxialPos getPos(int index) {
+        return new OffsetPos(index % width, index / width).toAxial();
+    }
 
-                double forestChance = baseChance + forestNeighbors * 0.1;
-                if (random.nextDouble() < forestChance) {
-                    tile.setTerrain(Terrain.FOREST);
-                }
+    public int hexAt(int index) {
+        return PackedHex.fromOffset(index % width, index / width);
+    }
+
+    /**
+     * Gets the tile index of a neighbor, wrapping around the left and right
+     * edges of the board. Directions follow {@link AxialPos#neighbor(int)}.
+     *
+     * @return the neighbor's tile index, or -1 if it is off the top or bottom edge
+     */
+    public int neighbor(int index, int direction) {
+        return neighbors[index * 6 + direction];
+    }
+
+    /**
+     * Gets the whole neighbor table. The neighbors of tile i in direction d are
+     * at {@code i * 6 + d}. The returned array is shared and must not be
+     * modified.
+     */
+    public int[] getNeighborTable() {
+        return neighbors;
+    }
+
+    private int[] buildNeighborTable() {
+        int[] table = new int[terrain.length * 6];
+        for (int index = 0; index < terrain.length; index++) {
+            int hex = hexAt(index);
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = PackedHex.wrap(PackedHex.neighbor(hex, dir), width);
+                table[index * 6 + dir] = indexOfHex(neighbor);
             }
         }
+        return table;
+    }
 
-        for (Map.Entry<AxialPos, Tile> entry : tiles.entrySet()) {
-            AxialPos pos = entry.getKey();
-            Tile tile = entry.getValue();
+    public Terrain getTerrain(int index) {
+        return TERRAINS[terrain[index]];
+    }
+
+    public void setTerrain(int index, Terrain type) {
+        if (isRough(terrain[index])) {
+            roughTiles--;
+        }
+        terrain[index] = (byte) type.ordinal();
+        if (isRough(terrain[index])) {
+            roughTiles++;
+        }
+        version++;
+        PathHierarchy hierarchy = paths;
+        if (hierarchy != null) {
+            hierarchy.invalidate(index);
+        }
+    }
 
-            if (tile.getTerrain() == Terrain.PLAINS) {
-                double baseChance = 0.1;
-                int mountainNeighbors = countNeighbors(pos, Terrain.MOUNTAIN);
-                int waterNeighbors = countNeighbors(pos, Terrain.WATER);
+    public int getVersion() {
+        return version;
+    }
 
-                double mountainChance = baseChance + mountainNeighbors * 0.15 - waterNeighbors * 0.1;
-                if (random.nextDouble() < mountainChance) {
-                    tile.setTerrain(Terrain.MOUNTAIN);
+    /**
+     * Share of tiles that are impassable or cost more to enter than the
+     * cheapest terrain. Searches across open ground gain little from the
+     * {@link PathHierarchy}.
+     */
+    public double getRoughShare() {
+        return (double) roughTiles / terrain.length;
+    }
+
+    /**
+     * Flow fields over this board's terrain, cached until the terrain
+     * changes.
+     */
+    public FlowFieldCache getFlowFields() {
+        return flowFields;
+    }
+
+    /**
+     * Hierarchical paths over this board's terrain, for searches between
+     * distant tiles.
+     */
+    public PathHierarchy getPathHierarchy() {
+        PathHierarchy hierarchy = paths;
+        if (hierarchy == null) {
+            synchronized (this) {
+                hierarchy = paths;
+                if (hierarchy == null) {
+                    hierarchy = new PathHierarchy(this);
+                    paths = hierarchy;
                 }
             }
         }
+        return hierarchy;
+    }
 
+    public boolean isPassable(int index) {
+        return TERRAINS[terrain[index]].passable;
+    }
+
+    public int cost(int index) {
+        return TERRAINS[terrain[index]].moveCost;
     }
 
     public boolean isPassable(AxialPos pos) {
-        Tile tile = tiles.get(pos);
-        return tile != null && tile.getTerrain().passable;
+        int index = indexOf(pos);
+        return index >= 0 && isPassable(index);
     }
 
     public int countNeighbors(AxialPos pos, Terrain type) {
-        int count = 0;
+        int index = indexOf(pos);
+        if (index < 0) {
+            return 0;
+        }
+        return countNeighbors(index, type);
+    }
 
-        for (AxialPos direction : AxialPos.directions) {
-            AxialPos neighbor = pos.add(direction);
-            if (!isOnBoard(neighbor)) {
-                continue;
-            }
+    public int countNeighbors(int index, Terrain type) {
+        byte ordinal = (byte) type.ordinal();
+        int count = 0;
 
-            if (tiles.get(neighbor).getTerrain() == type) {
+        for (int i = index * 6; i < index * 6 + 6; i++) {
+            int neighbor = neighbors[i];
+            if (neighbor >= 0 && terrain[neighbor] == ordinal) {
                 count++;
             }
         }
@@ -133,24 +289,67 @@ public class Board {
     }
 
     public void makeAllPlains() {
-        for (Map.Entry<AxialPos, Tile> entry : tiles.entrySet()) {
-            Tile tile = entry.getValue();
-            tile.setTerrain(Terrain.PLAINS);
+        Arrays.fill(terrain, (byte) Terrain.PLAINS.ordinal());
+        roughTiles = countRough();
+        version++;
+        PathHierarchy hierarchy = paths;
+        if (hierarchy != null) {
+            hierarchy.invalidateAll();
         }
     }
 
     public void makeAllForest() {
-        for (Map.Entry<AxialPos, Tile> entry : tiles.entrySet()) {
-            Tile tile = entry.getValue();
-            tile.setTerrain(Terrain.FOREST);
+        Arrays.fill(terrain, (byte) Terrain.FOREST.ordinal());
+        roughTiles = countRough();
+        version++;
+        PathHierarchy hierarchy = paths;
+        if (hierarchy != null) {
+            hierarchy.invalidateAll();
+        }
+    }
+
+    /**
+     * Repaints the whole board with the given generator.
+     */
+    public void generate(MapGenerator generator, long seed) {
+        generator.generate(terrain, width, seed);
+        roughTiles = countRough();
+        version++;
+        PathHierarchy hierarchy = paths;
+        if (hierarchy != null) {
+            hierarchy.invalidateAll();
+        }
+    }
+
+    private int countRough() {
+        int count = 0;
+        for (byte type : terrain) {
+            if (isRough(type)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isRough(byte type) {
+        return !TERRAINS[type].passable || TERRAINS[type].moveCost > MIN_COST;
+    }
+
+    private static int minCost() {
+        int min = Integer.MAX_VALUE;
+        for (Terrain terrain : TERRAINS) {
+            if (terrain.passable) {
+                min = Math.min(min, terrain.moveCost);
+            }
         }
+        return min;
     }
 
     public void createDebugMap() {
         makeAllPlains();
-        tiles.get(new AxialPos(1, 0)).setTerrain(Terrain.PLAINS);
-        tiles.get(new AxialPos(1, -1)).setTerrain(Terrain.FOREST);
-        tiles.get(new AxialPos(0, -1)).setTerrain(Terrain.WATER);
-        tiles.get(new AxialPos(-1, 0)).setTerrain(Terrain.MOUNTAIN);
+        getTile(new AxialPos(1, 0)).setTerrain(Terrain.PLAINS);
+        getTile(new AxialPos(1, -1)).setTerrain(Terrain.FOREST);
+        getTile(new AxialPos(0, -1)).setTerrain(Terrain.WATER);
+        getTile(new AxialPos(-1, 0)).setTerrain(Terrain.MOUNTAIN);
     }
 }
@@ -0,0 +1,155 @@
+package tbs_game.game.board;
+
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Paints starting terrain onto a row-major grid of {@link Terrain} ordinals.
+ * Water is scattered at random and smoothed into lakes, then forests and
+ * mountains are seeded on the plains and grown into clumps.
+ *
+ * Every pass reads the grid the pass before it wrote and writes the other of
+ * two buffers, so no tile sees a change made in the same pass. That lets the
+ * rows of a pass be painted in parallel. Each row of each pass draws from its
+ * own random stream derived from the seed, so a seed paints the same map
+ * however many threads there are.
+ */
+public final class CellularGenerator {
+
+    // Below this many tiles, handing rows out to threads costs more than it saves
+    static final int PARALLEL_MIN_TILES = 1 << 16;
+
+    private static final byte PLAINS = (byte) Terrain.PLAINS.ordinal();
+    private static final byte FOREST = (byte) Terrain.FOREST.ordinal();
+    private static final byte MOUNTAIN = (byte) Terrain.MOUNTAIN.ordinal();
+    private static final byte WATER = (byte) Terrain.WATER.ordinal();
+
+    // What smoothing turns a tile into, by its water neighbors * 4 + its own terrain
+    private static final byte[] SMOOTHED = new byte[7 * 4];
+
+    static {
+        for (int water = 0; water <= 6; water++) {
+            for (byte type = 0; type < 4; type++) {
+                SMOOTHED[water * 4 + type] = water >= 4 ? WATER : water < 2 ? PLAINS : type;
+            }
+        }
+    }
+
+    // Chances as 31 bit rolls, so a draw can be compared without branching on it
+    private static final int WATER_CHANCE = chance(0.4);
+    private static final int FOREST_CHANCE = chance(0.15);
+    private static final int FOREST_GROWTH = chance(0.1); // Per forest neighbor
+    private static final int MOUNTAIN_CHANCE = chance(0.1);
+    private static final int MOUNTAIN_GROWTH = chance(0.15); // Per mountain neighbor
+
+    private CellularGenerator() {
+    }
+
+    /**
+     * Paints the whole grid, in parallel if it is large.
+     *
+     * @param terrain - Terrain ordinals, row-major, a whole number of rows
+     */
+    public static void generate(byte[] terrain, int width, long seed) {
+        generate(terrain, width, seed, terrain.length >= PARALLEL_MIN_TILES);
+    }
+
+    public static void generate(byte[] terrain, int width, long seed, boolean parallel) {
+        if (width <= 0 || terrain.length % width != 0) {
+            throw new IllegalArgumentException("Terrain must hold whole rows of " + width + " tiles");
+        }
+        int height = terrain.length / width;
+
+        PaddedGrid front = new PaddedGrid(width, height);
+        PaddedGrid back = new PaddedGrid(width, height);
+
+        forEachRow(height, parallel, row -> scatterWater(front, row, random(seed, 0, row)));
+        forEachRow(height, parallel, row -> smooth(front, back, row, null));
+        forEachRow(height, parallel, row -> smooth(back, front, row, random(seed, 1, row)));
+        forEachRow(height, parallel, row -> growForest(front, back, row, random(seed, 2, row)));
+        forEachRow(height, parallel, row -> growMountains(back, front, row, random(seed, 3, row)));
+
+        forEachRow(height, parallel, row -> front.store(terrain, row));
+    }
+
+    private static void forEachRow(int height, boolean parallel, IntConsumer paint) {
+        IntStream rows = IntStream.range(0, height);
+        (parallel ? rows.parallel() : rows).forEach(paint);
+    }
+
+    // A stream for one row of one pass. The seed is mixed, as rows with nearby seeds would share most of their draws
+    private static SplittableRandom random(long seed, int pass, int row) {
+        return new SplittableRandom(mix(seed ^ mix(((long) pass << 32) | row)));
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static int chance(double p) {
+        return (int) (p * (1L << 31));
+    }
+
+    private static int roll(SplittableRandom random) {
+        return random.nextInt() >>> 1;
+    }
+
+    private static void scatterWater(PaddedGrid out, int row, SplittableRandom random) {
+        byte[] tiles = out.tiles;
+        int start = out.start(row);
+        for (int i = start; i < start + out.width; i++) {
+            tiles[i] = roll(random) < WATER_CHANCE ? WATER : PLAINS;
+        }
+        out.wrap(row);
+    }
+
+    // Fills in water surrounded by water and dries out water standing alone. With a random, also seeds forest
+    private static void smooth(PaddedGrid in, PaddedGrid out, int row, SplittableRandom random) {
+        byte[] src = in.tiles;
+        byte[] dst = out.tiles;
+        int start = in.start(row);
+        int up = in.up(row);
+        int down = in.down(row);
+        for (int i = start; i < start + in.width; i++) {
+            byte type = SMOOTHED[PaddedGrid.count(src, i, up, down, WATER) * 4 + src[i]];
+            if (random != null) {
+                type = type == PLAINS & roll(random) < FOREST_CHANCE ? FOREST : type;
+            }
+            dst[i] = type;
+        }
+        out.wrap(row);
+    }
+
+    // Spreads forest onto plains next to it, then seeds mountains on what plains are left away from water
+    private static void growForest(PaddedGrid in, PaddedGrid out, int row, SplittableRandom random) {
+        byte[] src = in.tiles;
+        byte[] dst = out.tiles;
+        int start = in.start(row);
+        int up = in.up(row);
+        int down = in.down(row);
+        for (int i = start; i < start + in.width; i++) {
+            long draw = random.nextLong(); // Two rolls, one in each half
+            boolean plains = src[i] == PLAINS;
+            boolean forest = plains & (int) (draw >>> 33) < PaddedGrid.count(src, i, up, down, FOREST) * FOREST_GROWTH;
+            boolean mountain = plains & ((int) draw >>> 1) < MOUNTAIN_CHANCE & PaddedGrid.count(src, i, up, down, WATER) == 0;
+            dst[i] = forest ? FOREST : mountain ? MOUNTAIN : src[i];
+        }
+        out.wrap(row);
+    }
+
+    private static void growMountains(PaddedGrid in, PaddedGrid out, int row, SplittableRandom random) {
+        byte[] src = in.tiles;
+        byte[] dst = out.tiles;
+        int start = in.start(row);
+        int up = in.up(row);
+        int down = in.down(row);
+        for (int i = start; i < start + in.width; i++) {
+            boolean mountain = src[i] == PLAINS & roll(random) < PaddedGrid.count(src, i, up, down, MOUNTAIN) * MOUNTAIN_GROWTH;
+            dst[i] = mountain ? MOUNTAIN : src[i];
+        }
+        out.wrap(row);
+    }
+}
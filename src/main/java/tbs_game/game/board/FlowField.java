@@ -0,0 +1,160 @@
+package tbs_game.game.board;
+
+import java.util.Arrays;
+
+import tbs_game.utils.IntList;
+
+/**
+ * Shortest paths from every tile to the nearest of a set of target tiles, over
+ * the board's terrain costs. Built once by a reverse Dijkstra from the
+ * targets, after which any number of units can follow it to the goal with one
+ * lookup per step. Wraps around the left and right edges like the board.
+ *
+ * Only terrain is taken into account. Units standing in the way are up to the
+ * caller. A field is immutable once built, so it can be shared between
+ * threads, but it describes the board as of {@link #getBoardVersion}.
+ */
+public final class FlowField {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int NONE = -1;
+
+    private final Board board;
+    private final int version;
+    private final int[] targets;
+
+    private final int[] costs;
+    private final byte[] directions; // Direction of the next step, or NONE
+
+    /**
+     * @param targets - Tiles to path to. Impassable ones cannot be entered,
+     * so nothing paths to them
+     */
+    FlowField(Board board, int[] targets) {
+        this.board = board;
+        this.version = board.getVersion();
+        this.targets = targets.clone();
+        Arrays.sort(this.targets);
+
+        int tileCount = board.getTileCount();
+        this.costs = new int[tileCount];
+        this.directions = new byte[tileCount];
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(directions, (byte) NONE);
+        build();
+    }
+
+    // Dial's algorithm outward from the targets. Steps cost at most maxStepCost, so a ring of buckets is enough
+    private void build() {
+        int[] neighbors = board.getNeighborTable();
+        IntList[] ring = new IntList[maxStepCost() + 1];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new IntList();
+        }
+
+        int pending = 0;
+        for (int target : targets) {
+            if (costs[target] != 0) {
+                costs[target] = 0;
+                ring[0].add(target);
+                pending++;
+            }
+        }
+
+        for (int cost = 0; pending > 0; cost++) {
+            IntList bucket = ring[cost % ring.length];
+
+            // Steps cost at least 1, so a bucket never grows while it is scanned
+            for (int b = 0; b < bucket.size(); b++) {
+                int current = bucket.get(b);
+                pending--;
+                if (costs[current] != cost || !board.isPassable(current)) {
+                    continue; // Stale entry, or a target no one can enter
+                }
+
+                // Neighbors step into current, paying for its terrain
+                int newCost = cost + board.cost(current);
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = neighbors[current * 6 + dir];
+                    if (neighbor < 0 || !board.isPassable(neighbor) || newCost >= costs[neighbor]) {
+                        continue;
+                    }
+                    costs[neighbor] = newCost;
+                    directions[neighbor] = (byte) ((dir + 3) % 6); // Back towards current
+                    ring[newCost % ring.length].add(neighbor);
+                    pending++;
+                }
+            }
+            bucket.clear();
+        }
+    }
+
+    private static int maxStepCost() {
+        int max = 1;
+        for (Terrain terrain : Terrain.values()) {
+            if (terrain.passable) {
+                max = Math.max(max, terrain.moveCost);
+            }
+        }
+        return max;
+    }
+
+    public int getBoardVersion() {
+        return version;
+    }
+
+    public boolean isTarget(int tile) {
+        return Arrays.binarySearch(targets, tile) >= 0;
+    }
+
+    /**
+     * Movement cost from the tile to the nearest target.
+     *
+     * @return the cost, 0 on a target, or {@link #UNREACHABLE}
+     */
+    public int costFrom(int tile) {
+        return costs[tile];
+    }
+
+    /**
+     * Direction of the first step towards the nearest target, as in
+     * {@link Board#neighbor}.
+     *
+     * @return the direction, or -1 on a target or an unreachable tile
+     */
+    public int direction(int tile) {
+        return directions[tile];
+    }
+
+    /**
+     * @return the tile to step to next, or -1 on a target or an unreachable
+     * tile
+     */
+    public int nextTile(int tile) {
+        int dir = directions[tile];
+        return dir == NONE ? NONE : board.neighbor(tile, dir);
+    }
+
+    /**
+     * Follows the field from a tile to the nearest target.
+     *
+     * @param out - Cleared, then filled with the tiles of the path, including
+     * the start and the target
+     * @return the movement cost of the path, or -1 if no target is reachable
+     */
+    public int path(int from, IntList out) {
+        out.clear();
+        if (costs[from] == UNREACHABLE) {
+            return -1;
+        }
+
+        int tile = from;
+        out.add(tile);
+        while (directions[tile] != NONE) {
+            tile = board.neighbor(tile, directions[tile]);
+            out.add(tile);
+        }
+        return costs[from];
+    }
+}
@@ -0,0 +1,97 @@
+package tbs_game.game.board;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recently used flow fields of one board, keyed by their target set. A field
+ * built before the board's terrain last changed is never handed out. Safe to
+ * use from several threads; a field is built outside the lock, so two threads
+ * asking for the same new field may both build it.
+ */
+public class FlowFieldCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // Targets sorted, so the same set in any order finds the same field
+    private record Key(int[] targets) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(targets, key.targets);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(targets);
+        }
+    }
+
+    private final Board board;
+    private final Map<Key, FlowField> fields;
+
+    private long hits;
+    private long misses;
+
+    public FlowFieldCache(Board board) {
+        this(board, DEFAULT_CAPACITY);
+    }
+
+    public FlowFieldCache(Board board, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.board = board;
+        this.fields = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FlowField> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public FlowField get(int target) {
+        return get(new int[]{target});
+    }
+
+    /**
+     * Gets the field towards the nearest of the targets, building it if it is
+     * not cached for the board as it is now.
+     */
+    public FlowField get(int[] targets) {
+        if (targets.length == 0) {
+            throw new IllegalArgumentException("Need at least one target");
+        }
+        int[] sorted = targets.clone();
+        Arrays.sort(sorted);
+        Key key = new Key(sorted);
+
+        synchronized (this) {
+            FlowField cached = fields.get(key);
+            if (cached != null && cached.getBoardVersion() == board.getVersion()) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        FlowField field = new FlowField(board, sorted);
+        synchronized (this) {
+            fields.put(key, field);
+        }
+        return field;
+    }
+
+    public synchronized void clear() {
+        fields.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
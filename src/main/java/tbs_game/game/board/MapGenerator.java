@@ -0,0 +1,43 @@
+package tbs_game.game.board;
+
+/**
+ * One stage of painting a map. Stages are chained with {@link #then}, each
+ * reading what the ones before it left in the {@link MapLayers} and writing
+ * its own layer or the terrain. A stage must paint the same map from the
+ * same seed however many threads it uses.
+ */
+@FunctionalInterface
+public interface MapGenerator {
+
+    void generate(MapLayers map);
+
+    default void generate(byte[] terrain, int width, long seed) {
+        generate(new MapLayers(terrain, width, seed));
+    }
+
+    default MapGenerator then(MapGenerator next) {
+        return map -> {
+            generate(map);
+            next.generate(map);
+        };
+    }
+
+    /**
+     * Lakes scattered over plains, with clumps of forest and mountains. The
+     * boards' default.
+     */
+    static MapGenerator cellular() {
+        return map -> CellularGenerator.generate(map.getTerrain(), map.getWidth(), map.getSeed(), map.isParallel());
+    }
+
+    /**
+     * Continents and seas from a noise heightmap, with mountains on the high
+     * ground and forest where it is wettest.
+     */
+    static MapGenerator noise() {
+        return MapStages.elevation(24, 4)
+                .then(MapStages.moisture(12, 3))
+                .then(MapStages.classify(0.4, 0.06, 0.25))
+                .then(MapStages.cleanCoast());
+    }
+}
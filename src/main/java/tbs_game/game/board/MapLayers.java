@@ -0,0 +1,86 @@
+package tbs_game.game.board;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The grids a {@link MapGenerator} works on: the terrain ordinals it paints,
+ * and float layers one stage leaves for the next. Each layer is row-major in
+ * the board's offset order and created the first time a stage asks for it.
+ */
+public final class MapLayers {
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final boolean parallel;
+    private final byte[] terrain;
+
+    private float[] elevation;
+    private float[] moisture;
+
+    /**
+     * Layers over the given terrain, painted in parallel if it is large.
+     *
+     * @param terrain - Terrain ordinals, row-major, a whole number of rows
+     */
+    public MapLayers(byte[] terrain, int width, long seed) {
+        this(terrain, width, seed, terrain.length >= CellularGenerator.PARALLEL_MIN_TILES);
+    }
+
+    public MapLayers(byte[] terrain, int width, long seed, boolean parallel) {
+        if (width <= 0 || terrain.length % width != 0) {
+            throw new IllegalArgumentException("Terrain must hold whole rows of " + width + " tiles");
+        }
+        this.width = width;
+        this.height = terrain.length / width;
+        this.seed = seed;
+        this.parallel = parallel;
+        this.terrain = terrain;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public byte[] getTerrain() {
+        return terrain;
+    }
+
+    // Higher is further above sea level
+    public float[] getElevation() {
+        if (elevation == null) {
+            elevation = new float[terrain.length];
+        }
+        return elevation;
+    }
+
+    // Higher is wetter
+    public float[] getMoisture() {
+        if (moisture == null) {
+            moisture = new float[terrain.length];
+        }
+        return moisture;
+    }
+
+    /**
+     * Runs the given pass once per row, on several threads if the layers are
+     * painted in parallel. Rows must not write to each other.
+     */
+    public void forEachRow(IntConsumer paint) {
+        IntStream rows = IntStream.range(0, height);
+        (parallel ? rows.parallel() : rows).forEach(paint);
+    }
+}
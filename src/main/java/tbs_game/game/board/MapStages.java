@@ -0,0 +1,115 @@
+package tbs_game.game.board;
+
+/**
+ * The built in {@link MapGenerator} stages. Each pass is a loop over one row
+ * of primitive arrays, and rows are painted in parallel on large maps.
+ */
+public final class MapStages {
+
+    private static final byte PLAINS = (byte) Terrain.PLAINS.ordinal();
+    private static final byte FOREST = (byte) Terrain.FOREST.ordinal();
+    private static final byte MOUNTAIN = (byte) Terrain.MOUNTAIN.ordinal();
+    private static final byte WATER = (byte) Terrain.WATER.ordinal();
+
+    // Resolution of the thresholds classify picks
+    private static final int BINS = 4096;
+
+    // What coast cleanup turns a tile into, by its water neighbors * 4 + its own terrain
+    private static final byte[] COAST = new byte[7 * 4];
+
+    static {
+        for (int water = 0; water <= 6; water++) {
+            for (byte type = 0; type < 4; type++) {
+                COAST[water * 4 + type] = type == WATER
+                        ? (water <= 1 ? PLAINS : WATER)
+                        : (water >= 5 ? WATER : type);
+            }
+        }
+    }
+
+    private MapStages() {
+    }
+
+    /**
+     * Fills the elevation layer with noise.
+     *
+     * @param featureSize - Rough width in tiles of a continent or sea
+     * @param octaves - Layers of finer detail on top, each half the size
+     */
+    public static MapGenerator elevation(double featureSize, int octaves) {
+        return map -> ValueNoise.fill(map, map.getElevation(), 1, featureSize, octaves);
+    }
+
+    public static MapGenerator moisture(double featureSize, int octaves) {
+        return map -> ValueNoise.fill(map, map.getMoisture(), 2, featureSize, octaves);
+    }
+
+    /**
+     * Paints terrain from the elevation and moisture layers. The lowest
+     * waterShare of tiles become water and the highest mountainShare
+     * mountains. Of the rest, roughly the wettest forestShare become forest
+     * and the others plains.
+     */
+    public static MapGenerator classify(double waterShare, double mountainShare, double forestShare) {
+        if (waterShare < 0 || mountainShare < 0 || forestShare < 0 || forestShare > 1
+                || waterShare + mountainShare > 1) {
+            throw new IllegalArgumentException("Terrain shares must be between 0 and 1");
+        }
+        return map -> {
+            float[] elevation = map.getElevation();
+            float[] moisture = map.getMoisture();
+            float sea = quantile(elevation, waterShare);
+            float peak = mountainShare == 0 ? Float.POSITIVE_INFINITY : quantile(elevation, 1 - mountainShare);
+            float wet = forestShare == 0 ? Float.POSITIVE_INFINITY : quantile(moisture, 1 - forestShare);
+
+            byte[] terrain = map.getTerrain();
+            int width = map.getWidth();
+            map.forEachRow(row -> {
+                for (int i = row * width; i < (row + 1) * width; i++) {
+                    float e = elevation[i];
+                    terrain[i] = e < sea ? WATER : e >= peak ? MOUNTAIN : moisture[i] >= wet ? FOREST : PLAINS;
+                }
+            });
+        };
+    }
+
+    /**
+     * Dries out water with at most one water neighbor, and floods land with
+     * five or more, so coasts have no one tile inlets or spits.
+     */
+    public static MapGenerator cleanCoast() {
+        return map -> {
+            byte[] terrain = map.getTerrain();
+            PaddedGrid grid = new PaddedGrid(map.getWidth(), map.getHeight());
+            map.forEachRow(row -> grid.load(terrain, row));
+
+            byte[] src = grid.tiles;
+            map.forEachRow(row -> {
+                int start = grid.start(row);
+                int up = grid.up(row);
+                int down = grid.down(row);
+                int out = row * grid.width - start;
+                for (int i = start; i < start + grid.width; i++) {
+                    terrain[out + i] = COAST[PaddedGrid.count(src, i, up, down, WATER) * 4 + src[i]];
+                }
+            });
+        };
+    }
+
+    // The smallest value with at least share of the layer below it, to within a bin
+    private static float quantile(float[] layer, double share) {
+        int[] counts = new int[BINS];
+        for (float value : layer) {
+            counts[Math.min(BINS - 1, Math.max(0, (int) (value * BINS)))]++;
+        }
+        long target = (long) Math.ceil(share * layer.length);
+        long below = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            if (below >= target) {
+                return (float) bin / BINS;
+            }
+            below += counts[bin];
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,61 @@
+package tbs_game.game.board;
+
+import java.util.Arrays;
+
+/**
+ * A row-major grid of terrain ordinals with a row of {@link #NONE} above and
+ * below it, and a copy of the tile at each row's other end on either side of
+ * it. Every tile then has all six neighbors at fixed offsets, so a pass over
+ * a row needs no bounds checks or wrapping.
+ */
+final class PaddedGrid {
+
+    static final byte NONE = -1; // Off the top or bottom edge
+
+    final int width;
+    final int stride;
+    final byte[] tiles;
+
+    PaddedGrid(int width, int height) {
+        this.width = width;
+        this.stride = width + 2;
+        this.tiles = new byte[(height + 2) * stride];
+        Arrays.fill(tiles, 0, stride, NONE);
+        Arrays.fill(tiles, tiles.length - stride, tiles.length, NONE);
+    }
+
+    int start(int row) {
+        return (row + 1) * stride + 1;
+    }
+
+    // Copies the row's end tiles across the seam, once the row is written
+    void wrap(int row) {
+        int start = start(row);
+        tiles[start - 1] = tiles[start + width - 1];
+        tiles[start + width] = tiles[start];
+    }
+
+    void load(byte[] terrain, int row) {
+        System.arraycopy(terrain, row * width, tiles, start(row), width);
+        wrap(row);
+    }
+
+    void store(byte[] terrain, int row) {
+        System.arraycopy(tiles, start(row), terrain, row * width, width);
+    }
+
+    // Offset from a tile in the row to the left of the two tiles touching it in the row above. Odd rows sit half a tile right
+    int up(int row) {
+        return -stride - 1 + (row & 1);
+    }
+
+    int down(int row) {
+        return stride - 1 + (row & 1);
+    }
+
+    static int count(byte[] g, int i, int up, int down, byte type) {
+        return (g[i - 1] == type ? 1 : 0) + (g[i + 1] == type ? 1 : 0)
+                + (g[i + up] == type ? 1 : 0) + (g[i + up + 1] == type ? 1 : 0)
+                + (g[i + down] == type ? 1 : 0) + (g[i + down + 1] == type ? 1 : 0);
+    }
+}
@@ -0,0 +1,657 @@
+package tbs_game.game.board;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+import tbs_game.hexes.PackedHex;
+import tbs_game.utils.IntList;
+
+/**
+ * Hierarchical pathfinding (HPA*) over a board's terrain. The board is cut
+ * into square clusters of tiles. Every passable tile on the edge of a cluster
+ * is an entrance, and each cluster stores the cheapest cost between pairs of
+ * its entrances. Long searches run over the entrances only, then refine the
+ * result one cluster at a time. Since no edge tile is left out, paths cost
+ * exactly what a flat search finds.
+ *
+ * Clusters are built the first time a search needs them and dropped when the
+ * terrain inside them changes. The costs stored in clusters are over terrain
+ * alone. Tiles blocked by units can be passed to a search, which then keeps
+ * off them, at the price of sometimes finding a dearer path than the
+ * cheapest.
+ */
+public final class PathHierarchy {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    /**
+     * Returned when blocked tiles leave no way along the route over the
+     * clusters. A flat search may still find another way round.
+     */
+    public static final int BLOCKED = -2;
+
+    private static final int INF = Integer.MAX_VALUE / 4;
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Board board;
+    private final int width;
+    private final int height;
+    private final int size;
+    private final int clustersX;
+    private final int minStepCost;
+    private final int ringSize; // Buckets for local searches, enough for the largest step in estimated cost
+    private final int queueSize; // Same for the search over nodes, a power of two
+
+    // Every edge tile of a cluster is a node, numbered cluster * stride + its slot on the edge
+    private final int stride;
+    private final int[] nodeOf; // Node of each tile, or -1 inside a cluster
+    private final int[] nodeTiles;
+    private final int[] nodeHexes;
+
+    private final ConcurrentHashMap<Integer, Shape> shapes = new ConcurrentHashMap<>();
+
+    // Null until a search needs the cluster, and again once its terrain changes
+    private final Cluster[] clusters;
+
+    /**
+     * Layout shared by all clusters of the same size and place on the board.
+     * Tiles are numbered row-major inside the cluster.
+     */
+    private static final class Shape {
+
+        final int cols;
+        final int tiles;
+        final int[] neighbors; // Six per tile, -1 outside the cluster
+        final short[] slots; // Slot of each tile on the edge, or -1
+        final int[] edge; // Tile of each slot
+        final int[] qs; // Axial position of each tile, relative to the first
+        final int[] rs;
+
+        Shape(int cols, int tiles, int[] neighbors, short[] slots, int[] edge, int[] qs, int[] rs) {
+            this.cols = cols;
+            this.tiles = tiles;
+            this.neighbors = neighbors;
+            this.slots = slots;
+            this.edge = edge;
+            this.qs = qs;
+            this.rs = rs;
+        }
+
+        int distance(int a, int b) {
+            int dq = qs[a] - qs[b];
+            int dr = rs[a] - rs[b];
+            return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+        }
+    }
+
+    private static final class Cluster {
+
+        final int id;
+        final int origin; // Board index of the top left tile
+        final Shape shape;
+        final byte[] costs; // Move cost of each tile, 0 if impassable
+
+        // Edges of slot a are edgeStart[a] until edgeStart[a + 1]
+        final int[] edgeStart;
+        final short[] edgeTo;
+        final char[] edgeCost;
+
+        Cluster(int id, int origin, Shape shape, byte[] costs, int[] edgeStart, short[] edgeTo, char[] edgeCost) {
+            this.id = id;
+            this.origin = origin;
+            this.shape = shape;
+            this.costs = costs;
+            this.edgeStart = edgeStart;
+            this.edgeTo = edgeTo;
+            this.edgeCost = edgeCost;
+        }
+    }
+
+    PathHierarchy(Board board) {
+        this(board, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public PathHierarchy(Board board, int clusterSize) {
+        if (clusterSize < 2 || clusterSize > 128) {
+            throw new IllegalArgumentException("Cluster size must be between 2 and 128");
+        }
+        this.board = board;
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.size = clusterSize;
+        this.clustersX = (width + size - 1) / size;
+        this.clusters = new Cluster[clustersX * ((height + size - 1) / size)];
+
+        int min = INF;
+        int max = 1;
+        for (Terrain terrain : Terrain.values()) {
+            if (terrain.passable) {
+                min = Math.min(min, terrain.moveCost);
+                max = Math.max(max, terrain.moveCost);
+            }
+        }
+        this.minStepCost = min;
+        this.ringSize = max + min + 1;
+
+        // A step across a cluster costs at most a walk over all its tiles, and the estimate moves by no more
+        this.queueSize = Integer.highestOneBit(2 * max * size * size + 2 * max) * 2;
+
+        this.stride = 4 * size;
+        this.nodeOf = new int[board.getTileCount()];
+        this.nodeTiles = new int[clusters.length * stride];
+        this.nodeHexes = new int[clusters.length * stride];
+        Arrays.fill(nodeOf, NONE);
+        Arrays.fill(nodeTiles, NONE);
+        for (int id = 0; id < clusters.length; id++) {
+            Shape shape = shape(id);
+            for (int slot = 0; slot < shape.edge.length; slot++) {
+                int tile = tileOf(origin(id), shape, shape.edge[slot]);
+                int node = id * stride + slot;
+                nodeOf[tile] = node;
+                nodeTiles[node] = tile;
+                nodeHexes[node] = board.hexAt(tile);
+            }
+        }
+    }
+
+    public int getClusterSize() {
+        return size;
+    }
+
+    /**
+     * Drops the cluster holding the tile, so it is rebuilt on its next use.
+     */
+    void invalidate(int index) {
+        clusters[clusterOf(index)] = null;
+    }
+
+    void invalidateAll() {
+        Arrays.fill(clusters, null);
+    }
+
+    /**
+     * Finds the cheapest path between two tiles over terrain alone.
+     *
+     * @param out - Cleared, then filled with the tile indices of the path,
+     * including the start
+     * @return the movement cost of the path, or -1 if there is none
+     */
+    public int findPath(int startIndex, int endIndex, IntList out) {
+        return findPath(startIndex, endIndex, null, out);
+    }
+
+    /**
+     * Finds a path between two tiles that keeps off the blocked ones. The
+     * start and end clusters are searched around them exactly. Elsewhere the
+     * route is chosen over terrain alone and only its refinement steps round
+     * them, so the path can cost more than the cheapest one.
+     *
+     * @param blocked - Tiles the path may not enter, or null for none
+     * @param out - Cleared, then filled with the tile indices of the path,
+     * including the start
+     * @return the movement cost of the path, -1 if there is none, or
+     * {@link #BLOCKED}
+     */
+    public int findPath(int startIndex, int endIndex, IntPredicate blocked, IntList out) {
+        out.clear();
+        if (startIndex == endIndex) {
+            out.add(startIndex);
+            return 0;
+        }
+        if (!board.isPassable(endIndex)) {
+            return -1;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(nodeTiles.length, queueSize, size * size, stride, ringSize);
+        Cluster first = cluster(clusterOf(startIndex));
+        Cluster last = cluster(clusterOf(endIndex));
+        int endHex = board.hexAt(endIndex);
+        int[] localCost = scratch.localCost;
+
+        // Cost from each edge tile of the last cluster to the end, staying inside it
+        localSearch(last, localOf(last, endIndex), NONE, true, false, blocked, scratch);
+        int[] toEnd = scratch.toEnd;
+        for (int slot = 0; slot < last.shape.edge.length; slot++) {
+            toEnd[slot] = localCost[last.shape.edge[slot]];
+        }
+
+        int best = INF;
+        int bestNode = NONE; // Last node before the end, or NONE for a path inside one cluster
+
+        localSearch(first, localOf(first, startIndex), NONE, false, false, blocked, scratch);
+        if (first == last) {
+            best = localCost[localOf(first, endIndex)];
+        }
+        for (int slot = 0; slot < first.shape.edge.length; slot++) {
+            int g = localCost[first.shape.edge[slot]];
+            if (g < INF) {
+                relax(first.id * stride + slot, g, NONE, endHex, blocked, scratch);
+            }
+        }
+
+        int[] neighbors = board.getNeighborTable();
+        for (int f = scratch.lowest; scratch.queued > 0 && f < best; ) {
+            IntList bucket = scratch.queue[f & (scratch.queue.length - 1)];
+            if (bucket == null || bucket.isEmpty()) {
+                f++;
+                continue;
+            }
+            int node = bucket.removeLast(); // Latest first, which favors deeper nodes on ties
+            scratch.queued--;
+            if (scratch.isClosed(node)) {
+                continue; // Queued again later at a lower cost, and expanded then
+            }
+            scratch.close(node);
+            int g = scratch.cost(node);
+
+            int id = node / stride;
+            int slot = node - id * stride;
+            Cluster cluster = cluster(id);
+            if (cluster == last && toEnd[slot] < INF && g + toEnd[slot] < best) {
+                best = g + toEnd[slot];
+                bestNode = node;
+            }
+
+            // Across the cluster
+            int base = id * stride;
+            for (int e = cluster.edgeStart[slot]; e < cluster.edgeStart[slot + 1]; e++) {
+                relax(base + cluster.edgeTo[e], g + cluster.edgeCost[e], node, endHex, blocked, scratch);
+            }
+
+            // Into the next cluster
+            int tile = nodeTiles[node];
+            for (int i = tile * 6; i < tile * 6 + 6; i++) {
+                int neighbor = neighbors[i];
+                if (neighbor < 0 || !board.isPassable(neighbor)) {
+                    continue;
+                }
+                int next = nodeOf[neighbor];
+                if (next >= 0 && next / stride != id) { // Inside tiles have no node
+                    relax(next, g + board.cost(neighbor), node, endHex, blocked, scratch);
+                }
+            }
+        }
+
+        if (best == INF) {
+            return -1;
+        }
+        if (blocked == null) {
+            refine(startIndex, endIndex, bestNode, null, scratch, out);
+            return best;
+        }
+        if (!refine(startIndex, endIndex, bestNode, blocked, scratch, out)) {
+            out.clear();
+            return BLOCKED;
+        }
+
+        int cost = 0; // Detours can make it dearer than the route
+        for (int i = 1; i < out.size(); i++) {
+            cost += board.cost(out.get(i));
+        }
+        return cost;
+    }
+
+    private void relax(int node, int g, int parent, int endHex, IntPredicate blocked, Scratch scratch) {
+        if (g >= scratch.cost(node) || scratch.isClosed(node)) {
+            return;
+        }
+        if (blocked != null && blocked.test(nodeTiles[node])) {
+            return;
+        }
+        scratch.set(node, g, parent);
+        scratch.push(node, g + heuristic(node, endHex));
+    }
+
+    // Expands the nodes on the path into tiles, one cluster at a time. False if blocked tiles cut a cluster's stretch
+    private boolean refine(int startIndex, int endIndex, int lastNode, IntPredicate blocked, Scratch scratch,
+            IntList out) {
+        IntList tiles = scratch.tiles;
+        tiles.clear();
+        tiles.add(endIndex);
+        for (int node = lastNode; node != NONE; node = scratch.parent(node)) {
+            tiles.add(nodeTiles[node]);
+        }
+        tiles.add(startIndex);
+        tiles.reverse();
+
+        out.add(startIndex);
+        for (int i = 1; i < tiles.size(); i++) {
+            int from = tiles.get(i - 1);
+            int to = tiles.get(i);
+            if (from == to) {
+                continue; // Started or ended on an edge tile
+            }
+            int id = clusterOf(from);
+            if (clusterOf(to) != id) {
+                out.add(to); // Step between clusters
+                continue;
+            }
+
+            Cluster cluster = cluster(id);
+            int source = localOf(cluster, from);
+            int target = localOf(cluster, to);
+            localSearch(cluster, source, target, false, false, blocked, scratch);
+            if (scratch.localCost[target] == INF) {
+                return false;
+            }
+            int mark = out.size();
+            for (int local = target; local != source; local = scratch.localParent[local]) {
+                out.add(tileOf(cluster.origin, cluster.shape, local));
+            }
+            for (int a = mark, b = out.size() - 1; a < b; a++, b--) {
+                int swap = out.get(a);
+                out.set(a, out.get(b));
+                out.set(b, swap);
+            }
+        }
+        return true;
+    }
+
+    private Cluster cluster(int id) {
+        Cluster cluster = clusters[id];
+        if (cluster == null) {
+            cluster = buildCluster(id);
+            clusters[id] = cluster;
+        }
+        return cluster;
+    }
+
+    private Cluster buildCluster(int id) {
+        Shape shape = shape(id);
+        int origin = origin(id);
+        byte[] costs = new byte[shape.tiles];
+        for (int local = 0; local < shape.tiles; local++) {
+            int tile = tileOf(origin, shape, local);
+            costs[local] = board.isPassable(tile) ? (byte) board.cost(tile) : 0;
+        }
+
+        // An edge whose cheapest route can pass another edge tile is left out, the two shorter edges cover it
+        Cluster terrain = new Cluster(id, origin, shape, costs, null, null, null);
+        int slots = shape.edge.length;
+        int[] edgeStart = new int[slots + 1];
+        IntList edgeTo = new IntList();
+        IntList edgeCost = new IntList();
+        Scratch scratch = SCRATCH.get(); // Only the local arrays, a search may be under way
+        scratch.ensureLocalCapacity(size * size, stride, ringSize);
+        for (int a = 0; a < slots; a++) {
+            edgeStart[a] = edgeTo.size();
+            if (costs[shape.edge[a]] == 0) {
+                continue;
+            }
+            localSearch(terrain, shape.edge[a], NONE, false, true, null, scratch);
+            for (int b = 0; b < slots; b++) {
+                int local = shape.edge[b];
+                if (b != a && scratch.localCost[local] < INF && !scratch.localVia[local]) {
+                    edgeTo.add(b);
+                    edgeCost.add(scratch.localCost[local]);
+                }
+            }
+        }
+        edgeStart[slots] = edgeTo.size();
+
+        short[] to = new short[edgeTo.size()];
+        char[] edgeCosts = new char[edgeTo.size()];
+        for (int e = 0; e < to.length; e++) {
+            to[e] = (short) edgeTo.get(e);
+            edgeCosts[e] = (char) edgeCost.get(e);
+        }
+        return new Cluster(id, origin, shape, costs, edgeStart, to, edgeCosts);
+    }
+
+    /**
+     * Dial's algorithm from one tile without leaving its cluster, in the
+     * cluster's own numbering. Forward costs are to reach each tile from the
+     * source, reverse costs are to reach the source from each tile. Given a
+     * target, buckets are ordered by estimated total cost as in A*, and the
+     * search stops once the target is settled. Results are in the scratch's
+     * local arrays.
+     *
+     * @param via - Whether to mark in localVia each tile that a cheapest
+     * route reaches through some other edge tile
+     * @param blocked - Board tiles to keep off, or null
+     */
+    private void localSearch(Cluster cluster, int source, int target, boolean reverse, boolean via,
+            IntPredicate blocked, Scratch scratch) {
+        Shape shape = cluster.shape;
+        byte[] terrain = cluster.costs;
+        int[] costs = scratch.localCost;
+        int[] parents = scratch.localParent;
+        boolean[] passesEdge = scratch.localVia;
+        Arrays.fill(costs, 0, shape.tiles, INF);
+        if (reverse && terrain[source] == 0) {
+            return;
+        }
+
+        IntList[] ring = scratch.ring;
+        for (IntList bucket : ring) {
+            bucket.clear(); // An early stop can leave entries behind
+        }
+        // The distance estimate only holds if the cluster does not wrap onto itself
+        boolean estimate = target != NONE && clustersX > 1;
+        int start = estimate ? shape.distance(source, target) * minStepCost : 0;
+        costs[source] = 0;
+        parents[source] = NONE;
+        passesEdge[source] = false;
+        ring[start % ring.length].add(source);
+        int pending = 1;
+
+        int[] neighbors = shape.neighbors;
+        for (int f = start; pending > 0; f++) {
+            IntList bucket = ring[f % ring.length];
+
+            // With an estimate, a step can land in the bucket being scanned, which is then scanned too
+            for (int b = 0; b < bucket.size(); b++) {
+                int current = bucket.get(b);
+                pending--;
+                int cost = costs[current];
+                if (cost + (estimate ? shape.distance(current, target) * minStepCost : 0) != f) {
+                    continue; // Reached more cheaply after being queued here
+                }
+                if (current == target) {
+                    return;
+                }
+
+                boolean carry = via && (passesEdge[current] || (current != source && shape.slots[current] >= 0));
+                for (int i = current * 6; i < current * 6 + 6; i++) {
+                    int neighbor = neighbors[i];
+                    if (neighbor < 0 || terrain[neighbor] == 0) {
+                        continue;
+                    }
+                    if (blocked != null && blocked.test(tileOf(cluster.origin, shape, neighbor))) {
+                        continue;
+                    }
+                    int newCost = cost + terrain[reverse ? current : neighbor];
+                    if (newCost < costs[neighbor]) {
+                        costs[neighbor] = newCost;
+                        parents[neighbor] = current;
+                        passesEdge[neighbor] = carry;
+                        int estimateLeft = estimate ? shape.distance(neighbor, target) * minStepCost : 0;
+                        ring[(newCost + estimateLeft) % ring.length].add(neighbor);
+                        pending++;
+                    } else if (newCost == costs[neighbor]) {
+                        passesEdge[neighbor] |= carry;
+                    }
+                }
+            }
+            bucket.clear();
+        }
+    }
+
+    // ----- LAYOUT -----
+    private Shape shape(int id) {
+        int col0 = (id % clustersX) * size;
+        int row0 = (id / clustersX) * size;
+        int cols = Math.min(size, width - col0);
+        int rows = Math.min(size, height - row0);
+        boolean top = row0 == 0;
+        boolean bottom = row0 + rows == height;
+
+        // Clusters alike in these have the same layout
+        int key = cols | rows << 8 | (row0 & 1) << 16 | (top ? 1 << 17 : 0) | (bottom ? 1 << 18 : 0);
+        return shapes.computeIfAbsent(key, k -> buildShape(id, cols, rows));
+    }
+
+    private Shape buildShape(int id, int cols, int rows) {
+        int origin = origin(id);
+        int tiles = cols * rows;
+        int[] localNeighbors = new int[tiles * 6];
+        short[] slots = new short[tiles];
+        IntList edge = new IntList();
+        int[] qs = new int[tiles];
+        int[] rs = new int[tiles];
+        int[] neighbors = board.getNeighborTable();
+        int originHex = board.hexAt(origin);
+
+        for (int local = 0; local < tiles; local++) {
+            int tile = origin + (local / cols) * width + local % cols;
+            qs[local] = PackedHex.q(board.hexAt(tile)) - PackedHex.q(originHex);
+            rs[local] = PackedHex.r(board.hexAt(tile)) - PackedHex.r(originHex);
+            boolean onEdge = false;
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = neighbors[tile * 6 + dir];
+                int inside = NONE;
+                if (neighbor >= 0 && clusterOf(neighbor) == id) {
+                    inside = (neighbor / width - origin / width) * cols + neighbor % width - origin % width;
+                } else if (neighbor >= 0) {
+                    onEdge = true;
+                }
+                localNeighbors[local * 6 + dir] = inside;
+            }
+            slots[local] = onEdge ? (short) edge.size() : NONE;
+            if (onEdge) {
+                edge.add(local);
+            }
+        }
+        return new Shape(cols, tiles, localNeighbors, slots, edge.toArray(), qs, rs);
+    }
+
+    private int clusterOf(int index) {
+        return (index / width / size) * clustersX + (index % width) / size;
+    }
+
+    private int origin(int id) {
+        return (id / clustersX) * size * width + (id % clustersX) * size;
+    }
+
+    private int localOf(Cluster cluster, int index) {
+        int offset = index - cluster.origin;
+        int rows = offset / width;
+        return rows * cluster.shape.cols + offset - rows * width;
+    }
+
+    private int tileOf(int origin, Shape shape, int local) {
+        return origin + (local / shape.cols) * width + local % shape.cols;
+    }
+
+    private int heuristic(int node, int endHex) {
+        return PackedHex.wrappedDistance(nodeHexes[node], endHex, width) * minStepCost;
+    }
+
+    /**
+     * Per-thread search space, stamped with a generation like the planner's
+     * so a new search does not clear the node arrays.
+     */
+    private static final class Scratch {
+
+        // Stamp, cost, parent and closed stamp of each node, side by side
+        private int[] nodes = new int[0];
+        private int generation;
+
+        // Buckets of nodes by estimated total cost, kept in a ring
+        IntList[] queue = new IntList[0];
+        private final IntList used = new IntList(); // Buckets that may hold leftovers
+        int lowest;
+        int queued;
+
+        final IntList tiles = new IntList();
+
+        int[] localCost = new int[0];
+        int[] localParent = new int[0];
+        boolean[] localVia = new boolean[0];
+        int[] toEnd = new int[0];
+        IntList[] ring = new IntList[0];
+
+        void begin(int nodeCount, int queueSize, int clusterTiles, int slots, int ringSize) {
+            if (nodes.length < nodeCount * 4) {
+                nodes = new int[nodeCount * 4];
+                generation = 0;
+            }
+            ensureLocalCapacity(clusterTiles, slots, ringSize);
+
+            if (queue.length != queueSize) {
+                queue = new IntList[queueSize];
+            } else {
+                for (int i = 0; i < used.size(); i++) {
+                    queue[used.get(i)].clear();
+                }
+            }
+            used.clear();
+            lowest = Integer.MAX_VALUE;
+            queued = 0;
+
+            generation++;
+            if (generation == 0) { // Wrapped around, old stamps could collide
+                Arrays.fill(nodes, 0);
+                generation = 1;
+            }
+        }
+
+        void ensureLocalCapacity(int clusterTiles, int slots, int ringSize) {
+            if (localCost.length < clusterTiles) {
+                localCost = new int[clusterTiles];
+                localParent = new int[clusterTiles];
+                localVia = new boolean[clusterTiles];
+            }
+            if (toEnd.length < slots) {
+                toEnd = new int[slots];
+            }
+            if (ring.length != ringSize) {
+                ring = new IntList[ringSize];
+                for (int i = 0; i < ring.length; i++) {
+                    ring[i] = new IntList();
+                }
+            }
+        }
+
+        void push(int node, int f) {
+            int slot = f & (queue.length - 1);
+            IntList bucket = queue[slot];
+            if (bucket == null) {
+                bucket = new IntList();
+                queue[slot] = bucket;
+            }
+            if (bucket.isEmpty()) {
+                used.add(slot);
+            }
+            bucket.add(node);
+            lowest = Math.min(lowest, f);
+            queued++;
+        }
+
+        int cost(int node) {
+            return nodes[node * 4] == generation ? nodes[node * 4 + 1] : INF;
+        }
+
+        int parent(int node) {
+            return nodes[node * 4] == generation ? nodes[node * 4 + 2] : NONE;
+        }
+
+        void set(int node, int newCost, int newParent) {
+            nodes[node * 4] = generation;
+            nodes[node * 4 + 1] = newCost;
+            nodes[node * 4 + 2] = newParent;
+        }
+
+        boolean isClosed(int node) {
+            return nodes[node * 4 + 3] == generation;
+        }
+
+        void close(int node) {
+            nodes[node * 4 + 3] = generation;
+        }
+    }
+}
@@ -1,26 +1,60 @@
 package tbs_game.game.board;
 
+/**
+ * A single board tile. Tiles handed out by a {@link Board} are views over the
+ * board's terrain array, so changing their terrain writes straight through to
+ * the board. A tile created with the public constructor is detached until it
+ * is put on a board.
+ */
 public class Tile {
 
+    private Board board;
+    private int index;
     private Terrain terrain;
 
     public Tile(Terrain terrain) {
         this.terrain = terrain;
     }
 
+    Tile(Board board, int index) {
+        this.board = board;
+        this.index = index;
+    }
+
     public Terrain getTerrain() {
+        if (board != null) {
+            return board.getTerrain(index);
+        }
         return this.terrain;
     }
 
     public void setTerrain(Terrain t) {
+        if (board != null) {
+            board.setTerrain(index, t);
+            return;
+        }
         this.terrain = t;
     }
 
     public int cost() {
-        return this.terrain.moveCost;
+        return getTerrain().moveCost;
     }
 
     public boolean isPassable() {
-        return this.terrain.passable;
+        return getTerrain().passable;
+    }
+
+    // Binds this tile to a board slot. The tile's own terrain is written to the board.
+    void attach(Board board, int index) {
+        Terrain own = getTerrain();
+        this.board = board;
+        this.index = index;
+        board.setTerrain(index, own);
+    }
+
+    // Unbinds this tile from its board, keeping the terrain it currently shows.
+    void detach() {
+        this.terrain = getTerrain();
+        this.board = null;
     }
 }
@@ -0,0 +1,121 @@
+package tbs_game.game.board;
+
+import java.util.Arrays;
+
+/**
+ * Fractal value noise over the hex grid: random values on a square lattice,
+ * smoothly blended between, summed over octaves of halving feature size.
+ * Tiles are sampled at their true centers, odd rows half a tile right and
+ * rows sqrt(3)/2 apart, so features are round rather than stretched.
+ *
+ * Each octave's lattice repeats exactly once across the board's width, so the
+ * noise runs on across the seam where the board wraps.
+ */
+final class ValueNoise {
+
+    private static final double ROW_SPACING = Math.sqrt(3) / 2;
+
+    private ValueNoise() {
+    }
+
+    /**
+     * Fills the layer with noise in [0, 1).
+     *
+     * @param salt - Picks a different field from the same seed, so layers differ
+     * @param featureSize - Width in tiles of the largest features
+     */
+    static void fill(MapLayers map, float[] out, long salt, double featureSize, int octaves) {
+        if (!(featureSize > 0) || octaves < 1) {
+            throw new IllegalArgumentException("Noise needs a positive feature size and at least one octave");
+        }
+        int width = map.getWidth();
+        long seed = CellularGenerator.mix(map.getSeed() ^ CellularGenerator.mix(salt));
+
+        Octave[] levels = new Octave[octaves];
+        float amplitude = 1;
+        float total = 0;
+        for (int o = 0; o < octaves; o++) {
+            levels[o] = new Octave(width, featureSize / (1 << o), amplitude, seed + o);
+            total += amplitude;
+            amplitude /= 2;
+        }
+        float scale = 1 / total;
+
+        map.forEachRow(row -> {
+            int start = row * width;
+            Arrays.fill(out, start, start + width, 0);
+            for (Octave octave : levels) {
+                octave.add(out, start, row);
+            }
+            for (int i = start; i < start + width; i++) {
+                out[i] *= scale;
+            }
+        });
+    }
+
+    private static final class Octave {
+
+        final int width;
+        final int cells; // Lattice columns across the board
+        final double cellSize;
+        final float amplitude;
+        final long seed;
+
+        // Lattice columns either side of each tile and the weight of the right one, for even and odd rows
+        final int[][] left = new int[2][];
+        final int[][] right = new int[2][];
+        final float[][] weight = new float[2][];
+
+        Octave(int width, double featureSize, float amplitude, long seed) {
+            this.width = width;
+            this.cells = Math.max(1, (int) Math.round(width / featureSize));
+            this.cellSize = (double) width / cells;
+            this.amplitude = amplitude;
+            this.seed = seed;
+
+            for (int parity = 0; parity < 2; parity++) {
+                left[parity] = new int[width];
+                right[parity] = new int[width];
+                weight[parity] = new float[width];
+                for (int col = 0; col < width; col++) {
+                    double x = (col + 0.5 * parity) / cellSize;
+                    int cell = (int) x;
+                    left[parity][col] = cell % cells;
+                    right[parity][col] = (cell + 1) % cells;
+                    weight[parity][col] = fade((float) (x - cell));
+                }
+            }
+        }
+
+        void add(float[] out, int start, int row) {
+            double y = row * ROW_SPACING / cellSize;
+            int cell = (int) y;
+            float down = fade((float) (y - cell));
+
+            // Blend the lattice rows above and below first, leaving one blend per tile
+            float[] blended = new float[cells];
+            for (int c = 0; c < cells; c++) {
+                float top = lattice(c, cell);
+                blended[c] = (top + (lattice(c, cell + 1) - top) * down) * amplitude;
+            }
+
+            int[] l = left[row & 1];
+            int[] r = right[row & 1];
+            float[] w = weight[row & 1];
+            for (int col = 0; col < width; col++) {
+                float a = blended[l[col]];
+                out[start + col] += a + (blended[r[col]] - a) * w[col];
+            }
+        }
+
+        private float lattice(int x, int y) {
+            long h = CellularGenerator.mix(seed + x * 0x9e3779b97f4a7c15L + y * 0xc2b2ae3d27d4eb4fL);
+            return (h >>> 40) * 0x1.0p-24f;
+        }
+    }
+
+    // Smoothstep, so the noise has no creases along lattice lines
+    private static float fade(float t) {
+        return t * t * (3 - 2 * t);
+    }
+}
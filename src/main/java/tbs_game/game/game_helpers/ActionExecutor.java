@@ -3,22 +3,120 @@ package tbs_game.game.game_helpers;
 import java.util.ArrayList;
 
 import tbs_game.game.ActionPath;
+import tbs_game.game.Rules;
+import tbs_game.game.board.Board;
 import tbs_game.hexes.AxialPos;
 import tbs_game.units.Unit;
 
 public class ActionExecutor {
 
     private final GameState state;
+    private final MovementPlanner planner;
     private ActionPath lastExecuted;
 
     public ActionExecutor(GameState state) {
+        this(state, new MovementPlanner(state));
+    }
+
+    // Plans with the given planner, so its cache is shared
+    public ActionExecutor(GameState state, MovementPlanner planner) {
         this.state = state;
+        this.planner = planner;
     }
 
     public ActionPath getLastExecuted() {
         return this.lastExecuted;
     }
 
+    /**
+     * Plans a path from one pos to another and resolves it, if the unit there
+     * belongs to the current player and can afford the path.
+     *
+     * @return false if the action could not be made
+     */
+    public boolean resolveMove(AxialPos from, AxialPos to) {
+        Unit unit = state.getUnitAt(from);
+        if (unit == null || !unit.getOwner().equals(state.getCurrentPlayer())) {
+            return false;
+        }
+
+        ActionPath planned = planner.planAction(from, to);
+        if (planned == null || planned.cost > unit.getMovementPoints()) {
+            return false;
+        }
+        return resolve(planned);
+    }
+
+    /**
+     * Resolves an action along the path it was planned with, rather than a
+     * new one, if the unit there belongs to the current player and can
+     * afford the path. The path must run tile by tile over free passable
+     * tiles, except for the last, which may hold the unit attacked.
+     *
+     * @return false if the action could not be made
+     */
+    public boolean resolvePath(ActionPath planned) {
+        Unit unit = state.getUnitAt(planned.from);
+        if (unit == null || !unit.getOwner().equals(state.getCurrentPlayer()) || !isUnbroken(planned)) {
+            return false;
+        }
+        if (planner.countMovementCost(planned.path) > unit.getMovementPoints()) {
+            return false;
+        }
+        return resolve(planned);
+    }
+
+    private boolean isUnbroken(ActionPath planned) {
+        Board board = state.getBoard();
+        ArrayList<AxialPos> path = planned.path;
+        if (path == null || path.size() < 2 || !path.get(0).equals(planned.from)
+                || !path.get(path.size() - 1).equals(planned.to)) {
+            return false;
+        }
+
+        for (int i = 1; i < path.size(); i++) {
+            int tile = board.indexOf(path.get(i));
+            if (tile < 0 || !board.isPassable(tile) || state.distanceBetween(path.get(i - 1), path.get(i)) != 1) {
+                return false;
+            }
+            if (i < path.size() - 1 && state.hasUnitAt(tile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves, attacks, or moves then attacks along a planned path, whichever
+     * the rules allow. Does not check the path's cost.
+     *
+     * @return false if the rules allow none of them
+     */
+    public boolean resolve(ActionPath planned) {
+        AxialPos from = planned.from;
+        AxialPos to = planned.to;
+
+        if (Rules.isValidMove(state, from, to)) {
+            move(planned);
+            return true;
+        }
+        if (Rules.isValidAttack(state, from, to)) {
+            attack(from, to);
+            return true;
+        }
+
+        // Check if unit can move to the penultimate tile then attack
+        AxialPos penultimate = planned.path.get(planned.path.size() - 2);
+        boolean canAttack = Rules.isValidAttack(state, penultimate, to);
+        boolean canMove = Rules.isValidMove(state, from, penultimate);
+        if (!canMove && !canAttack) {
+            return false;
+        }
+
+        moveThenAttack(planned);
+        return true;
+    }
+
     public void moveThenAttack(ActionPath path) {
         Unit mover = state.getUnitAt(path.from);
 
@@ -26,7 +124,7 @@ public class ActionExecutor {
         AxialPos prev = totalPath.get(0);
         for (int i = 1; i < totalPath.size() - 1; i++) {
             AxialPos step = totalPath.get(i);
-            int cost = state.getBoard().getTile(step).cost();
+            int cost = state.getBoard().cost(state.getBoard().indexOf(step));
 
             if (mover.getMovementPoints() < cost) {
                 return;
@@ -48,7 +146,7 @@ public class ActionExecutor {
         AxialPos prev = totalPath.get(0);
         for (int i = 1; i < totalPath.size(); i++) {
             AxialPos step = totalPath.get(i);
-            int cost = state.getBoard().getTile(step).cost();
+            int cost = state.getBoard().cost(state.getBoard().indexOf(step));
 
             if (mover.getMovementPoints() < cost) {
                 break;
@@ -62,20 +160,30 @@ public class ActionExecutor {
     }
 
     public void attack(AxialPos from, AxialPos to) {
-        Unit attacker = state.getUnitAt(from);
-        Unit defender = state.getUnitAt(to);
+        Board board = state.getBoard();
+        attack(board.indexOf(from), board.indexOf(to));
+
+        ArrayList<AxialPos> path = new ArrayList<>();
+        path.add(from);
+        path.add(to);
+        this.lastExecuted = new ActionPath(from, to, path, -1);
+    }
+
+    /**
+     * Index based version of {@link #attack(AxialPos, AxialPos)} that does
+     * not record the action.
+     */
+    public void attack(int fromIndex, int toIndex) {
+        Unit attacker = state.getUnitAt(fromIndex);
+        Unit defender = state.getUnitAt(toIndex);
 
         int attackDamage = attacker.getType().attackDamage;
         defender.dealDamage(attackDamage);
         attacker.markAttacked();
 
         if (defender.isDead()) {
-            state.captureUnit(from, to);
+            state.removeUnitAt(toIndex);
+            state.moveUnitInternal(fromIndex, toIndex);
         }
-
-        ArrayList<AxialPos> path = new ArrayList<>();
-        path.add(from);
-        path.add(to);
-        this.lastExecuted = new ActionPath(from, to, path, -1);
     }
 }
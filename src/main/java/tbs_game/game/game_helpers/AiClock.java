@@ -0,0 +1,121 @@
+package tbs_game.game.game_helpers;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import tbs_game.game.ActionPath;
+import tbs_game.player.Player;
+import tbs_game.player.TurnBudget;
+
+/**
+ * Shares a fixed time budget per round between the AI players, so a round of
+ * AI turns takes about the same time however many players and units there
+ * are. Each AI turn gets an equal share of the round, and turns that run
+ * past their share by more than a grace period are recorded as overruns.
+ */
+public class AiClock {
+
+    public static final long DEFAULT_GRACE_MILLIS = 50;
+
+    /**
+     * A turn that took longer than its budget allowed.
+     *
+     * @param forfeited - Whether the turn was skipped for not being planned
+     * in time
+     */
+    public record Overrun(Player player, long elapsedNanos, long budgetNanos, boolean forfeited) {
+    }
+
+    private final long roundNanos;
+    private final long graceNanos;
+    private volatile long turnNanos;
+
+    private final Queue<Overrun> overruns = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A clock that puts no limit on AI turns.
+     */
+    public AiClock() {
+        this(0, 0);
+    }
+
+    /**
+     * @param roundMillis - Time all AI turns in one round may take together,
+     * or 0 for no limit
+     * @param graceMillis - How far past its budget a turn may run before it
+     * counts as an overrun
+     */
+    public AiClock(long roundMillis, long graceMillis) {
+        if (roundMillis < 0 || graceMillis < 0) {
+            throw new IllegalArgumentException("Times must not be negative");
+        }
+        this.roundNanos = roundMillis * 1_000_000;
+        this.graceNanos = graceMillis * 1_000_000;
+        this.turnNanos = roundNanos;
+    }
+
+    public boolean isLimited() {
+        return roundNanos > 0;
+    }
+
+    /**
+     * Splits the round between this many AI players from now on.
+     */
+    public void setAiPlayers(int count) {
+        turnNanos = roundNanos / Math.max(1, count);
+    }
+
+    public long getTurnNanos() {
+        return turnNanos;
+    }
+
+    public TurnBudget newTurnBudget() {
+        return isLimited() ? TurnBudget.ofNanos(turnNanos) : TurnBudget.unlimited();
+    }
+
+    /**
+     * Plans the player's turn within a new budget, and records an overrun if
+     * the AI takes too long.
+     */
+    public List<ActionPath> plan(GameState state, Player player) {
+        return plan(state, player, newTurnBudget());
+    }
+
+    public List<ActionPath> plan(GameState state, Player player, TurnBudget budget) {
+        List<ActionPath> moves = player.getAI().planTurn(state, player, budget);
+        finish(player, budget);
+        return moves;
+    }
+
+    /**
+     * Records an overrun if the turn the budget was for ran too long. Turns
+     * that were cancelled were already dealt with by whoever cancelled them.
+     */
+    public void finish(Player player, TurnBudget budget) {
+        long elapsed = budget.elapsedNanos();
+        if (!budget.isCancelled() && isOverdue(budget.getBudgetNanos(), elapsed)) {
+            overruns.add(new Overrun(player, elapsed, budget.getBudgetNanos(), false));
+        }
+    }
+
+    /**
+     * Whether a turn that started at the given time is out of time, grace
+     * period included.
+     */
+    public boolean isOverdue(long startNanos) {
+        return isOverdue(turnNanos, System.nanoTime() - startNanos);
+    }
+
+    public void recordForfeit(Player player, long startNanos) {
+        overruns.add(new Overrun(player, System.nanoTime() - startNanos, turnNanos, true));
+    }
+
+    private boolean isOverdue(long budgetNanos, long elapsedNanos) {
+        return isLimited() && elapsedNanos > budgetNanos + graceNanos;
+    }
+
+    public List<Overrun> getOverruns() {
+        return List.copyOf(overruns);
+    }
+}
@@ -0,0 +1,201 @@
+package tbs_game.game.game_helpers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import tbs_game.game.ActionPath;
+import tbs_game.player.AI;
+import tbs_game.player.Player;
+import tbs_game.player.TurnBudget;
+
+/**
+ * Plans AI turns on background threads, so the game thread never waits for an
+ * AI to think. Each plan is keyed by the {@link GameState#hash} of the state its
+ * turn starts from and is only handed out for a state with the same hash, so
+ * a plan made from a state that has since changed is never used.
+ *
+ * Besides the turn that is due, it can speculatively plan the turns of the
+ * AI players that come next, by playing each planned turn forward on a copy
+ * of the state.
+ *
+ * Planning runs on a few long lived platform threads rather than virtual
+ * threads, so the search scratch each thread keeps is reused from turn to
+ * turn. Speculation has a thread of its own, as it waits on requested plans.
+ *
+ * Every plan gets a budget from the game's {@link AiClock} when it starts.
+ * A turn that is still being planned when its time is up can be forfeited,
+ * which cancels its budget.
+ */
+public class AiTurnPlanner implements AutoCloseable {
+
+    private record Plan(Player player, TurnBudget budget, CompletableFuture<List<ActionPath>> moves) {
+    }
+
+    // Few turns are requested at once, and MctsAI searches on a pool of its own
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            Thread.ofPlatform().name("ai-planner-", 0).daemon().factory());
+    private final ExecutorService speculator = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ai-speculator").daemon().factory());
+    private final Map<Long, Plan> plans = new ConcurrentHashMap<>();
+
+    // AIs are not thread safe, so each plans one turn at a time
+    private final Map<AI, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    // Bumped whenever speculation restarts or a turn is taken, so older runs stop
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Starts planning the turn of the state's current player, unless a plan
+     * for that exact state is already done or underway.
+     *
+     * @param snapshot - A copy of the state at the start of the turn, which
+     * nothing else may change
+     */
+    public void request(GameState snapshot, AiClock clock) {
+        Player player = snapshot.getCurrentPlayer();
+        plans.computeIfAbsent(snapshot.hash(), hash -> {
+            TurnBudget budget = clock.newTurnBudget();
+            return new Plan(player, budget,
+                    CompletableFuture.supplyAsync(() -> plan(snapshot, player, budget, clock), executor));
+        });
+    }
+
+    /**
+     * Takes the plan for the turn starting from the state with the given
+     * hash. Drops the player's other plans, which started from states that
+     * did not happen, and stops speculation until it is started again.
+     *
+     * @return the moves, or null if they are not planned yet
+     * @throws java.util.concurrent.CompletionException if planning failed
+     */
+    public List<ActionPath> take(long hash) {
+        Plan plan = plans.get(hash);
+        if (plan == null || !plan.moves().isDone()) {
+            return null;
+        }
+
+        generation.incrementAndGet(); // Before the drop, so speculation cannot plan the turn again
+        plans.values().removeIf(other -> other.player() == plan.player());
+        return plan.moves().join();
+    }
+
+    /**
+     * Gives up on the turn starting from the state with the given hash.
+     * Cancels its budget, so the AI stops planning soon, and drops the
+     * player's plans.
+     */
+    public void forfeit(long hash) {
+        Plan plan = plans.get(hash);
+        if (plan == null) {
+            return;
+        }
+
+        plan.budget().cancel();
+        generation.incrementAndGet();
+        plans.values().removeIf(other -> other.player() == plan.player());
+    }
+
+    /**
+     * Plans the upcoming players' turns one after another in the background,
+     * each from the state the turns before it leave. Stops early once
+     * speculation is started again.
+     *
+     * @param snapshot - A copy of the current state, which nothing else may
+     * change
+     * @param currentMoves - Moves the current player will still make before
+     * ending their turn
+     * @param upcoming - Players whose turns come next, in order
+     */
+    public void speculate(GameState snapshot, List<ActionPath> currentMoves, List<Player> upcoming, AiClock clock) {
+        long run = generation.incrementAndGet();
+        speculator.execute(() -> {
+            ActionExecutor sim = new ActionExecutor(snapshot);
+            play(sim, currentMoves);
+
+            for (Player player : upcoming) {
+                if (generation.get() != run || playersLeft(snapshot) <= 1) {
+                    return;
+                }
+                if (snapshot.getUnitCount(player) == 0) {
+                    continue; // Out of the game by then
+                }
+
+                snapshot.setCurrentPlayer(player);
+                snapshot.startTurn(player);
+                List<ActionPath> moves = planOrJoin(snapshot.createSimluationCopy(), player, clock, run);
+                if (moves == null) {
+                    return;
+                }
+                play(sim, moves);
+            }
+        });
+    }
+
+    // Plans the turn unless it is already planned or underway, in which case waits for it. Null once the run is stale
+    private List<ActionPath> planOrJoin(GameState start, Player player, AiClock clock, long run) {
+        TurnBudget budget = clock.newTurnBudget();
+        CompletableFuture<List<ActionPath>> mine = new CompletableFuture<>();
+        Plan plan = new Plan(player, budget, mine);
+        Plan existing = plans.compute(start.hash(), (hash, old) -> old != null || generation.get() != run ? old : plan);
+        if (existing == null) {
+            return null;
+        }
+        if (existing != plan) {
+            return existing.moves().exceptionally(e -> null).join();
+        }
+
+        try {
+            List<ActionPath> moves = plan(start, player, budget, clock);
+            mine.complete(moves);
+            return moves;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            return null;
+        }
+    }
+
+    private List<ActionPath> plan(GameState state, Player player, TurnBudget budget, AiClock clock) {
+        ReentrantLock lock = locks.computeIfAbsent(player.getAI(), ai -> new ReentrantLock());
+        lock.lock();
+        try {
+            return List.copyOf(clock.plan(state, player, budget));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies moves the way the game applies queued move actions
+    private static void play(ActionExecutor sim, List<ActionPath> moves) {
+        for (ActionPath move : moves) {
+            sim.resolvePath(move);
+        }
+    }
+
+    private static int playersLeft(GameState state) {
+        int left = 0;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (state.getUnitCount(state.getPlayer(seat)) > 0) {
+                left++;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Stops speculating and planning. Turns not yet taken are dropped.
+     */
+    @Override
+    public void close() {
+        generation.incrementAndGet();
+        executor.shutdownNow();
+        speculator.shutdownNow();
+        plans.clear();
+    }
+}
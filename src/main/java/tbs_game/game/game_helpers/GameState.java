@@ -2,68 +2,90 @@ package tbs_game.game.game_helpers;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import tbs_game.game.board.Board;
 import tbs_game.hexes.AxialPos;
-import tbs_game.hexes.OffsetPos;
+import tbs_game.hexes.PackedHex;
 import tbs_game.player.Player;
 import tbs_game.units.Unit;
+import tbs_game.units.UnitStore;
+import tbs_game.units.UnitType;
+import tbs_game.utils.CowIntArray;
+import tbs_game.utils.IntList;
+import tbs_game.utils.UndoLog;
+import tbs_game.utils.Zobrist;
 
 public class GameState {
 
+    // Journal op codes. UnitStore uses the low numbers
+    private static final int OP_PLACE = 10;
+    private static final int OP_REMOVE = 11;
+    private static final int OP_MOVE = 12;
+    private static final int OP_PLAYER = 13;
+    private static final int OP_GAME_OVER = 14;
+
     private final Board board;
     private final int width;
 
-    private final Map<AxialPos, Unit> units;
-    private final Map<Player, Set<Unit>> unitsByPlayer;
-    private final Map<Player, Set<AxialPos>> positionsByPlayer;
+    private final UnitStore units;
+    // Unit slot on each board tile index, or -1 if the tile is empty
+    private final CowIntArray unitSlots;
 
     private Player currentPlayer;
+    private int currentSeat = -1;
     private boolean isGameOver = false;
 
+    // Null unless journaling is on
+    private UndoLog journal;
+
+    // Null unless influence tracking is on
+    private InfluenceMap influence;
+
     public GameState(Board board) {
         this.board = board;
         this.width = board.getWidth();
 
-        this.units = new HashMap<>();
-        this.unitsByPlayer = new HashMap<>();
-        this.positionsByPlayer = new HashMap<>();
+        this.units = new UnitStore();
+        this.unitSlots = new CowIntArray(board.getTileCount(), -1);
     }
 
     public AxialPos wrap(AxialPos pos) {
-        // Convert to offset for ease of calculation
-        OffsetPos offset = pos.toOffset();
+        int hex = pos.pack();
+        int wrapped = wrap(hex);
+        return wrapped == hex ? pos : PackedHex.toAxial(wrapped);
+    }
 
-        int newCol = ((offset.col % width) + width) % width;
+    /**
+     * Wraps a packed hex horizontally. See {@link PackedHex}.
+     */
+    public int wrap(int hex) {
+        return PackedHex.wrap(hex, width);
+    }
 
-        // Back to axial
-        return new OffsetPos(newCol, pos.r()).toAxial();
+    /**
+     * Wraps a packed hex and gets its board tile index.
+     *
+     * @return the tile index, or -1 if the hex is off the top or bottom edge
+     */
+    public int wrapToIndex(int hex) {
+        return board.indexOfHex(wrap(hex));
     }
 
     public int distanceBetween(AxialPos a, AxialPos b) {
-        int min = Integer.MAX_VALUE;
-
         // On a horizontally wrapped board, a pos of q equals a pos of q + width.
-        // 3 board images gives 3 images of the same tile, being: q - width, q, and q + width
-        for (int k = -1; k <= 1; k++) {
-            AxialPos image = new AxialPos(
-                    b.q + k * width,
-                    b.r
-            );
-
-            int d = a.distanceTo(image);
-            min = Math.min(min, d);
-        }
+        return PackedHex.wrappedDistance(a.pack(), b.pack(), width);
+    }
 
-        return min;
+    public int distanceBetween(int hexA, int hexB) {
+        return PackedHex.wrappedDistance(hexA, hexB, width);
     }
 
     public void endGame() {
+        if (journal != null) {
+            journal.pushInt(isGameOver ? 1 : 0);
+            journal.pushInt(OP_GAME_OVER);
+        }
         this.isGameOver = true;
     }
 
@@ -76,6 +98,11 @@ public class GameState {
         return unit != null && unit.getOwner().equals(player);
     }
 
+    public boolean isFriendly(int index, Player player) {
+        int slot = unitSlots.get(index);
+        return slot >= 0 && units.ownerOf(slot).equals(player);
+    }
+
     public void captureUnit(AxialPos attackerPos, AxialPos defenderPos) {
         removeUnitAt(defenderPos);
         moveUnitInternal(attackerPos, defenderPos);
@@ -90,113 +117,397 @@ public class GameState {
     }
 
     public void setCurrentPlayer(Player player) {
+        if (journal != null) {
+            journal.pushRef(currentPlayer);
+            journal.pushInt(OP_PLAYER);
+        }
         this.currentPlayer = player;
+        this.currentSeat = units.seatOf(player);
+    }
+
+    /**
+     * Zobrist hash of the position: every unit's type, owner, health,
+     * movement, attacked flag and tile, plus whose turn it is. Kept up to date
+     * on every change, so this is O(1).
+     */
+    public long hash() {
+        return units.hash() ^ playerKey(currentSeat);
+    }
+
+    /**
+     * Counts changes to the units, rollbacks included, so unlike the hash it
+     * never repeats. Terrain has its own version on the board.
+     */
+    public long getVersion() {
+        return units.version();
+    }
+
+    /**
+     * Recomputes {@link #hash} from scratch, e.g. to check a replay.
+     */
+    public long computeHash() {
+        long hash = playerKey(currentSeat);
+        for (int slot = 0; slot < units.slotCount(); slot++) {
+            if (units.isLive(slot)) {
+                hash ^= Zobrist.unitKey(units.tileOf(slot), units.typeOf(slot).ordinal(), units.seatOfUnit(slot),
+                        units.hpOf(slot), units.movementOf(slot), units.hasAttacked(slot));
+            }
+        }
+        return hash;
+    }
+
+    private static long playerKey(int seat) {
+        return seat < 0 ? 0 : Zobrist.playerKey(seat);
     }
 
     public void addNewPlayer(Player player) {
-        unitsByPlayer.put(player, new HashSet<>());
-        positionsByPlayer.put(player, new HashSet<>());
+        units.addPlayer(player);
     }
 
     public List<AxialPos> getUnitPositionsForPlayer(Player p) {
-        return new ArrayList<>(positionsByPlayer.get(p));
+        int seat = seatOf(p);
+        List<AxialPos> positions = new ArrayList<>(units.count(seat));
+        for (int slot = units.first(seat); slot != UnitStore.NONE; slot = units.next(slot)) {
+            positions.add(board.getPos(units.tileOf(slot)));
+        }
+        return positions;
+    }
+
+    /**
+     * Writes the tile index of each of the player's units into out, oldest unit
+     * first. Does not allocate once out is large enough.
+     */
+    public void getUnitTilesForPlayer(Player p, IntList out) {
+        out.clear();
+        int seat = seatOf(p);
+        for (int slot = units.first(seat); slot != UnitStore.NONE; slot = units.next(slot)) {
+            out.add(units.tileOf(slot));
+        }
+    }
+
+    public int getUnitCount(Player p) {
+        return units.count(seatOf(p));
+    }
+
+    // Sum of the health of all the player's units
+    public int getTotalHealth(Player p) {
+        int total = 0;
+        for (int slot = units.first(seatOf(p)); slot != UnitStore.NONE; slot = units.next(slot)) {
+            total += units.hpOf(slot);
+        }
+        return total;
+    }
+
+    // Players in the order they were added, including ones with no units left
+    public int getPlayerCount() {
+        return units.playerCount();
+    }
+
+    public Player getPlayer(int seat) {
+        return units.playerAt(seat);
     }
 
     public Collection<AxialPos> getAllUnitPositions() {
-        return List.copyOf(units.keySet());
+        List<AxialPos> positions = new ArrayList<>();
+        for (int slot = 0; slot < units.slotCount(); slot++) {
+            if (units.isLive(slot)) {
+                positions.add(board.getPos(units.tileOf(slot)));
+            }
+        }
+        return positions;
     }
 
     public Unit getUnitAt(AxialPos pos) {
-        return units.get(pos);
+        int index = board.indexOf(pos);
+        return index < 0 ? null : getUnitAt(index);
+    }
+
+    public Unit getUnitAt(int index) {
+        int slot = unitSlots.get(index);
+        return slot < 0 ? null : units.get(slot);
+    }
+
+    // The lookups below only read, unlike getUnitAt, which may create a unit handle
+    public boolean hasUnitAt(int index) {
+        return unitSlots.get(index) >= 0;
+    }
+
+    // Movement points of the unit on the tile, or -1 if there is none
+    public int getMovementPointsAt(int index) {
+        int slot = unitSlots.get(index);
+        return slot < 0 ? -1 : units.movementOf(slot);
+    }
+
+    // Type of the unit on the tile, or null if there is none
+    public UnitType getUnitTypeAt(int index) {
+        int slot = unitSlots.get(index);
+        return slot < 0 ? null : units.typeOf(slot);
+    }
+
+    public Player getOwnerAt(int index) {
+        int slot = unitSlots.get(index);
+        return slot < 0 ? null : units.ownerOf(slot);
     }
 
+    /**
+     * Places a unit that is not in any game state. The unit then reads and
+     * writes its values through this state.
+     */
     public void placeUnitAt(AxialPos pos, Unit unit) {
-        if (getUnitAt(pos) != null) {
+        int index = indexOnBoard(pos);
+        if (unitSlots.get(index) >= 0) {
             throw new IllegalArgumentException("Cannot place unit on an already occupied tile");
         }
 
-        units.put(pos, unit);
-        unitsByPlayer.get(unit.getOwner()).add(unit);
-        positionsByPlayer.get(unit.getOwner()).add(pos);
+        int seat = seatOf(unit.getOwner());
+        unitSlots.set(index, units.add(unit, index, seat));
+        if (journal != null) {
+            journal.pushInt(index);
+            journal.pushInt(OP_PLACE);
+        }
+        if (influence != null) {
+            influence.unitPlaced(seat, unit.getType(), index);
+        }
     }
 
     public void removeUnitAt(AxialPos pos) {
-        Unit unit = units.remove(pos);
-        if (unit != null) {
-            unitsByPlayer.get(unit.getOwner()).remove(unit);
-            positionsByPlayer.get(unit.getOwner()).remove(pos);
+        int index = board.indexOf(pos);
+        if (index >= 0) {
+            removeUnitAt(index);
+        }
+    }
+
+    public void removeUnitAt(int index) {
+        int slot = unitSlots.get(index);
+        if (slot >= 0) {
+            // Journaled before the store's own entry, so rollback restores the unit first
+            if (journal != null) {
+                journal.pushInt(slot);
+                journal.pushInt(index);
+                journal.pushInt(OP_REMOVE);
+            }
+            if (influence != null) {
+                influence.unitRemoved(units.seatOfUnit(slot), units.typeOf(slot), index);
+            }
+            units.remove(slot);
+            unitSlots.set(index, -1);
         }
     }
 
     public void moveUnitInternal(AxialPos from, AxialPos to) {
-        Unit unit = units.remove(from);
-        if (unit == null) {
+        int fromIndex = board.indexOf(from);
+        if (fromIndex < 0 || unitSlots.get(fromIndex) < 0) {
             throw new IllegalArgumentException("No unit exists at pos " + from.toString());
         }
+        moveUnitInternal(fromIndex, indexOnBoard(to));
+    }
+
+    public void moveUnitInternal(int fromIndex, int toIndex) {
+        int slot = unitSlots.get(fromIndex);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No unit exists at tile " + fromIndex);
+        }
 
-        units.put(to, unit);
-        positionsByPlayer.get(unit.getOwner()).remove(from);
-        positionsByPlayer.get(unit.getOwner()).add(to);
+        unitSlots.set(fromIndex, -1);
+        unitSlots.set(toIndex, slot);
+        units.setTile(slot, toIndex);
+        if (journal != null) {
+            journal.pushInt(fromIndex);
+            journal.pushInt(toIndex);
+            journal.pushInt(OP_MOVE);
+        }
+        if (influence != null) {
+            influence.unitMoved(units.seatOfUnit(slot), units.typeOf(slot), fromIndex, toIndex);
+        }
+    }
+
+    private int seatOf(Player player) {
+        int seat = units.seatOf(player);
+        if (seat < 0) {
+            throw new IllegalArgumentException("Player is not in this game");
+        }
+        return seat;
+    }
+
+    private int indexOnBoard(AxialPos pos) {
+        int index = board.indexOf(pos);
+        if (index < 0) {
+            throw new IllegalArgumentException("Pos " + pos.toString() + " is not on the board");
+        }
+        return index;
     }
 
     public boolean canEndTurn() {
-        return unitsByPlayer.get(currentPlayer)
-                .stream()
-                .allMatch(Unit::hasActed);
+        int seat = units.seatOf(currentPlayer);
+        for (int slot = units.first(seat); slot != UnitStore.NONE; slot = units.next(slot)) {
+            if (units.movementOf(slot) == units.typeOf(slot).moveRange) {
+                return false; // Unit has not acted
+            }
+        }
+        return true;
     }
 
     public void startTurn(Player player) {
-        for (Unit u : unitsByPlayer.get(player)) {
-            u.resetTurnState();
+        int seat = seatOf(player);
+        for (int slot = units.first(seat); slot != UnitStore.NONE; slot = units.next(slot)) {
+            units.setValues(slot, units.hpOf(slot), units.typeOf(slot).moveRange, false);
         }
     }
 
-    // ----- COPYING FOR SIMLUATION -----
-    private GameState(
-            Board board,
-            Map<AxialPos, Unit> units,
-            Map<Player, Set<Unit>> unitsByPlayer,
-            Map<Player, Set<AxialPos>> positionsByPlayer,
-            Player currentPlayer
-    ) {
-        this.board = board;
-        this.width = board.getWidth();
+    // ----- JOURNAL -----
+    /**
+     * Turns recording of changes on or off. Turning it on starts an empty
+     * journal. Copies never inherit the journal.
+     */
+    public void setJournaling(boolean enabled) {
+        this.journal = enabled ? new UndoLog() : null;
+        units.setJournal(journal);
+    }
 
-        this.units = units;
-        this.unitsByPlayer = unitsByPlayer;
-        this.positionsByPlayer = positionsByPlayer;
-        this.currentPlayer = currentPlayer;
+    public boolean isJournaling() {
+        return journal != null;
     }
 
-    public GameState createSimluationCopy() {
-        Map<AxialPos, Unit> unitsCopy = new HashMap<>();
-        Map<Player, Set<Unit>> unitsByPlayerCopy = new HashMap<>();
-        Map<Player, Set<AxialPos>> positionsByPlayerCopy = new HashMap<>();
+    /**
+     * @return a mark that {@link #rollback} can return the state to
+     */
+    public int mark() {
+        if (journal == null) {
+            throw new IllegalStateException("Journaling is off");
+        }
+        return journal.size();
+    }
+
+    /**
+     * Undoes every change made since the mark, newest first. Takes time
+     * proportional to the number of changes.
+     */
+    public void rollback(int mark) {
+        if (journal == null) {
+            throw new IllegalStateException("Journaling is off");
+        }
+        if (mark > journal.size()) {
+            throw new IllegalArgumentException("Mark " + mark + " is ahead of the journal");
+        }
 
-        // Initialize player maps
-        for (Player p : unitsByPlayer.keySet()) {
-            unitsByPlayerCopy.put(p, new HashSet<>());
-            positionsByPlayerCopy.put(p, new HashSet<>());
+        // Undo without recording the undo itself
+        units.setJournal(null);
+        while (journal.size() > mark) {
+            int op = journal.popInt();
+            switch (op) {
+                case OP_PLACE -> {
+                    int index = journal.popInt();
+                    if (influence != null) {
+                        int slot = unitSlots.get(index);
+                        influence.unitRemoved(units.seatOfUnit(slot), units.typeOf(slot), index);
+                    }
+                    unitSlots.set(index, -1);
+                }
+                case OP_REMOVE -> {
+                    int index = journal.popInt();
+                    int slot = journal.popInt();
+                    unitSlots.set(index, slot);
+                    if (influence != null) {
+                        influence.unitPlaced(units.seatOfUnit(slot), units.typeOf(slot), index);
+                    }
+                }
+                case OP_MOVE -> {
+                    int toIndex = journal.popInt();
+                    int fromIndex = journal.popInt();
+                    int slot = unitSlots.get(toIndex);
+                    unitSlots.set(fromIndex, slot);
+                    unitSlots.set(toIndex, -1);
+                    if (influence != null) {
+                        influence.unitMoved(units.seatOfUnit(slot), units.typeOf(slot), toIndex, fromIndex);
+                    }
+                }
+                case OP_PLAYER -> {
+                    this.currentPlayer = journal.popRef();
+                    this.currentSeat = units.seatOf(currentPlayer);
+                }
+                case OP_GAME_OVER ->
+                    this.isGameOver = journal.popInt() != 0;
+                default ->
+                    units.undo(op, journal);
+            }
         }
+        units.setJournal(journal);
+    }
 
-        // Copy units + positions
-        for (Map.Entry<AxialPos, Unit> entry : units.entrySet()) {
-            AxialPos pos = entry.getKey();
-            Unit original = entry.getValue();
+    /**
+     * Drops all recorded changes, e.g. once they can no longer be undone.
+     */
+    public void clearJournal() {
+        if (journal != null) {
+            journal.clear();
+        }
+    }
 
-            Unit unitCopy = original.createCopy();
+    // ----- INFLUENCE -----
+    /**
+     * Turns tracking of the {@link InfluenceMap} on or off. Turning it on
+     * builds the map from the units on the board. Copies inherit it.
+     */
+    public void setInfluenceTracking(boolean enabled) {
+        if (!enabled) {
+            this.influence = null;
+            return;
+        }
+        if (influence != null) {
+            return;
+        }
 
-            unitsCopy.put(pos, unitCopy);
-            unitsByPlayerCopy.get(unitCopy.getOwner()).add(unitCopy);
-            positionsByPlayerCopy.get(unitCopy.getOwner()).add(pos);
+        influence = new InfluenceMap(board, units.playerCount());
+        for (int slot = 0; slot < units.slotCount(); slot++) {
+            if (units.isLive(slot)) {
+                influence.unitPlaced(units.seatOfUnit(slot), units.typeOf(slot), units.tileOf(slot));
+            }
         }
+    }
+
+    public boolean isTrackingInfluence() {
+        return influence != null;
+    }
 
-        return new GameState(
-                board,
-                unitsCopy,
-                unitsByPlayerCopy,
-                positionsByPlayerCopy,
-                currentPlayer
-        );
+    public InfluenceMap getInfluenceMap() {
+        if (influence == null) {
+            throw new IllegalStateException("Influence tracking is off");
+        }
+        return influence;
+    }
+
+    // Strength the player projects onto a tile
+    public int getInfluence(Player p, int index) {
+        return getInfluenceMap().influence(seatOf(p), index);
+    }
+
+    // Strength every other player projects onto a tile
+    public int getThreat(Player p, int index) {
+        return getInfluenceMap().threat(seatOf(p), index);
+    }
+
+    // ----- COPYING FOR SIMLUATION -----
+    private GameState(GameState source) {
+        this.board = source.board;
+        this.width = source.width;
+
+        this.units = source.units.fork();
+        this.unitSlots = source.unitSlots.fork();
+        this.currentPlayer = source.currentPlayer;
+        this.currentSeat = source.currentSeat;
+        this.influence = source.influence == null ? null : source.influence.fork();
+    }
+
+    /**
+     * Forks this state in O(1). The copy shares unit storage with this state
+     * until either side changes a unit, which then copies only what it
+     * touches. Units read from the copy are separate objects from this
+     * state's.
+     *
+     * Forking updates this state's ownership tokens, so do not fork one state
+     * from several threads at once.
+     */
+    public GameState createSimluationCopy() {
+        return new GameState(this);
     }
 }
@@ -0,0 +1,174 @@
+package tbs_game.game.game_helpers;
+
+import java.util.Arrays;
+
+import tbs_game.game.board.Board;
+import tbs_game.hexes.PackedHex;
+import tbs_game.units.UnitType;
+import tbs_game.utils.CowIntArray;
+
+/**
+ * Per tile strength of each player, kept up to date by its {@link GameState}.
+ * Every unit adds its attack damage to each tile within its move range plus
+ * attack range, ignoring terrain, so a tile's total is roughly how much damage
+ * could land on it next turn. Placing, removing or moving a unit only
+ * rewrites the tiles whose total changes, and reads are O(1).
+ *
+ * Layers fork copy-on-write along with the state.
+ */
+public class InfluenceMap {
+
+    private final Board board;
+    private final int width;
+    private final int height;
+
+    // One layer per seat, plus the sum of all of them
+    private CowIntArray[] layers;
+    private final CowIntArray total;
+
+    InfluenceMap(Board board, int seats) {
+        this.board = board;
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.layers = new CowIntArray[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            layers[seat] = new CowIntArray(board.getTileCount(), 0);
+        }
+        this.total = new CowIntArray(board.getTileCount(), 0);
+    }
+
+    private InfluenceMap(InfluenceMap source) {
+        this.board = source.board;
+        this.width = source.width;
+        this.height = source.height;
+        this.layers = new CowIntArray[source.layers.length];
+        for (int seat = 0; seat < layers.length; seat++) {
+            layers[seat] = source.layers[seat].fork();
+        }
+        this.total = source.total.fork();
+    }
+
+    InfluenceMap fork() {
+        return new InfluenceMap(this);
+    }
+
+    public static int radiusOf(UnitType type) {
+        return type.moveRange + type.attackRange;
+    }
+
+    public static int strengthOf(UnitType type) {
+        return type.attackDamage;
+    }
+
+    /**
+     * Strength the seat projects onto a tile.
+     */
+    public int influence(int seat, int index) {
+        return seat < layers.length ? layers[seat].get(index) : 0;
+    }
+
+    /**
+     * Strength every other seat projects onto a tile.
+     */
+    public int threat(int seat, int index) {
+        return total.get(index) - influence(seat, index);
+    }
+
+    public int total(int index) {
+        return total.get(index);
+    }
+
+    // ----- UPDATES -----
+    void unitPlaced(int seat, UnitType type, int tile) {
+        addDisc(seat, tile, radiusOf(type), strengthOf(type), -1);
+    }
+
+    void unitRemoved(int seat, UnitType type, int tile) {
+        addDisc(seat, tile, radiusOf(type), -strengthOf(type), -1);
+    }
+
+    void unitMoved(int seat, UnitType type, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        int radius = radiusOf(type);
+        int strength = strengthOf(type);
+        if (width < 4 * radius + 1) {
+            // Both discs can reach round the wrap to meet again, so the overlap is not one lens
+            addDisc(seat, from, radius, -strength, -1);
+            addDisc(seat, to, radius, strength, -1);
+            return;
+        }
+
+        // Tiles in range of both ends keep their value
+        addDisc(seat, from, radius, -strength, to);
+        addDisc(seat, to, radius, strength, from);
+    }
+
+    /**
+     * Adds delta to every tile within radius of the center, skipping tiles
+     * also within radius of the other tile, if there is one.
+     */
+    private void addDisc(int seat, int center, int radius, int delta, int other) {
+        if (delta == 0) {
+            return;
+        }
+        CowIntArray layer = layer(seat);
+        int centerHex = board.hexAt(center);
+        int q = PackedHex.q(centerHex);
+        int r = PackedHex.r(centerHex);
+
+        // Other tile relative to the center, taking the image across the wrap that is nearest
+        int otherQ = 0;
+        int otherR = 0;
+        boolean overlaps = false;
+        if (other >= 0) {
+            int otherHex = board.hexAt(other);
+            otherR = PackedHex.r(otherHex) - r;
+            otherQ = PackedHex.q(otherHex) - q;
+            if (length(otherQ - width, otherR) < length(otherQ, otherR)) {
+                otherQ -= width;
+            } else if (length(otherQ + width, otherR) < length(otherQ, otherR)) {
+                otherQ += width;
+            }
+            overlaps = length(otherQ, otherR) <= 2 * radius;
+        }
+
+        for (int dr = -radius; dr <= radius; dr++) {
+            int row = r + dr;
+            if (row < 0 || row >= height) {
+                continue;
+            }
+
+            // Hexes of one row within the radius form a run of columns
+            int dqMin = Math.max(-radius, -dr - radius);
+            int dqMax = Math.min(radius, -dr + radius);
+            int startCol = PackedHex.toCol(PackedHex.pack(q + dqMin, row));
+            int span = Math.min(dqMax - dqMin + 1, width); // Each tile once on narrow boards
+            int rowStart = row * width;
+            for (int i = 0; i < span; i++) {
+                if (overlaps && length(dqMin + i - otherQ, dr - otherR) <= radius) {
+                    continue;
+                }
+                int col = Math.floorMod(startCol + i, width);
+                layer.add(rowStart + col, delta);
+                total.add(rowStart + col, delta);
+            }
+        }
+    }
+
+    private static int length(int dq, int dr) {
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+    }
+
+    private CowIntArray layer(int seat) {
+        if (seat >= layers.length) {
+            int old = layers.length;
+            layers = Arrays.copyOf(layers, seat + 1);
+            for (int s = old; s <= seat; s++) {
+                layers[s] = new CowIntArray(board.getTileCount(), 0);
+            }
+        }
+        return layers[seat];
+    }
+}
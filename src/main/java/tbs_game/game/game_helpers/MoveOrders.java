@@ -0,0 +1,584 @@
+package tbs_game.game.game_helpers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import tbs_game.game.board.Board;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.utils.IndexedMinHeap;
+import tbs_game.utils.IntList;
+
+/**
+ * Standing orders for units to move to a goal tile, a turn's movement at a
+ * time. Each order keeps a D* Lite search running backwards from its goal.
+ * When units or terrain change, only the part of the search they touch is
+ * repaired, so a turn where nothing near a path changed costs next to no
+ * search. Like {@link MovementPlanner#findPath(int, int, IntList)}, units
+ * block every tile but the goal.
+ *
+ * Orders follow their unit by the tile it stands on, and only moves made by
+ * {@link #advance} carry an order along. Cancel an order before moving its
+ * unit some other way. An order is dropped once its tile holds some other
+ * unit or none, so it never passes to the next unit to stand there.
+ */
+public class MoveOrders {
+
+    private static final int INF = Integer.MAX_VALUE / 4;
+    private static final int OCCUPIED = 1 << 8; // Flag on a tile's old terrain cost
+
+    private final GameState state;
+    private final Board board;
+    private final Map<Integer, Order> orders = new HashMap<>(); // By the unit's tile
+
+    // The units and terrain the searches last saw, to find the tiles that changed since
+    private long[] occupied;
+    private long[] scratch;
+    private byte[] costs; // 0 when impassable
+    private int boardVersion;
+    private long stateHash; // Same hash, same units, so nothing to look for
+
+    // Tiles changed since the searches last looked, and what each was before
+    private final IntList changedTiles = new IntList();
+    private final IntList changedFrom = new IntList();
+
+    private final IntList unitTiles = new IntList();
+    private final IntList path = new IntList();
+    private long expansions;
+
+    public MoveOrders(GameState state) {
+        this.state = state;
+        this.board = state.getBoard();
+    }
+
+    /**
+     * Orders the unit on the tile to move to the goal. Replaces any order it
+     * already had.
+     *
+     * @return false if there is no unit on the tile, the unit is already on
+     * the goal, or the goal cannot be entered
+     */
+    public boolean give(int unitTile, int goal) {
+        Unit unit = state.getUnitAt(unitTile);
+        if (unit == null || unitTile == goal || !board.isPassable(goal)) {
+            return false;
+        }
+
+        sync();
+        orders.put(unitTile, new Order(unit, unitTile, goal));
+        return true;
+    }
+
+    public void cancel(int unitTile) {
+        orders.remove(unitTile);
+    }
+
+    public boolean hasOrder(int unitTile) {
+        return orderAt(unitTile) != null;
+    }
+
+    // Goal of the unit on the tile, or -1 if it has no order
+    public int goalOf(int unitTile) {
+        Order order = orderAt(unitTile);
+        return order == null ? -1 : order.goal;
+    }
+
+    public int size() {
+        orders.entrySet().removeIf(entry -> !entry.getValue().isAt(entry.getKey()));
+        return orders.size();
+    }
+
+    // Tiles expanded by all searches so far
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Brings the unit's path up to date with the board as it is now.
+     *
+     * @param out - Cleared, then filled with the tiles of the path, including
+     * the unit's tile and the goal
+     * @return the movement cost of the path, or -1 if the unit has no order or
+     * cannot reach its goal
+     */
+    public int path(int unitTile, IntList out) {
+        out.clear();
+        Order order = orderAt(unitTile);
+        if (order == null) {
+            return -1;
+        }
+
+        sync();
+        return order.plan(out);
+    }
+
+    /**
+     * Moves each of the player's units with an order as far along its path as
+     * its movement points allow, oldest unit first. An order is done once its
+     * unit reaches the goal, and is dropped if its unit is gone or its goal
+     * can no longer be entered.
+     *
+     * @return the number of units that moved
+     */
+    public int advance(Player player) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        sync();
+        orders.entrySet().removeIf(entry -> !entry.getValue().isAt(entry.getKey()));
+
+        int moved = 0;
+        state.getUnitTilesForPlayer(player, unitTiles);
+        for (int i = 0; i < unitTiles.size(); i++) {
+            int tile = unitTiles.get(i);
+            Order order = orders.get(tile);
+            if (order == null) {
+                continue;
+            }
+            if (!board.isPassable(order.goal)) {
+                orders.remove(tile);
+                continue;
+            }
+
+            int end = walk(order);
+            if (end == tile) {
+                continue;
+            }
+
+            moved++;
+            orders.remove(tile);
+            unitMoved(tile, end);
+            if (end != order.goal) {
+                order.start = end;
+                orders.put(end, order);
+            }
+        }
+        return moved;
+    }
+
+    // The order on the tile, dropping it if its unit is no longer the one there
+    private Order orderAt(int unitTile) {
+        Order order = orders.get(unitTile);
+        if (order != null && !order.isAt(unitTile)) {
+            orders.remove(unitTile);
+            return null;
+        }
+        return order;
+    }
+
+    // Steps along the order's path until the unit runs out of movement or the way is taken
+    private int walk(Order order) {
+        int start = order.start;
+        if (order.plan(path) < 0) {
+            return start;
+        }
+
+        Unit mover = order.unit;
+        if (mover.hasAttacked()) {
+            return start;
+        }
+
+        int prev = start;
+        for (int i = 1; i < path.size(); i++) {
+            int step = path.get(i);
+            int cost = board.cost(step);
+            if (state.hasUnitAt(step) || mover.getMovementPoints() < cost) {
+                break; // Only the goal can be taken
+            }
+
+            state.moveUnitInternal(prev, step);
+            mover.spendMovementPoints(cost);
+            prev = step;
+        }
+        return prev;
+    }
+
+    // ----- CHANGES -----
+    // Tells every search about the tiles whose units or terrain changed since it last looked
+    private void sync() {
+        int tileCount = board.getTileCount();
+        if (occupied == null) {
+            occupied = new long[(tileCount + 63) >>> 6];
+            scratch = new long[occupied.length];
+            fillOccupied(occupied);
+            costs = new byte[tileCount];
+            for (int tile = 0; tile < tileCount; tile++) {
+                costs[tile] = costOf(tile);
+            }
+            boardVersion = board.getVersion();
+            stateHash = state.hash();
+            return;
+        }
+
+        if (state.hash() != stateHash) {
+            fillOccupied(scratch);
+            for (int word = 0; word < occupied.length; word++) {
+                long diff = occupied[word] ^ scratch[word];
+                while (diff != 0) {
+                    int tile = (word << 6) + Long.numberOfTrailingZeros(diff);
+                    occupied[word] ^= 1L << tile;
+                    noteChange(tile, costs[tile], !isOccupied(tile));
+                    diff &= diff - 1;
+                }
+            }
+            stateHash = state.hash();
+        }
+
+        if (board.getVersion() != boardVersion) {
+            for (int tile = 0; tile < tileCount; tile++) {
+                byte cost = costOf(tile);
+                if (cost != costs[tile]) {
+                    byte old = costs[tile];
+                    costs[tile] = cost;
+                    noteChange(tile, old, isOccupied(tile));
+                }
+            }
+            boardVersion = board.getVersion();
+        }
+        publish();
+    }
+
+    private boolean isOccupied(int tile) {
+        return (occupied[tile >>> 6] & 1L << tile) != 0;
+    }
+
+    private void fillOccupied(long[] bits) {
+        Arrays.fill(bits, 0);
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            state.getUnitTilesForPlayer(state.getPlayer(seat), unitTiles);
+            for (int i = 0; i < unitTiles.size(); i++) {
+                int tile = unitTiles.get(i);
+                bits[tile >>> 6] |= 1L << tile;
+            }
+        }
+    }
+
+    private byte costOf(int tile) {
+        return board.isPassable(tile) ? (byte) board.cost(tile) : 0;
+    }
+
+    private void unitMoved(int from, int to) {
+        occupied[from >>> 6] &= ~(1L << from);
+        occupied[to >>> 6] |= 1L << to;
+        noteChange(from, costs[from], true);
+        noteChange(to, costs[to], false);
+        publish();
+        stateHash = state.hash();
+    }
+
+    // The snapshot already shows the tile as it is now, so the old values are passed along
+    private void noteChange(int tile, byte oldTerrain, boolean wasOccupied) {
+        changedTiles.add(tile);
+        changedFrom.add(wasOccupied ? oldTerrain | OCCUPIED : oldTerrain);
+    }
+
+    // One order at a time, so each only walks its own tables
+    private void publish() {
+        if (changedTiles.isEmpty()) {
+            return;
+        }
+        for (Order order : orders.values()) {
+            for (int i = 0; i < changedTiles.size(); i++) {
+                order.tileChanged(changedTiles.get(i), changedFrom.get(i));
+            }
+        }
+        changedTiles.clear();
+        changedFrom.clear();
+    }
+
+    // ----- SEARCH -----
+    /**
+     * One unit's order. g and rhs are kept only for tiles the search has
+     * touched, under small local ids, so an order costs memory in proportion
+     * to the ground around its path rather than to the board.
+     */
+    private final class Order {
+
+        final Unit unit;
+        final int goal;
+        int start;
+
+        private int lastStart; // Where the unit stood when keys were last made
+        private int km;
+
+        private int[] table = new int[64]; // Open addressing, tile to local id + 1
+        private int[] tiles = new int[32];
+        private int[] g = new int[32];
+        private int[] rhs = new int[32];
+        private boolean[] onRoute = new boolean[32];
+        private int count;
+        private final long[] segments; // Runs of 64 tiles holding a touched tile, to skip changes quickly
+        private final IndexedMinHeap open = new IndexedMinHeap(32);
+
+        // Last path found. Still the best one if no tile on it changed and the repair expanded nothing
+        private final IntList route = new IntList();
+        private int routeStart = -1;
+        private int routeCost = -1;
+        private boolean stale = true;
+
+        Order(Unit unit, int start, int goal) {
+            this.unit = unit;
+            this.goal = goal;
+            this.start = start;
+            this.lastStart = start;
+            this.segments = new long[(board.getTileCount() + 4095) >>> 12];
+
+            int id = touch(goal);
+            rhs[id] = 0;
+            open.push(id, key(id));
+        }
+
+        boolean isAt(int tile) {
+            return state.getUnitAt(tile) == unit;
+        }
+
+        int plan(IntList out) {
+            out.clear();
+            if (start != lastStart) {
+                km += heuristic(lastStart, start);
+                lastStart = start;
+            }
+            int s = touch(start);
+            compute(s);
+            if (!stale && routeStart == start) {
+                for (int i = 0; i < route.size(); i++) {
+                    out.add(route.get(i));
+                }
+                return routeCost;
+            }
+
+            stale = false;
+            for (int i = 0; i < route.size(); i++) {
+                onRoute[idOf(route.get(i))] = false;
+            }
+            route.clear();
+            routeStart = start;
+            routeCost = g[s] >= INF ? -1 : g[s];
+            if (routeCost < 0) {
+                return -1;
+            }
+
+            // Each step goes to the neighbor with the cheapest way on
+            int tile = start;
+            out.add(tile);
+            while (tile != goal) {
+                int next = -1;
+                int best = INF;
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = board.neighbor(tile, dir);
+                    int cost = neighbor < 0 ? INF : enterCost(neighbor);
+                    int id = cost == INF ? -1 : idOf(neighbor);
+                    if (id >= 0 && g[id] < INF && g[id] + cost < best) {
+                        best = g[id] + cost;
+                        next = neighbor;
+                    }
+                }
+                if (next < 0 || out.size() > count) {
+                    throw new IllegalStateException("Move order path does not lead to its goal");
+                }
+                tile = next;
+                out.add(tile);
+            }
+            for (int i = 0; i < out.size(); i++) {
+                route.add(out.get(i));
+                onRoute[idOf(out.get(i))] = true;
+            }
+            return routeCost;
+        }
+
+        private void compute(int s) {
+            while (!open.isEmpty() && (open.peekPriority() < key(s) || g[s] != rhs[s])) {
+                long old = open.peekPriority();
+                int u = open.pop();
+                expansions++;
+                stale = true;
+
+                long now = key(u);
+                if (old < now) {
+                    open.push(u, now); // The unit moved on since u was queued
+                    continue;
+                }
+
+                int tile = tiles[u];
+                int step = enterCost(tile); // What neighbors pay to step onto u
+                if (g[u] > rhs[u]) {
+                    g[u] = rhs[u];
+                    if (step == INF) {
+                        continue;
+                    }
+                    for (int dir = 0; dir < 6; dir++) {
+                        int neighbor = board.neighbor(tile, dir);
+                        if (neighbor < 0 || neighbor == goal) {
+                            continue;
+                        }
+                        int id = touch(neighbor);
+                        if (g[u] + step < rhs[id]) {
+                            rhs[id] = g[u] + step;
+                            update(id);
+                        }
+                    }
+                } else {
+                    int oldG = g[u];
+                    g[u] = INF;
+                    if (tile != goal) {
+                        rhs[u] = lowestRhs(tile);
+                    }
+                    update(u);
+                    if (step == INF) {
+                        continue;
+                    }
+                    for (int dir = 0; dir < 6; dir++) {
+                        int neighbor = board.neighbor(tile, dir);
+                        int id = neighbor < 0 || neighbor == goal ? -1 : idOf(neighbor);
+                        if (id >= 0 && rhs[id] == oldG + step) {
+                            rhs[id] = lowestRhs(neighbor);
+                            update(id);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Stepping onto the tile costs something else now, so its neighbors' ways on through it change
+        void tileChanged(int tile, int was) {
+            if ((segments[tile >>> 12] & 1L << (tile >>> 6)) == 0) {
+                return;
+            }
+            int id = idOf(tile);
+            if (id < 0 || g[id] >= INF) {
+                return; // Nothing reaches the goal through it
+            }
+            stale |= onRoute[id];
+
+            int terrain = was & (OCCUPIED - 1);
+            int before = terrain == 0 || ((was & OCCUPIED) != 0 && tile != goal) ? INF : terrain;
+            int after = enterCost(tile);
+            if (after < before) {
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = board.neighbor(tile, dir);
+                    if (neighbor < 0 || neighbor == goal) {
+                        continue;
+                    }
+                    int nid = touch(neighbor);
+                    if (g[id] + after < rhs[nid]) {
+                        rhs[nid] = g[id] + after;
+                        update(nid);
+                    }
+                }
+            } else if (after > before) {
+                for (int dir = 0; dir < 6; dir++) {
+                    int neighbor = board.neighbor(tile, dir);
+                    int nid = neighbor < 0 || neighbor == goal ? -1 : idOf(neighbor);
+                    if (nid >= 0 && rhs[nid] == g[id] + before) {
+                        rhs[nid] = lowestRhs(neighbor);
+                        update(nid);
+                    }
+                }
+            }
+        }
+
+        private int lowestRhs(int tile) {
+            int lowest = INF;
+            for (int dir = 0; dir < 6; dir++) {
+                int neighbor = board.neighbor(tile, dir);
+                if (neighbor < 0) {
+                    continue;
+                }
+                int id = idOf(neighbor);
+                int cost = enterCost(neighbor);
+                if (id >= 0 && cost != INF && g[id] < INF) {
+                    lowest = Math.min(lowest, g[id] + cost);
+                }
+            }
+            return lowest;
+        }
+
+        private void update(int id) {
+            if (g[id] != rhs[id]) {
+                open.push(id, key(id));
+            } else {
+                open.remove(id);
+            }
+        }
+
+        // Smaller first, then the one nearer the goal. k1 fits in the high int
+        private long key(int id) {
+            long lower = Math.min(g[id], rhs[id]);
+            long first = lower + heuristic(start, tiles[id]) + km;
+            return first << 32 | lower;
+        }
+
+        private int enterCost(int tile) {
+            if (!board.isPassable(tile) || (tile != goal && state.hasUnitAt(tile))) {
+                return INF;
+            }
+            return board.cost(tile);
+        }
+
+        private int heuristic(int from, int to) {
+            return state.distanceBetween(board.hexAt(from), board.hexAt(to)) * MovementPlanner.MIN_MOVE_COST;
+        }
+
+        private int idOf(int tile) {
+            int mask = table.length - 1;
+            for (int slot = hash(tile) & mask;; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (tiles[entry - 1] == tile) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        // Id of the tile, adding it with no known way to the goal if it is new
+        private int touch(int tile) {
+            int mask = table.length - 1;
+            int slot = hash(tile) & mask;
+            for (int entry = table[slot]; entry != 0; entry = table[slot]) {
+                if (tiles[entry - 1] == tile) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = count++;
+            if (id == tiles.length) {
+                tiles = Arrays.copyOf(tiles, id * 2);
+                g = Arrays.copyOf(g, id * 2);
+                rhs = Arrays.copyOf(rhs, id * 2);
+                onRoute = Arrays.copyOf(onRoute, id * 2);
+                open.ensureCapacity(id * 2);
+            }
+            tiles[id] = tile;
+            segments[tile >>> 12] |= 1L << (tile >>> 6);
+            g[id] = INF;
+            rhs[id] = INF;
+            table[slot] = id + 1;
+            if (count * 2 > table.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int id = 0; id < count; id++) {
+                int slot = hash(tiles[id]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id + 1;
+            }
+        }
+    }
+
+    private static int hash(int tile) {
+        int h = tile * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,31 +1,71 @@
 package tbs_game.game.game_helpers;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import tbs_game.game.ActionPath;
 import tbs_game.game.board.Board;
-import tbs_game.game.board.Tile;
+import tbs_game.game.board.FlowField;
+import tbs_game.game.board.PathHierarchy;
+import tbs_game.game.board.Terrain;
 import tbs_game.hexes.AxialPos;
-import tbs_game.units.Unit;
-
+import tbs_game.player.Player;
+import tbs_game.utils.IndexedMinHeap;
+import tbs_game.utils.IntList;
+
+/**
+ * Movement searches over a game state. Scratch space lives in a per-thread
+ * {@link SearchContext}, so a planner holds no search state of its own and
+ * searches allocate nothing once the scratch is warm.
+ *
+ * A planner can also keep a cache of its latest paths and reachable sets, for
+ * callers that ask the same thing again before the state changes.
+ */
 public class MovementPlanner {
 
-    private static final int INF = Integer.MAX_VALUE / 4;
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+
+    private static final int INF = SearchContext.INF;
+    private static final int NONE = SearchContext.NONE;
+
+    // Cheapest passable terrain. Keeps the A* heuristic admissible
+    static final int MIN_MOVE_COST = minMoveCost();
+
+    // Searches at least this far apart go over the board's path hierarchy, if enough of the board is rough. Below
+    // either flat A* is as fast, and on open plains flat A* is faster at any distance
+    static final int HIERARCHY_DISTANCE = PathHierarchy.DEFAULT_CLUSTER_SIZE * 3;
+    static final double HIERARCHY_ROUGH_SHARE = 0.2;
 
     private final GameState state;
+    private final PlanCache cache; // Null when not caching
 
     public MovementPlanner(GameState state) {
         this.state = state;
+        this.cache = null;
+    }
+
+    /**
+     * A planner that caches paths and reachable sets until the units or the
+     * terrain change.
+     *
+     * @param cacheCapacity - Most paths and reachable sets kept at once
+     */
+    public MovementPlanner(GameState state, int cacheCapacity) {
+        this.state = state;
+        this.cache = new PlanCache(cacheCapacity);
     }
 
     public ActionPath planAction(AxialPos from, AxialPos to) {
+        if (cache != null) {
+            int fromIndex = state.wrapToIndex(from.pack());
+            int toIndex = state.wrapToIndex(to.pack());
+            if (fromIndex >= 0 && toIndex >= 0 && state.hasUnitAt(fromIndex)) {
+                return planCached(from, to, fromIndex, toIndex);
+            }
+        }
+
         ArrayList<AxialPos> path = findPath(from, to);
         if (path == null) {
             return null;
@@ -35,65 +75,250 @@ public class MovementPlanner {
         return new ActionPath(from, to, path, cost);
     }
 
+    private ActionPath planCached(AxialPos from, AxialPos to, int fromIndex, int toIndex) {
+        int movement = state.getMovementPointsAt(fromIndex);
+        Player owner = state.getOwnerAt(fromIndex);
+        long version = state.getVersion();
+        int boardVersion = state.getBoard().getVersion();
+
+        PlanCache.Path cached = cache.getPath(fromIndex, toIndex, movement, owner, version, boardVersion);
+        cache.count(cached != null);
+        if (cached == null) {
+            ArrayList<AxialPos> path = findPath(from, to);
+            cached = new PlanCache.Path(version, boardVersion, path, path == null ? -1 : countMovementCost(path));
+            cache.putPath(fromIndex, toIndex, movement, owner, cached);
+        }
+
+        if (cached.path() == null) {
+            return null; // Unreachable
+        }
+        return new ActionPath(from, to, new ArrayList<>(cached.path()), cached.cost());
+    }
+
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     public Set<AxialPos> getReachableHexes(AxialPos from) {
         Set<AxialPos> reachableHexes = new HashSet<>();
 
-        // Confirm a unit is at the tile
-        Unit unit = state.getUnitAt(from);
-        if (unit == null) {
+        Board board = state.getBoard();
+        int fromIndex = state.wrapToIndex(from.pack());
+        if (fromIndex < 0) {
             return reachableHexes;
         }
 
-        int maxMove = unit.getMovementPoints();
+        IntList tiles = new IntList();
+        getReachableTiles(fromIndex, tiles);
+        for (int i = 0; i < tiles.size(); i++) {
+            reachableHexes.add(board.getPos(tiles.get(i)));
+        }
+
+        return reachableHexes;
+    }
+
+    /**
+     * Finds every tile the unit on the given tile can move to or attack this
+     * turn. Does not include the starting tile.
+     *
+     * @param fromIndex - The tile index of the unit
+     * @param out - Cleared, then filled with the reachable tile indices
+     * @return the number of reachable tiles
+     */
+    public int getReachableTiles(int fromIndex, IntList out) {
+        return getReachableTiles(fromIndex, out, null, null);
+    }
+
+    /**
+     * Same as {@link #getReachableTiles(int, IntList)}, but also gives how
+     * each tile is reached.
+     *
+     * @param parents - Cleared, then filled with the tile each reachable tile
+     * is entered from. For an attack, that is the tile the unit attacks from
+     * @param costs - Cleared, then filled with the cost of reaching each tile
+     */
+    public int getReachableTiles(int fromIndex, IntList out, IntList parents, IntList costs) {
+        out.clear();
+        if (parents != null) {
+            parents.clear();
+        }
+        if (costs != null) {
+            costs.clear();
+        }
+        if (!state.hasUnitAt(fromIndex)) {
+            return 0;
+        }
+        if (cache != null) {
+            PlanCache.Reach reach = cachedReach(fromIndex);
+            for (int i = 0; i < reach.tiles().length; i++) {
+                out.add(reach.tiles()[i]);
+                if (parents != null) {
+                    parents.add(reach.parents()[i]);
+                }
+                if (costs != null) {
+                    costs.add(reach.costs()[i]);
+                }
+            }
+            return out.size();
+        }
+
+        SearchContext ctx = search(fromIndex, out, null, 0);
+
+        // Read back once the search is done, as costs can drop after a tile is first found
+        for (int i = 0; i < out.size(); i++) {
+            if (parents != null) {
+                parents.add(ctx.parent(out.get(i)));
+            }
+            if (costs != null) {
+                costs.add(ctx.cost(out.get(i)));
+            }
+        }
+        return out.size();
+    }
+
+    private PlanCache.Reach cachedReach(int fromIndex) {
+        int movement = state.getMovementPointsAt(fromIndex);
+        Player owner = state.getOwnerAt(fromIndex);
+        long version = state.getVersion();
+        int boardVersion = state.getBoard().getVersion();
+
+        PlanCache.Reach reach = cache.getReach(fromIndex, movement, owner, version, boardVersion);
+        cache.count(reach != null);
+        if (reach != null) {
+            return reach;
+        }
+
+        IntList tiles = new IntList();
+        SearchContext ctx = search(fromIndex, tiles, null, 0);
+        int[] parents = new int[tiles.size()];
+        int[] costs = new int[tiles.size()];
+        for (int i = 0; i < tiles.size(); i++) {
+            parents[i] = ctx.parent(tiles.get(i));
+            costs[i] = ctx.cost(tiles.get(i));
+        }
+        reach = new PlanCache.Reach(version, boardVersion, tiles.toArray(), parents, costs);
+        cache.putReach(fromIndex, movement, owner, reach);
+        return reach;
+    }
+
+    /**
+     * Finds the reachable tiles of every unit the player has, as
+     * {@link #getReachableTiles(int, IntList)} would one unit at a time.
+     * Each search reuses its thread's scratch space and writes straight into
+     * the unit's bitset, so the cost is in the tiles explored rather than in
+     * setting up each search.
+     *
+     * @param out - Filled with the sets. Reuse it between calls
+     * @param parallel - Search the units on the common fork join pool. The
+     * searches only read the state, but nothing may change it meanwhile
+     * @return out
+     */
+    public ReachableSets getReachableSets(Player player, ReachableSets out, boolean parallel) {
+        state.getUnitTilesForPlayer(player, out.unitTiles);
+        out.reset(state.getBoard().getTileCount());
+
+        int units = out.unitCount();
+        if (parallel && units > 1) {
+            IntStream.range(0, units).parallel().forEach(unit -> search(out.unitTile(unit), null, out, unit));
+        } else {
+            for (int unit = 0; unit < units; unit++) {
+                search(out.unitTile(unit), null, out, unit);
+            }
+        }
+        out.finish();
+        return out;
+    }
+
+    /**
+     * Move costs are small integers, so this runs Dijkstra with a bucket
+     * queue (Dial's algorithm): bucket c holds the tiles reached with cost c.
+     * Only reads the state, so searches can run on several threads at once.
+     *
+     * Each newly found tile goes into out if it is given, else into the
+     * unit's set.
+     *
+     * @return this thread's context, holding the costs and parents found
+     */
+    private SearchContext search(int fromIndex, IntList out, ReachableSets sets, int unit) {
         Board board = state.getBoard();
+        SearchContext ctx = SearchContext.begin(board.getTileCount());
+        int maxMove = state.getMovementPointsAt(fromIndex);
+        if (maxMove < 0) {
+            return ctx; // No unit here
+        }
 
-        Map<AxialPos, Integer> costSoFar = new HashMap<>();
-        PriorityQueue<AxialPos> frontier
-                = new PriorityQueue<>(Comparator.comparingInt(costSoFar::get));
+        Player owner = state.getOwnerAt(fromIndex);
+        boolean canAttack = state.getUnitTypeAt(fromIndex).attackRange != 0;
+        int[] neighbors = board.getNeighborTable();
 
-        costSoFar.put(from, 0);
-        frontier.add(from);
+        IntList[] buckets = ctx.buckets(maxMove);
+        ctx.set(fromIndex, 0, NONE);
+        buckets[0].add(fromIndex);
 
-        while (!frontier.isEmpty()) {
-            AxialPos current = frontier.poll();
-            int currentCost = costSoFar.get(current);
+        for (int cost = 0; cost <= maxMove; cost++) {
+            IntList bucket = buckets[cost];
 
-            for (AxialPos rawNeighbor : current.getNeighbors()) {
-                AxialPos neighbor = state.wrap(rawNeighbor);
-                if (!board.isOnBoard(neighbor)) {
-                    continue; // Vertical bounds check
+            // Zero cost edges don't exist, so a bucket never grows while it is scanned
+            for (int b = 0; b < bucket.size(); b++) {
+                int current = bucket.get(b);
+                if (ctx.cost(current) != cost) {
+                    continue; // Reached more cheaply after being queued here
                 }
 
-                if (state.isFriendly(neighbor, unit.getOwner())) {
-                    continue;
-                }
-                if (unit.getType().attackRange == 0 && state.getUnitAt(neighbor) != null) {
-                    continue; // This unit cannot attack
-                }
+                for (int i = current * 6; i < current * 6 + 6; i++) {
+                    int neighbor = neighbors[i];
+                    if (neighbor < 0) {
+                        continue; // Vertical bounds check
+                    }
 
-                Tile tile = board.getTile(neighbor);
-                if (!tile.isPassable()) {
-                    continue;
-                }
+                    if (state.isFriendly(neighbor, owner)) {
+                        continue;
+                    }
+                    boolean occupied = state.hasUnitAt(neighbor);
+                    if (!canAttack && occupied) {
+                        continue; // This unit cannot attack
+                    }
 
-                int terrainCost = board.getTile(neighbor).cost();
-                int newCost = currentCost + terrainCost;
+                    if (!board.isPassable(neighbor)) {
+                        continue;
+                    }
 
-                if (newCost > maxMove) {
-                    continue;
-                }
+                    int newCost = cost + board.cost(neighbor);
+                    if (newCost > maxMove) {
+                        continue;
+                    }
 
-                if (!costSoFar.containsKey(neighbor) || newCost < costSoFar.get(neighbor)) {
-                    costSoFar.put(neighbor, newCost);
-                    reachableHexes.add(neighbor);
-                    if (state.getUnitAt(neighbor) == null) { // Only add to frontier if not an attack
-                        frontier.add(neighbor);
+                    int known = ctx.cost(neighbor);
+                    if (newCost < known) {
+                        if (known == INF) {
+                            if (out != null) {
+                                out.add(neighbor);
+                            } else {
+                                sets.add(unit, neighbor);
+                            }
+                        }
+                        ctx.set(neighbor, newCost, current);
+                        if (!occupied) { // Only add to frontier if not an attack
+                            buckets[newCost].add(neighbor);
+                        }
                     }
                 }
             }
         }
-
-        return reachableHexes;
+        if (sets != null) {
+            sets.unitDone(unit, ctx);
+        }
+        return ctx;
     }
 
     /**
@@ -105,94 +330,176 @@ public class MovementPlanner {
      * @return Ordered list of HexPos that represent the path found
      */
     public ArrayList<AxialPos> findPath(AxialPos start, AxialPos end) {
-        if (state.distanceBetween(start, end) == 1) { // Adjacent tiles
-            return new ArrayList<AxialPos>() {
-                {
-                    add(start);
-                    add(end);
-                }
-            };
+        Board board = state.getBoard();
+        int startIndex = state.wrapToIndex(start.pack());
+        int endIndex = state.wrapToIndex(end.pack());
+        if (startIndex < 0 || endIndex < 0) {
+            return null;
         }
 
-        Map<AxialPos, AxialPos> cameFrom = new HashMap<>();
-        Map<AxialPos, Integer> gScore = new HashMap<>();
-        Map<AxialPos, Integer> fScore = new HashMap<>();
+        IntList tiles = new IntList();
+        if (findPath(startIndex, endIndex, tiles) < 0) {
+            return null; // unreachable
+        }
+
+        ArrayList<AxialPos> path = new ArrayList<>(tiles.size());
+        for (int i = 0; i < tiles.size(); i++) {
+            path.add(board.getPos(tiles.get(i)));
+        }
+        return path;
+    }
 
-        PriorityQueue<AxialPos> openSet = new PriorityQueue<>(Comparator.comparingDouble(n -> fScore.get(n)));
+    /**
+     * Index based version of {@link #findPath(AxialPos, AxialPos)}. On rough
+     * boards, distant tiles are searched over the board's
+     * {@link PathHierarchy}. It steps round units only when refining its
+     * route, so with units in the way the path may cost a little more than
+     * the cheapest. If units cut the route off, and for nearer tiles, see
+     * {@link #findFlatPath}.
+     *
+     * @param out - Cleared, then filled with the tile indices of the path,
+     * including the start
+     * @return the movement cost of the path, or -1 if there is none
+     */
+    public int findPath(int startIndex, int endIndex, IntList out) {
+        Board board = state.getBoard();
+        if (board.getRoughShare() >= HIERARCHY_ROUGH_SHARE
+                && state.distanceBetween(board.hexAt(startIndex), board.hexAt(endIndex)) >= HIERARCHY_DISTANCE) {
+            int cost = board.getPathHierarchy().findPath(startIndex, endIndex,
+                    tile -> tile != endIndex && state.hasUnitAt(tile), out);
+            if (cost != PathHierarchy.BLOCKED) {
+                return cost;
+            }
+        }
+        return findFlatPath(startIndex, endIndex, out);
+    }
 
-        gScore.put(start, 0);
-        fScore.put(start, heuristic(start, end));
-        openSet.add(start);
+    /**
+     * {@link #findPath(int, int, IntList)} over every tile, without the
+     * hierarchy. Uses an indexed heap with decrease-key and a closed set, so
+     * each tile is expanded at most once. Ties on f are broken towards the
+     * larger g, which keeps the search from fanning out across open ground.
+     */
+    public int findFlatPath(int startIndex, int endIndex, IntList out) {
+        out.clear();
 
         Board board = state.getBoard();
-        while (!openSet.isEmpty()) {
-            AxialPos current = openSet.poll();
+        int endHex = board.hexAt(endIndex);
+        if (state.distanceBetween(board.hexAt(startIndex), endHex) == 1) { // Adjacent tiles
+            out.add(startIndex);
+            out.add(endIndex);
+            return board.cost(endIndex);
+        }
 
-            if (current.equals(end)) {
-                return reconstructPath(cameFrom, current);
-            }
+        int[] neighbors = board.getNeighborTable();
+        SearchContext ctx = SearchContext.begin(board.getTileCount());
+        IndexedMinHeap open = ctx.open;
 
-            int currentG = gScore.get(current);
+        ctx.set(startIndex, 0, NONE);
+        open.push(startIndex, priority(0, heuristic(board.hexAt(startIndex), endHex)));
 
-            for (AxialPos rawNeighbor : current.getNeighbors()) {
-                AxialPos neighbor = state.wrap(rawNeighbor);
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == endIndex) {
+                reconstructPath(ctx, endIndex, out);
+                return ctx.cost(endIndex);
+            }
+            ctx.close(current);
 
-                Tile tile = board.getTile(neighbor);
-                if (!board.isOnBoard(neighbor) || !tile.isPassable()) {
+            int currentG = ctx.cost(current);
+            for (int i = current * 6; i < current * 6 + 6; i++) {
+                int neighbor = neighbors[i];
+                if (neighbor < 0 || ctx.isClosed(neighbor) || !board.isPassable(neighbor)) {
                     continue;
                 }
 
-                Unit neighborUnit = state.getUnitAt(neighbor);
-                if (neighborUnit != null && !neighbor.equals(end)) {
+                if (state.getUnitAt(neighbor) != null && neighbor != endIndex) {
                     continue; // Cannot move through unit (unless at end of path)
                 }
 
-                int tentativeG = currentG + tile.cost();
-
-                int bestKnown = gScore.getOrDefault(neighbor, INF);
-                if (tentativeG >= bestKnown) {
+                int tentativeG = currentG + board.cost(neighbor);
+                if (tentativeG >= ctx.cost(neighbor)) {
                     continue;
                 }
 
-                cameFrom.put(neighbor, current);
-                gScore.put(neighbor, tentativeG);
-                fScore.put(neighbor, tentativeG + heuristic(neighbor, end));
-                openSet.add(neighbor);
+                ctx.set(neighbor, tentativeG, current);
+                open.push(neighbor, priority(tentativeG, heuristic(board.hexAt(neighbor), endHex)));
             }
         }
 
-        return null; // unreachable
+        return -1; // unreachable
+    }
+
+    /**
+     * Walks the unit on the tile along a flow field, as far as its movement
+     * points allow this turn. Stops before any tile with a unit on it, so
+     * units sharing a field do not need a search each.
+     *
+     * @param out - Cleared, then filled with the tiles walked, starting with
+     * the unit's own
+     * @return the movement points the walk uses
+     */
+    public int followFlowField(int fromIndex, FlowField field, IntList out) {
+        out.clear();
+        int movement = state.getMovementPointsAt(fromIndex);
+        if (movement < 0) {
+            return 0;
+        }
+
+        Board board = state.getBoard();
+        int spent = 0;
+        int tile = fromIndex;
+        out.add(tile);
+        for (int next = field.nextTile(tile); next >= 0; next = field.nextTile(tile)) {
+            int cost = board.cost(next);
+            if (spent + cost > movement || state.hasUnitAt(next)) {
+                break;
+            }
+            spent += cost;
+            tile = next;
+            out.add(tile);
+        }
+        return spent;
     }
 
     public int countMovementCost(ArrayList<AxialPos> path) {
+        Board board = state.getBoard();
         int count = 0;
         for (int i = 1; i < path.size(); i++) { // Skip first tile
-            AxialPos pos = path.get(i);
-            int cost = state.getBoard().getTile(pos).cost();
-            count += cost;
+            count += board.cost(board.indexOf(path.get(i)));
         }
 
         return count;
     }
 
-    private int heuristic(AxialPos a, AxialPos b) {
-        return state.distanceBetween(a, b) * 1; // dist * min terrain cost
+    // Wrap aware hex distance times the cheapest move cost, so it never overestimates
+    private int heuristic(int hexA, int hexB) {
+        return state.distanceBetween(hexA, hexB) * MIN_MOVE_COST;
+    }
+
+    // Orders by f, then by larger g
+    private static long priority(int g, int h) {
+        return ((long) (g + h) << 32) - g;
     }
 
-    private ArrayList<AxialPos> reconstructPath(
-            Map<AxialPos, AxialPos> cameFrom,
-            AxialPos current
-    ) {
-        ArrayList<AxialPos> path = new ArrayList<>();
-        path.add(current);
+    private static void reconstructPath(SearchContext ctx, int current, IntList out) {
+        out.add(current);
 
-        while (cameFrom.containsKey(current)) {
-            current = cameFrom.get(current);
-            path.add(current);
+        while (ctx.parent(current) != NONE) {
+            current = ctx.parent(current);
+            out.add(current);
         }
 
-        Collections.reverse(path);
-        return path;
+        out.reverse();
     }
 
+    private static int minMoveCost() {
+        int min = INF;
+        for (Terrain terrain : Terrain.values()) {
+            if (terrain.passable) {
+                min = Math.min(min, terrain.moveCost);
+            }
+        }
+        return min;
+    }
 }
@@ -0,0 +1,121 @@
+package tbs_game.game.game_helpers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import tbs_game.hexes.AxialPos;
+import tbs_game.player.Player;
+
+/**
+ * Recently planned paths and reachable sets of one {@link MovementPlanner},
+ * least recently used dropped first. Entries are keyed by the unit's tile,
+ * movement points and owner, and are only handed out while the state and the
+ * board are at the versions they were made at. Any change to a unit or to the
+ * terrain therefore retires every entry at once.
+ *
+ * Only valid for the one state its planner reads, since a fork of the state
+ * counts versions from the same number. Safe to use from several threads.
+ */
+final class PlanCache {
+
+    // equals and hashCode are written out, as the generated ones are slow to set up on first use
+    private record ReachKey(int tile, int movement, Player owner) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ReachKey key
+                    && tile == key.tile && movement == key.movement && owner == key.owner;
+        }
+
+        @Override
+        public int hashCode() {
+            return (tile * 31 + movement) * 31 + System.identityHashCode(owner);
+        }
+    }
+
+    private record PathKey(int from, int to, int movement, Player owner) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PathKey key
+                    && from == key.from && to == key.to && movement == key.movement && owner == key.owner;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((from * 31 + to) * 31 + movement) * 31 + System.identityHashCode(owner);
+        }
+    }
+
+    // Tiles in the order the search found them, with the tile each is entered from and its cost
+    record Reach(long stateVersion, int boardVersion, int[] tiles, int[] parents, int[] costs) {
+    }
+
+    record Path(long stateVersion, int boardVersion, ArrayList<AxialPos> path, int cost) {
+    }
+
+    private final Map<Object, Object> entries;
+
+    private long hits;
+    private long misses;
+
+    PlanCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // The reachable set, or null if it is not cached for these versions
+    synchronized Reach getReach(int tile, int movement, Player owner, long stateVersion, int boardVersion) {
+        if (entries.get(new ReachKey(tile, movement, owner)) instanceof Reach reach
+                && reach.stateVersion() == stateVersion && reach.boardVersion() == boardVersion) {
+            return reach;
+        }
+        return null;
+    }
+
+    synchronized void putReach(int tile, int movement, Player owner, Reach reach) {
+        entries.put(new ReachKey(tile, movement, owner), reach);
+    }
+
+    // The path, or null if it is not cached for these versions
+    synchronized Path getPath(int from, int to, int movement, Player owner, long stateVersion, int boardVersion) {
+        if (entries.get(new PathKey(from, to, movement, owner)) instanceof Path path
+                && path.stateVersion() == stateVersion && path.boardVersion() == boardVersion) {
+            return path;
+        }
+        return null;
+    }
+
+    synchronized void putPath(int from, int to, int movement, Player owner, Path path) {
+        entries.put(new PathKey(from, to, movement, owner), path);
+    }
+
+    // Called once per query the cache could have answered
+    synchronized void count(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,180 @@
+package tbs_game.game.game_helpers;
+
+import java.util.Arrays;
+
+import tbs_game.utils.IntList;
+
+/**
+ * The tiles each of a player's units can move to or attack this turn, as one
+ * bitset per unit indexed by tile, plus every unit's tiles in tile order in
+ * one shared list along with the tile each is entered from, so paths can be
+ * read back without another search. Filled by
+ * {@link MovementPlanner#getReachableSets}.
+ *
+ * Only the words a call actually set are cleared on the next one, so a call
+ * costs in proportion to the tiles found rather than to the board. Storage
+ * only ever grows, so reusing one instance across calls allocates nothing
+ * once it is big enough.
+ */
+public class ReachableSets {
+
+    // Filled by the planner before reset
+    final IntList unitTiles = new IntList();
+
+    private int words; // Longs per unit
+    private long[] bits = new long[0];
+
+    // Unit u's tiles are tiles[starts[u]] until tiles[starts[u + 1]]
+    private final IntList tiles = new IntList();
+    private final IntList parents = new IntList();
+    private int[] starts = new int[1];
+    private int filled; // Units whose tiles are in the list
+
+    // Each unit's tiles and parents as its search finds them, so units can be searched on several threads
+    private IntList[] found = new IntList[0];
+    private IntList[] foundParents = new IntList[0];
+
+    // Empties the sets of the units in unitTiles, sized for the board
+    void reset(int tileCount) {
+        for (int unit = 0; unit < filled; unit++) {
+            for (int i = starts[unit]; i < starts[unit + 1]; i++) {
+                bits[unit * words + (tiles.get(i) >>> 6)] = 0;
+            }
+        }
+        tiles.clear();
+        parents.clear();
+        filled = 0;
+
+        int unitCount = unitTiles.size();
+        this.words = (tileCount + 63) >>> 6;
+        int needed = unitCount * words;
+        if (bits.length < needed) {
+            bits = new long[needed];
+        }
+        if (starts.length < unitCount + 1) {
+            starts = new int[unitCount + 1];
+        }
+        if (found.length < unitCount) {
+            int old = found.length;
+            found = Arrays.copyOf(found, unitCount);
+            foundParents = Arrays.copyOf(foundParents, unitCount);
+            for (int unit = old; unit < unitCount; unit++) {
+                found[unit] = new IntList();
+                foundParents[unit] = new IntList();
+            }
+        }
+        for (int unit = 0; unit < unitCount; unit++) {
+            found[unit].clear();
+            foundParents[unit].clear();
+        }
+    }
+
+    // Only called with tiles not yet in the unit's set
+    void add(int unit, int tile) {
+        bits[unit * words + (tile >>> 6)] |= 1L << tile;
+        found[unit].add(tile);
+    }
+
+    // Parents are read once the unit's search is done, as costs can drop after a tile is first found
+    void unitDone(int unit, SearchContext ctx) {
+        IntList list = found[unit];
+        list.sort();
+        for (int i = 0; i < list.size(); i++) {
+            foundParents[unit].add(ctx.parent(list.get(i)));
+        }
+    }
+
+    // Gathers what the searches found into the shared lists, once they are all done
+    void finish() {
+        int unitCount = unitTiles.size();
+        for (int unit = 0; unit < unitCount; unit++) {
+            starts[unit] = tiles.size();
+            for (int i = 0; i < found[unit].size(); i++) {
+                tiles.add(found[unit].get(i));
+                parents.add(foundParents[unit].get(i));
+            }
+        }
+        starts[unitCount] = tiles.size();
+        filled = unitCount;
+    }
+
+    public int unitCount() {
+        return unitTiles.size();
+    }
+
+    /**
+     * Tile the unit stands on. Units are in the order
+     * {@link GameState#getUnitTilesForPlayer} gives them.
+     */
+    public int unitTile(int unit) {
+        return unitTiles.get(unit);
+    }
+
+    // Number of tiles the unit can reach
+    public int count(int unit) {
+        return starts[unit + 1] - starts[unit];
+    }
+
+    public boolean contains(int unit, int tile) {
+        return (bits[unit * words + (tile >>> 6)] & (1L << tile)) != 0;
+    }
+
+    /**
+     * First tile at or after the given one that the unit can reach.
+     *
+     * @return the tile index, or -1 if there is none
+     */
+    public int nextTile(int unit, int fromTile) {
+        int i = search(unit, fromTile);
+        return i < starts[unit + 1] ? tiles.get(i) : -1;
+    }
+
+    /**
+     * The cheapest path the unit's search found to the tile. For an attack,
+     * the tile before the last is the one the unit attacks from.
+     *
+     * @param out - Cleared, then filled with the tiles of the path, starting
+     * with the unit's own
+     * @return false if the unit cannot reach the tile
+     */
+    public boolean path(int unit, int tile, IntList out) {
+        out.clear();
+        if (!contains(unit, tile)) {
+            return false;
+        }
+
+        int start = unitTiles.get(unit);
+        for (int step = tile; step != start; step = parents.get(search(unit, step))) {
+            out.add(step);
+        }
+        out.add(start);
+        out.reverse();
+        return true;
+    }
+
+    // Position of the first of the unit's tiles at or after the given one
+    private int search(int unit, int tile) {
+        int low = starts[unit];
+        int high = starts[unit + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tiles.get(mid) < tile) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the n-th tile, counting from zero in tile order, that the unit can
+     * reach.
+     */
+    public int tile(int unit, int n) {
+        if (n < 0 || n >= count(unit)) {
+            throw new IndexOutOfBoundsException("Tile " + n + " out of bounds for " + count(unit) + " tiles");
+        }
+        return tiles.get(starts[unit] + n);
+    }
+}
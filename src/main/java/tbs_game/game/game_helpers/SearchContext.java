@@ -0,0 +1,105 @@
+package tbs_game.game.game_helpers;
+
+import java.util.Arrays;
+
+import tbs_game.utils.IndexedMinHeap;
+import tbs_game.utils.IntList;
+
+/**
+ * Per-thread scratch space for board searches. Costs, parents and the closed
+ * set are stamped with a generation number, so starting a new search is O(1)
+ * instead of clearing arrays the size of the board.
+ */
+final class SearchContext {
+
+    static final int INF = Integer.MAX_VALUE / 4;
+    static final int NONE = -1;
+
+    private static final ThreadLocal<SearchContext> CONTEXT = ThreadLocal.withInitial(SearchContext::new);
+
+    private int[] cost = new int[0];
+    private int[] parent = new int[0];
+    private int[] stamp = new int[0];
+    private int[] closed = new int[0];
+    private int generation;
+
+    final IndexedMinHeap open = new IndexedMinHeap(0);
+    private IntList[] buckets = new IntList[0];
+
+    private SearchContext() {
+    }
+
+    /**
+     * Gets this thread's context, sized for a board with the given tile count
+     * and reset for a new search.
+     */
+    static SearchContext begin(int tileCount) {
+        SearchContext context = CONTEXT.get();
+        context.ensureCapacity(tileCount);
+        context.nextGeneration();
+        return context;
+    }
+
+    private void ensureCapacity(int tileCount) {
+        if (stamp.length >= tileCount) {
+            return;
+        }
+
+        cost = new int[tileCount];
+        parent = new int[tileCount];
+        stamp = new int[tileCount];
+        closed = new int[tileCount];
+        generation = 0;
+        open.ensureCapacity(tileCount);
+    }
+
+    private void nextGeneration() {
+        open.clear();
+        generation++;
+        if (generation == 0) { // Wrapped around, old stamps could collide
+            Arrays.fill(stamp, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    int cost(int index) {
+        return stamp[index] == generation ? cost[index] : INF;
+    }
+
+    int parent(int index) {
+        return stamp[index] == generation ? parent[index] : NONE;
+    }
+
+    void set(int index, int newCost, int newParent) {
+        stamp[index] = generation;
+        cost[index] = newCost;
+        parent[index] = newParent;
+    }
+
+    boolean isClosed(int index) {
+        return closed[index] == generation;
+    }
+
+    void close(int index) {
+        closed[index] = generation;
+    }
+
+    /**
+     * Gets empty buckets 0..maxCost for a bucket queue search.
+     */
+    IntList[] buckets(int maxCost) {
+        if (buckets.length <= maxCost) {
+            IntList[] grown = Arrays.copyOf(buckets, maxCost + 1);
+            for (int i = buckets.length; i < grown.length; i++) {
+                grown[i] = new IntList();
+            }
+            buckets = grown;
+        }
+
+        for (int i = 0; i <= maxCost; i++) {
+            buckets[i].clear();
+        }
+        return buckets;
+    }
+}
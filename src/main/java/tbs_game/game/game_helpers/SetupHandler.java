@@ -6,7 +6,6 @@ import java.util.Random;
 import tbs_game.game.Game;
 import tbs_game.game.board.Board;
 import tbs_game.game.board.Terrain;
-import tbs_game.game.board.Tile;
 import tbs_game.hexes.AxialPos;
 
 public class SetupHandler {
@@ -14,48 +13,51 @@ public class SetupHandler {
     public static final int MIN_SPAWN_DIST = 4;
     public static final int MIN_EDGE_DIST = 2;
 
-    public static ArrayList<AxialPos> generateSpawnSpots(Game game, int seed) {
+    /**
+     * Picks a spawn spot per player, each as far as it can be from the ones
+     * before it, favoring spots among forest and away from water and
+     * mountains. See {@link SpawnField}.
+     */
+    public static ArrayList<AxialPos> generateSpawnSpots(Game game, long seed) {
         Random random = new Random(seed);
         Board board = game.getBoard();
 
         int numPlayers = game.getNumPlayers();
-        ArrayList<AxialPos> spawnableSpots = findSpawnableHexes(board);
+        SpawnField field = new SpawnField(game);
         ArrayList<AxialPos> spawnSpots = new ArrayList<>();
 
-        // Place first player
-        int randomIndex = random.nextInt(spawnableSpots.size());
-        AxialPos spawnPos = spawnableSpots.get(randomIndex);
-        spawnSpots.add(spawnPos);
+        // Place first player at a random spot, or the next one on with room for their other units
+        int spawn = -1;
+        int offset = field.size() == 0 ? 0 : random.nextInt(field.size());
+        for (int i = 0; i < field.size() && spawn < 0; i++) {
+            int candidate = (offset + i) % field.size();
+            if (field.hasRoom(candidate)) {
+                spawn = candidate;
+            }
+        }
+        if (spawn < 0) {
+            throw noRoom(numPlayers);
+        }
+        spawnSpots.add(board.getPos(field.tile(spawn)));
+        field.addSpawn(spawn);
 
         for (int i = 1; i < numPlayers; i++) {
-            AxialPos best = null;
-            int bestScore = -1;
-            for (AxialPos pos : spawnableSpots) {
-                if (getSpawnableNeighbors(game, pos).isEmpty()) {
-                    continue; // No place to put warrior after
-                }
-
-                int minDist = Integer.MAX_VALUE;
-
-                for (AxialPos spawn : spawnSpots) {
-                    minDist = Math.min(minDist, game.distanceBetween(spawn, pos));
-                }
-
-                int score = minDist * 10 + getSpawnScore(pos, board);
-
-                if (score > bestScore) {
-                    best = pos;
-                    bestScore = score;
-                }
+            int best = field.best();
+            if (best < 0) {
+                throw noRoom(numPlayers);
             }
-            spawnSpots.add(best);
-            spawnableSpots = updateSpawnableHexes(game, spawnableSpots, best);
+            spawnSpots.add(board.getPos(field.tile(best)));
+            field.addSpawn(best);
         }
 
         return spawnSpots;
     }
 
-    public static ArrayList<AxialPos> generateUnitSpawns(Game game, ArrayList<AxialPos> settlerLocations, int seed) {
+    private static IllegalStateException noRoom(int numPlayers) {
+        return new IllegalStateException("No room on the board to spawn " + numPlayers + " players");
+    }
+
+    public static ArrayList<AxialPos> generateUnitSpawns(Game game, ArrayList<AxialPos> settlerLocations, long seed) {
         Random random = new Random(seed);
         ArrayList<AxialPos> unitSpawns = new ArrayList<>();
         for (AxialPos spawn : settlerLocations) {
@@ -79,7 +81,7 @@ public class SetupHandler {
         return spawnableHexes;
     }
 
-    private static ArrayList<AxialPos> getSpawnableNeighbors(Game game, AxialPos pos) {
+    static ArrayList<AxialPos> getSpawnableNeighbors(Game game, AxialPos pos) {
         ArrayList<AxialPos> neighbors = pos.getNeighbors();
         ArrayList<AxialPos> locations = new ArrayList<>();
         for (AxialPos neighbor : neighbors) {
@@ -91,45 +93,40 @@ public class SetupHandler {
         return locations;
     }
 
-    private static ArrayList<AxialPos> updateSpawnableHexes(Game game, ArrayList<AxialPos> prevList, AxialPos newSpawnSpot) {
-        ArrayList<AxialPos> updatedPositions = new ArrayList<>();
-        for (AxialPos pos : prevList) {
-            if (game.distanceBetween(pos, newSpawnSpot) >= MIN_SPAWN_DIST) {
-                updatedPositions.add(pos);
-            }
-        }
-
-        return updatedPositions;
+    public static boolean isValidSpawn(AxialPos pos, Board board) {
+        int index = board.indexOf(pos);
+        return index >= 0 && isValidSpawn(index, board);
     }
 
-    public static boolean isValidSpawn(AxialPos pos, Board board) {
-        if (!board.isOnBoard(pos)) {
-            return false;
-        }
+    private static boolean isValidSpawn(int index, Board board) {
+        return board.isPassable(index) && index / board.getWidth() < spawnRows(board);
+    }
 
-        Tile tile = board.getTile(pos);
-        if (!tile.isPassable()) {
-            return false;
-        }
+    // How many rows from the top spawns may be in
+    static int spawnRows(Board board) {
         if (board.getHeight() < 10) {
-            return true; // small board - dont restrict vertical spawns
+            return board.getHeight(); // small board - dont restrict vertical spawns
         }
 
         int distToEdge = board.getHeight() / 2;
         int maxEquatorDist = distToEdge - MIN_EDGE_DIST;
-        return Math.abs(pos.r()) <= maxEquatorDist;
+        return maxEquatorDist + 1;
     }
 
     public static int getSpawnScore(AxialPos pos, Board board) {
-        if (!board.getTile(pos).isPassable()) {
+        return getSpawnScore(board.indexOf(pos), board);
+    }
+
+    public static int getSpawnScore(int index, Board board) {
+        if (!board.isPassable(index)) {
             return Integer.MIN_VALUE;
         }
 
         int score = 0;
 
-        int forestNeighbors = board.countNeighbors(pos, Terrain.FOREST);
-        int waterNeighbors = board.countNeighbors(pos, Terrain.WATER);
-        int mountainNeighbors = board.countNeighbors(pos, Terrain.MOUNTAIN);
+        int forestNeighbors = board.countNeighbors(index, Terrain.FOREST);
+        int waterNeighbors = board.countNeighbors(index, Terrain.WATER);
+        int mountainNeighbors = board.countNeighbors(index, Terrain.MOUNTAIN);
 
         score += forestNeighbors * 10;
         score += waterNeighbors * -5;
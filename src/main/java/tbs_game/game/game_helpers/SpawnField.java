@@ -0,0 +1,162 @@
+package tbs_game.game.game_helpers;
+
+import java.util.Arrays;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.utils.IntList;
+
+/**
+ * The tiles players may spawn on, each with its spawn score and its distance
+ * to the nearest spawn picked so far, for {@link SetupHandler} to pick spawns
+ * far apart.
+ *
+ * Candidates are kept in board order, grouped by row. A new spawn only lowers
+ * distances in rows closer to it than their furthest candidate, so only those
+ * rows are redone, and each row remembers its best candidate until it is.
+ */
+final class SpawnField {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte ROOM = 1;
+    private static final byte NO_ROOM = 2;
+    private static final int STALE = -2;
+
+    private final Game game;
+    private final Board board;
+    private final int width;
+    private final int height;
+
+    private final int[] tiles;
+    private final int[] scores;
+    private final int[] distances;
+    private final byte[] room; // Whether there is space beside it for the other units, worked out on first ask
+
+    private final int[] rowStart; // First candidate of each row, with one more entry for the end
+    private final int[] rowMax; // Furthest candidate distance in each row
+    private final int[] rowBest; // Best candidate in each row, -1 if none, STALE if not yet found
+
+    SpawnField(Game game) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+
+        IntList spawnable = new IntList();
+        IntList spawnScores = new IntList();
+        rowStart = new int[height + 1];
+        int rows = SetupHandler.spawnRows(board);
+        for (int row = 0; row < rows; row++) {
+            rowStart[row] = spawnable.size();
+            for (int tile = row * width; tile < (row + 1) * width; tile++) {
+                if (board.isPassable(tile)) {
+                    spawnable.add(tile);
+                    spawnScores.add(SetupHandler.getSpawnScore(tile, board));
+                }
+            }
+        }
+        Arrays.fill(rowStart, rows, height + 1, spawnable.size()); // Rows too near the edge have none
+
+        tiles = spawnable.toArray();
+        scores = spawnScores.toArray();
+        distances = new int[tiles.length];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        room = new byte[tiles.length];
+        rowMax = new int[height];
+        Arrays.fill(rowMax, Integer.MAX_VALUE);
+        rowBest = new int[height];
+        Arrays.fill(rowBest, STALE);
+    }
+
+    int size() {
+        return tiles.length;
+    }
+
+    int tile(int candidate) {
+        return tiles[candidate];
+    }
+
+    boolean hasRoom(int candidate) {
+        if (room[candidate] == UNKNOWN) {
+            boolean free = !SetupHandler.getSpawnableNeighbors(game, board.getPos(tiles[candidate])).isEmpty();
+            room[candidate] = free ? ROOM : NO_ROOM;
+        }
+        return room[candidate] == ROOM;
+    }
+
+    /**
+     * Lowers each candidate's distance to the new spawn's, where it is
+     * closer. Distances are wrapped hex distances, the same as
+     * {@link GameState#distanceBetween}.
+     */
+    void addSpawn(int candidate) {
+        int spawnRow = tiles[candidate] / width;
+        int spawnQ = tiles[candidate] % width - (spawnRow - (spawnRow & 1)) / 2;
+        for (int row = 0; row < height; row++) {
+            int dr = row - spawnRow;
+            if (rowStart[row] == rowStart[row + 1] || Math.abs(dr) >= rowMax[row]) {
+                continue; // Nothing in the row is further from its spawn than this row is from the new one
+            }
+
+            // The tile's q less the spawn's, once the row's start is taken off its index
+            int offset = row * width + (row - (row & 1)) / 2 + spawnQ;
+            int max = 0;
+            for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+                int dq = tiles[i] - offset;
+                int distance = Math.min(length(dq, dr), Math.min(length(dq - width, dr), length(dq + width, dr)));
+                distances[i] = Math.min(distances[i], distance);
+                max = Math.max(max, distances[i]);
+            }
+            rowMax[row] = max;
+            rowBest[row] = STALE;
+        }
+    }
+
+    /**
+     * The candidate with the best mix of distance and score, the first in
+     * board order on ties, or -1 if none is far enough from every spawn and
+     * has room.
+     */
+    int best() {
+        int best = -1;
+        int bestScore = -1;
+        for (int row = 0; row < height; row++) {
+            if (rowBest[row] == STALE) {
+                rowBest[row] = bestInRow(row);
+            }
+            int candidate = rowBest[row];
+            if (candidate >= 0 && score(candidate) > bestScore) {
+                best = candidate;
+                bestScore = score(candidate);
+            }
+        }
+        return best;
+    }
+
+    // Room is only checked for the winner, as it is the slow part. Spots without room are rare, so the row is
+    // just searched again without them
+    private int bestInRow(int row) {
+        while (true) {
+            int best = -1;
+            int bestScore = -1;
+            for (int i = rowStart[row]; i < rowStart[row + 1]; i++) {
+                int score = score(i);
+                if (distances[i] >= SetupHandler.MIN_SPAWN_DIST & room[i] != NO_ROOM & score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0 || hasRoom(best)) {
+                return best;
+            }
+        }
+    }
+
+    private int score(int candidate) {
+        return distances[candidate] * 10 + scores[candidate];
+    }
+
+    private static int length(int dq, int dr) {
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+    }
+}
@@ -2,9 +2,13 @@ package tbs_game.gui;
 
 import java.util.List;
 
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.StackPane;
-import tbs_game.game.ActionPath;
 import tbs_game.game.Game;
+import tbs_game.game.actions.EndTurnEvent;
+import tbs_game.game.actions.GameEvent;
+import tbs_game.game.actions.GameEventListener;
+import tbs_game.game.actions.MoveEvent;
 import tbs_game.gui.board.BoardView;
 import tbs_game.gui.camera.Camera;
 import tbs_game.gui.coord_systems.SceneDelta;
@@ -13,7 +17,7 @@ import tbs_game.gui.coord_systems.WorldPos;
 import tbs_game.gui.hud.HudView;
 import tbs_game.hexes.AxialPos;
 
-public class GameGUI {
+public class GameGUI implements GameEventListener {
 
   private double sceneWidth;
   private double sceneHeight;
@@ -57,6 +61,14 @@ public class GameGUI {
     });
 
     root.setOnMouseClicked(e -> handleClick(e.getX(), e.getY()));
+    root.setFocusTraversable(true);
+    root.setOnKeyPressed(e -> {
+      if (e.isShortcutDown() && e.getCode() == KeyCode.Z) {
+        undoMove();
+      } else if (e.isShortcutDown() && e.getCode() == KeyCode.Y) {
+        redoMove();
+      }
+    });
     root.setOnMouseMoved(e -> boardView.handleMouseMoved(e.getX(), e.getY()));
 
     // Panning and Zooming
@@ -87,8 +99,13 @@ public class GameGUI {
     return this.root;
   }
 
-  public void animateAIMove(ActionPath move, Runnable onFinish) {
-    this.boardView.animateAIMove(move, onFinish);
+  @Override
+  public void onEvent(GameEvent event, Runnable onFinish) {
+    switch (event) {
+      case MoveEvent move when move.applied() -> boardView.animateAIMove(move.move(), onFinish);
+      case MoveEvent move -> onFinish.run();
+      case EndTurnEvent endTurn -> onFinish.run();
+    }
   }
 
   public void updateHUD() {
@@ -99,6 +116,7 @@ public class GameGUI {
   }
 
   private void handleClick(double mouseX, double mouseY) {
+    root.requestFocus();
     if (!game.getActionQueue().isEmpty() || game.getCurrentPlayer().isAI()) {
       return;
     }
@@ -121,6 +139,28 @@ public class GameGUI {
     hudView.hideCombatPreview();
   }
 
+  private void undoMove() {
+    if (!canEditMoves() || !game.undoLastMove()) {
+      return;
+    }
+    boardView.nextTurn(); // Clears the selection and redraws units
+    hudView.updateHUD(null);
+    hudView.hideCombatPreview();
+  }
+
+  private void redoMove() {
+    if (!canEditMoves() || !game.redoMove()) {
+      return;
+    }
+    boardView.nextTurn();
+    hudView.updateHUD(null);
+    hudView.hideCombatPreview();
+  }
+
+  private boolean canEditMoves() {
+    return game.getActionQueue().isEmpty() && game.isUsersTurn() && !boardView.isAnimating();
+  }
+
   // Snaps the camera to a unit
   private void snapCameraToUnit() {
     List<AxialPos> unitPositions = game.getPositionsForPlayer(game.getCurrentPlayer());
@@ -120,6 +120,10 @@ public class BoardView {
   }
 
   // ----- Drawing -----
+  public boolean isAnimating() {
+    return this.isAnimating;
+  }
+
   public void nextTurn() {
     clearSelection();
   }
@@ -49,7 +49,8 @@ public class BoardLayer {
 
     Board board = game.getBoard();
 
-    for (AxialPos pos : board.getPositions()) {
+    for (int i = 0; i < board.getTileCount(); i++) {
+      AxialPos pos = board.getPos(i);
       WorldPos hexCenter = HexMath.axialToWorldPos(pos);
 
       // Visible outline hex
@@ -61,7 +62,7 @@ public class BoardLayer {
       // Separate hex for clipping
       Polygon clipHex = HexFactory.createHex(hexCenter);
 
-      Terrain terrain = board.getTile(pos).getTerrain();
+      Terrain terrain = board.getTerrain(i);
       Node baseTerrain = TerrainRenderer.renderBaseTerrain(terrain, hexCenter);
       baseTerrain.setClip(clipHex);
 
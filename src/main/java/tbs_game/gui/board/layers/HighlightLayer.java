@@ -1,5 +1,6 @@
 package tbs_game.gui.board.layers;
 
+import java.util.BitSet;
 import java.util.Set;
 
 import javafx.geometry.Point2D;
@@ -48,16 +49,25 @@ public class HighlightLayer {
 
     highlightRoot.getChildren().add(outline);
 
+    Board board = game.getBoard();
+    BitSet reachableTiles = new BitSet(board.getTileCount());
+    for (AxialPos pos : reachableHexes) {
+      int index = board.indexOf(game.wrap(pos));
+      if (index >= 0) {
+        reachableTiles.set(index);
+      }
+    }
+
     // Draw outline for reachable hexes
     for (AxialPos pos : reachableHexes) {
       WorldPos reachableCenter = HexMath.axialToWorldPos(pos);
       WorldPos[] corners = HexFactory.hexCorners(reachableCenter);
+      int index = board.indexOf(game.wrap(pos));
 
       for (int edge = 0; edge < 6; edge++) {
-        AxialPos rawNeighbor = pos.neighbor(edge);
-        AxialPos neighbor = game.wrap(rawNeighbor);
+        int neighbor = index < 0 ? -1 : board.neighbor(index, edge);
 
-        if (reachableHexes.contains(neighbor)) {
+        if (neighbor >= 0 && reachableTiles.get(neighbor)) {
           continue; // interior edge
         }
 
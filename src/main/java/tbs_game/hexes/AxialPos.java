@@ -66,7 +66,7 @@ public class AxialPos {
     }
 
     public ArrayList<AxialPos> getNeighbors() {
-        ArrayList<AxialPos> neighbors = new ArrayList<>();
+        ArrayList<AxialPos> neighbors = new ArrayList<>(6);
         for (int i = 0; i < 6; i++) {
             neighbors.add(neighbor(i));
         }
@@ -103,6 +103,10 @@ public class AxialPos {
         return subtract(other).length();
     }
 
+    public int pack() {
+        return PackedHex.pack(q, r);
+    }
+
     public OffsetPos toOffset() {
         int parity = r & 1;
         int col = q + (int) ((r + OffsetPos.OFFSET * parity) / 2);
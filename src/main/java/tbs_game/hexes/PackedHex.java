@@ -0,0 +1,97 @@
+package tbs_game.hexes;
+
+/**
+ * Static helpers for axial hex coordinates packed into a single int. The q
+ * coordinate lives in the high 16 bits and r in the low 16 bits, both signed,
+ * so any coordinate in [-32768, 32767] can be represented. Packed hexes let hot
+ * paths walk the board without allocating an {@link AxialPos} per step.
+ */
+public final class PackedHex {
+
+    // Same order as AxialPos.directions
+    private static final int[] DQ = {1, 1, 0, -1, -1, 0};
+    private static final int[] DR = {0, -1, -1, 0, 1, 1};
+
+    private PackedHex() {
+    }
+
+    public static int pack(int q, int r) {
+        return (q << 16) | (r & 0xFFFF);
+    }
+
+    public static int pack(AxialPos pos) {
+        return pack(pos.q, pos.r);
+    }
+
+    public static int q(int hex) {
+        return hex >> 16;
+    }
+
+    public static int r(int hex) {
+        return (short) hex;
+    }
+
+    public static AxialPos toAxial(int hex) {
+        return new AxialPos(q(hex), r(hex));
+    }
+
+    /**
+     * Gets the i-th neighbor of a packed hex, using the same direction order as
+     * {@link AxialPos#neighbor(int)}.
+     */
+    public static int neighbor(int hex, int direction) {
+        return pack(q(hex) + DQ[direction], r(hex) + DR[direction]);
+    }
+
+    /**
+     * Computes distance in infinite axial hex space. Does not wrap.
+     */
+    public static int distance(int a, int b) {
+        return length(q(a) - q(b), r(a) - r(b));
+    }
+
+    /**
+     * Computes the distance between two hexes on a board that wraps
+     * horizontally every {@code width} columns.
+     */
+    public static int wrappedDistance(int a, int b, int width) {
+        int dq = q(a) - q(b);
+        int dr = r(a) - r(b);
+
+        // Same three images as GameState.distanceBetween: q - width, q and q + width
+        int min = length(dq, dr);
+        min = Math.min(min, length(dq - width, dr));
+        min = Math.min(min, length(dq + width, dr));
+        return min;
+    }
+
+    private static int length(int dq, int dr) {
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(-dq - dr)) / 2;
+    }
+
+    // ----- Offset conversion -----
+    public static int toCol(int hex) {
+        int r = r(hex);
+        return q(hex) + (r + OffsetPos.OFFSET * (r & 1)) / 2;
+    }
+
+    public static int toRow(int hex) {
+        return r(hex);
+    }
+
+    public static int fromOffset(int col, int row) {
+        int q = col - (row + OffsetPos.OFFSET * (row & 1)) / 2;
+        return pack(q, row);
+    }
+
+    /**
+     * Wraps a hex horizontally so its offset column lies in [0, width).
+     */
+    public static int wrap(int hex, int width) {
+        int col = toCol(hex);
+        if (col >= 0 && col < width) {
+            return hex;
+        }
+        return fromOffset(Math.floorMod(col, width), toRow(hex));
+    }
+}
@@ -1,9 +1,33 @@
 package tbs_game.player;
 
+import java.util.List;
+
+import tbs_game.game.ActionPath;
 import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
 
 public interface AI {
 
-    public void doTurn(Game game, Player player);
+    /**
+     * Plans a whole turn for the player within the budget. Once the budget
+     * expires or is cancelled, returns the best moves found so far instead
+     * of the best it could do. May be called off the game thread, so it must
+     * only read the given state, never the game, and must leave the state
+     * unchanged. One AI is never asked to plan on two threads at once.
+     *
+     * @return the moves to make, in order. The turn ends after them
+     */
+    public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget);
+
+    public default List<ActionPath> planTurn(GameState state, Player player) {
+        return planTurn(state, player, TurnBudget.unlimited());
+    }
+
+    public default void doTurn(Game game, Player player, TurnBudget budget) {
+        game.getActionQueue().addTurn(planTurn(game.copyState(), player, budget));
+    }
 
+    public default void doTurn(Game game, Player player) {
+        doTurn(game, player, TurnBudget.unlimited());
+    }
 }
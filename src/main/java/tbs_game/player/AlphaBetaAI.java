@@ -0,0 +1,123 @@
+package tbs_game.player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.AxialPos;
+import tbs_game.utils.IntList;
+
+/**
+ * Tactical AI for small battles. Picks one unit's action at a time with an
+ * iteratively deepened alpha-beta search, splitting the turn's time budget
+ * evenly between the units still to act. Units left once the budget runs out
+ * stay put.
+ */
+public class AlphaBetaAI implements AI {
+
+    public static final int DEFAULT_MAX_DEPTH = 32;
+
+    /**
+     * Work done planning one turn. Depth is the shallowest finished iteration
+     * over the turn's decisions.
+     */
+    public record Stats(long nodes, int depth, long elapsedNanos) {
+
+        public double nodesPerMilli() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e6 / elapsedNanos;
+        }
+    }
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private Stats lastStats = new Stats(0, 0, 0);
+
+    public AlphaBetaAI(long budgetMillis) {
+        this(budgetMillis, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param budgetMillis - Time to spend planning each turn
+     * @param maxDepth - Deepest search, in unit actions. With a budget that
+     * is never reached, turns are deterministic
+     */
+    public AlphaBetaAI(long budgetMillis, int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        this.budgetNanos = budgetMillis * 1_000_000;
+        this.maxDepth = maxDepth;
+    }
+
+    public Stats getLastStats() {
+        return lastStats;
+    }
+
+    @Override
+    public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+        long start = System.nanoTime();
+        TurnBudget turn = budget.capped(budgetNanos);
+
+        GameState sim = state.createSimluationCopy();
+        sim.setCurrentPlayer(player);
+        AlphaBetaSearch search = new AlphaBetaSearch(sim, seatOf(sim, player));
+        MovementPlanner planner = new MovementPlanner(sim);
+        ActionExecutor executor = new ActionExecutor(sim);
+
+        IntList order = new IntList();
+        sim.getUnitTilesForPlayer(player, order);
+
+        List<ActionPath> actions = new ArrayList<>();
+        int depth = order.isEmpty() ? 0 : maxDepth;
+        for (int k = 0; k < order.size() && !turn.isExpired(); k++) {
+            long action = search.bestAction(order, k, maxDepth, turn.split(order.size() - k));
+            depth = Math.min(depth, search.getCompletedDepth());
+
+            ActionPath planned = toPath(sim, planner, order.get(k), action);
+            if (planned != null && executor.resolvePath(planned)) {
+                actions.add(planned);
+            }
+            sim.clearJournal();
+        }
+
+        lastStats = new Stats(search.getNodes(), depth, System.nanoTime() - start);
+        return actions;
+    }
+
+    // Path the executor will follow to carry out a searched action, or null to stay
+    private static ActionPath toPath(GameState sim, MovementPlanner planner, int from, long action) {
+        int to = AlphaBetaSearch.target(action);
+        if (to == from) {
+            return null;
+        }
+
+        Board board = sim.getBoard();
+        AxialPos fromPos = board.getPos(from);
+        AxialPos toPos = board.getPos(to);
+        int attackFrom = AlphaBetaSearch.attackFrom(action);
+        if (attackFrom < 0) {
+            return planner.planAction(fromPos, toPos);
+        }
+
+        // Attack from the same tile the search did
+        ArrayList<AxialPos> path = planner.findPath(fromPos, board.getPos(attackFrom));
+        if (path == null) {
+            return null;
+        }
+        path.add(toPos);
+        return new ActionPath(fromPos, toPos, path, planner.countMovementCost(path));
+    }
+
+    private static int seatOf(GameState state, Player player) {
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (state.getPlayer(seat) == player) {
+                return seat;
+            }
+        }
+        throw new IllegalArgumentException("Player is not in this game");
+    }
+}
@@ -0,0 +1,457 @@
+package tbs_game.player;
+
+import java.util.Arrays;
+
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+/**
+ * Depth limited alpha-beta search over single unit actions. One ply is one
+ * unit staying, moving, attacking, or moving then attacking, so depth counts
+ * unit actions rather than turns. Once all of a player's units have acted the
+ * turn passes on. With more than two players, every other player is treated
+ * as one opponent minimizing our score (paranoid search).
+ *
+ * Actions are made and unmade on one state through its journal. Attacks are
+ * tried first, kills and then most valuable victim / least valuable attacker
+ * (MVV-LVA), and the best root action of the last iteration goes first.
+ *
+ * Actions are packed into longs so move lists can be sorted in place:
+ * ordering key, move cost, tile attacked from (plus one) and target tile.
+ */
+class AlphaBetaSearch {
+
+    static final int WIN = 1_000_000;
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    // Evaluation weights
+    private static final int UNIT_WEIGHT = 100;
+    private static final int HP_WEIGHT = 10;
+    private static final int THREAT_WEIGHT = 3;
+
+    // Ordering priorities, higher first
+    private static final int MAX_PRIORITY = 0x7FFF;
+    private static final int KILL = 20_000;
+    private static final int ATTACK = 10_000;
+    private static final int MOVE = 5_000;
+
+    private static final long TILE_MASK = (1L << 20) - 1;
+    private static final int CHECK_INTERVAL = 1023;
+
+    private static final UnitType[] TYPES = UnitType.values();
+    private static final int[] VALUES = new int[TYPES.length];
+
+    static {
+        for (UnitType type : TYPES) {
+            VALUES[type.ordinal()] = type.attackDamage * type.maxHp;
+        }
+    }
+
+    private final GameState state;
+    private final Board board;
+    private final int ourSeat;
+    private final MovementPlanner planner;
+    private final ActionExecutor executor;
+
+    // Scratch shared by every ply, only used while a node generates its moves
+    private final IntList reach = new IntList();
+    private final IntList parents = new IntList();
+    private final IntList costs = new IntList();
+    private final IntList seatTiles = new IntList();
+    private final IntList attackPath = new IntList();
+
+    // Every unit in the state, as loaded by loadUnits
+    private int[] unitTile = new int[0];
+    private int[] unitHex = new int[0];
+    private int[] unitType = new int[0];
+    private int[] unitHp = new int[0];
+    private int[] unitSeat = new int[0];
+    private int unitCount;
+
+    // Per ply move lists, and the unit order of turns that start at that ply
+    private long[][] moves = new long[0][];
+    private IntList[] turnOrders = new IntList[0];
+
+    private long nodes;
+    private int completedDepth;
+    private TurnBudget budget;
+    private boolean aborted;
+    private boolean hitDepthLimit;
+
+    /**
+     * @param state - A copy this search may change freely. Turns journaling on
+     */
+    AlphaBetaSearch(GameState state, int ourSeat) {
+        this.state = state;
+        this.board = state.getBoard();
+        this.ourSeat = ourSeat;
+        this.planner = new MovementPlanner(state);
+        this.executor = new ActionExecutor(state);
+        state.setJournaling(true);
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Depth of the last iteration {@link #bestAction} finished.
+     */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Searches with iterative deepening for the action of the unit at
+     * order[k], where units order[0..k) of the current player have acted.
+     *
+     * @return the best action, packed as described above
+     */
+    long bestAction(IntList order, int k, int maxDepth, TurnBudget budget) {
+        this.budget = budget;
+        this.aborted = false;
+
+        int from = order.get(k);
+        long best = 0;
+        completedDepth = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            hitDepthLimit = false;
+            long found = searchRoot(depth, from, order, k, best);
+            if (aborted) {
+                if (best == 0) {
+                    best = found; // Better than nothing
+                }
+                break;
+            }
+            best = found;
+            completedDepth = depth;
+            if (!hitDepthLimit) {
+                break; // Every line ends the game before the depth limit
+            }
+        }
+        return best;
+    }
+
+    private long searchRoot(int depth, int from, IntList order, int k, long previousBest) {
+        int n = generate(0, ourSeat, from);
+        long[] list = moves[0];
+        for (int i = 1; i < n; i++) {
+            if (sameAction(list[i], previousBest)) {
+                long pv = list[i];
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = pv;
+                break;
+            }
+        }
+
+        long best = list[0];
+        int alpha = -INF;
+        for (int i = 0; i < n; i++) {
+            long action = list[i];
+            int mark = state.mark();
+            make(from, action);
+            int value = search(1, depth - 1, alpha, INF, ourSeat, order, k + 1);
+            state.rollback(mark);
+            if (aborted) {
+                break;
+            }
+            if (value > alpha) {
+                alpha = value;
+                best = action;
+            }
+        }
+        return best;
+    }
+
+    private int search(int ply, int depth, int alpha, int beta, int seat, IntList order, int k) {
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0 && budget.isExpired()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        int terminal = terminalScore(depth);
+        if (terminal != 0) {
+            return terminal;
+        }
+        if (depth == 0) {
+            hitDepthLimit = true;
+            return evaluate();
+        }
+
+        if (k == order.size()) {
+            // Turn passes to the next player with units. Undone by the caller's rollback
+            seat = nextSeat(seat);
+            Player next = state.getPlayer(seat);
+            state.setCurrentPlayer(next);
+            state.startTurn(next);
+            order = turnOrder(ply);
+            state.getUnitTilesForPlayer(next, order);
+            k = 0;
+        }
+
+        int from = order.get(k);
+        int n = generate(ply, seat, from);
+        long[] list = moves[ply];
+        boolean maximizing = seat == ourSeat;
+        int best = maximizing ? -INF : INF;
+
+        for (int i = 0; i < n; i++) {
+            int mark = state.mark();
+            make(from, list[i]);
+            int value = search(ply + 1, depth - 1, alpha, beta, seat, order, k + 1);
+            state.rollback(mark);
+            if (aborted) {
+                return 0;
+            }
+
+            if (maximizing) {
+                best = Math.max(best, value);
+                alpha = Math.max(alpha, value);
+            } else {
+                best = Math.min(best, value);
+                beta = Math.min(beta, value);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    // ----- ACTIONS -----
+    static int target(long action) {
+        return (int) (action & TILE_MASK);
+    }
+
+    static int attackFrom(long action) {
+        return (int) ((action >>> 20) & TILE_MASK) - 1;
+    }
+
+    private static int cost(long action) {
+        return (int) ((action >>> 40) & 0xFF);
+    }
+
+    private static long pack(int priority, int target, int attackFrom, int cost) {
+        return ((long) (MAX_PRIORITY - priority) << 48) | ((long) cost << 40)
+                | ((long) (attackFrom + 1) << 20) | target;
+    }
+
+    private static boolean sameAction(long a, long b) {
+        return target(a) == target(b) && attackFrom(a) == attackFrom(b);
+    }
+
+    /**
+     * Applies an action the same way {@link ActionExecutor#resolve} would.
+     */
+    void make(int from, long action) {
+        int to = target(action);
+        if (to == from) {
+            return; // Stay
+        }
+
+        Unit unit = state.getUnitAt(from);
+        if (state.getUnitAt(to) == null) {
+            state.moveUnitInternal(from, to);
+            unit.spendMovementPoints(cost(action));
+            return;
+        }
+
+        int attackFrom = attackFrom(action);
+        if (attackFrom == NONE) {
+            executor.attack(from, to);
+        } else {
+            state.moveUnitInternal(from, attackFrom);
+            unit.spendMovementPoints(cost(action));
+            executor.attack(attackFrom, to);
+        }
+    }
+
+    // Fills the ply's move list with the unit's actions, best first
+    private int generate(int ply, int seat, int from) {
+        loadUnits();
+        long[] list = moveList(ply, unitCount + 1);
+        Unit unit = state.getUnitAt(from);
+        UnitType type = unit.getType();
+        int fromHex = board.hexAt(from);
+
+        int n = 0;
+        list[n++] = pack(MOVE - nearestEnemy(seat, fromHex), from, NONE, 0);
+
+        // Direct attacks, including ranged ones past the tiles the unit can reach. The game only takes them
+        // when the unit could afford the path to the target, so neither does the search
+        if (type.attackRange > 0) {
+            for (int i = 0; i < unitCount; i++) {
+                if (unitSeat[i] != seat && state.distanceBetween(fromHex, unitHex[i]) <= type.attackRange
+                        && canAffordPath(from, unitTile[i], unit.getMovementPoints())) {
+                    list[n++] = pack(attackPriority(type, i), unitTile[i], NONE, 0);
+                }
+            }
+        }
+
+        planner.getReachableTiles(from, reach, parents, costs);
+        list = moveList(ply, n + reach.size());
+        for (int i = 0; i < reach.size(); i++) {
+            int to = reach.get(i);
+            int toHex = board.hexAt(to);
+            if (state.getUnitAt(to) == null) {
+                list[n++] = pack(MOVE - nearestEnemy(seat, toHex), to, NONE, costs.get(i));
+            } else if (state.distanceBetween(fromHex, toHex) > type.attackRange) {
+                int via = parents.get(i);
+                list[n++] = pack(attackPriority(type, unitAt(to)), to, via, costs.get(i) - board.cost(to));
+            }
+        }
+
+        Arrays.sort(list, 0, n);
+        return n;
+    }
+
+    private boolean canAffordPath(int from, int to, int movement) {
+        int cost = planner.findPath(from, to, attackPath);
+        return cost >= 0 && cost <= movement;
+    }
+
+    // Kills first, then most valuable victim, then least valuable attacker
+    private int attackPriority(UnitType attacker, int victim) {
+        int base = unitHp[victim] <= attacker.attackDamage ? KILL : ATTACK;
+        return base + VALUES[unitType[victim]] * 10 - VALUES[attacker.ordinal()];
+    }
+
+    private int nearestEnemy(int seat, int hex) {
+        int nearest = MOVE - 1;
+        for (int i = 0; i < unitCount; i++) {
+            if (unitSeat[i] != seat) {
+                nearest = Math.min(nearest, state.distanceBetween(hex, unitHex[i]));
+            }
+        }
+        return nearest;
+    }
+
+    // ----- EVALUATION -----
+    /**
+     * Score of the state for us: material, health, and how much damage each
+     * side can deal the other next turn.
+     */
+    int evaluate() {
+        loadUnits();
+
+        int score = 0;
+        for (int i = 0; i < unitCount; i++) {
+            int material = UNIT_WEIGHT + VALUES[unitType[i]] + HP_WEIGHT * unitHp[i];
+            if (unitSeat[i] != ourSeat) {
+                score -= material;
+                continue;
+            }
+            score += material;
+
+            for (int j = 0; j < unitCount; j++) {
+                if (unitSeat[j] != ourSeat) {
+                    int distance = state.distanceBetween(unitHex[i], unitHex[j]);
+                    score += THREAT_WEIGHT * (threat(i, j, distance) - threat(j, i, distance));
+                }
+            }
+        }
+        return score;
+    }
+
+    // Damage the attacker could deal the defender next turn, ignoring terrain
+    private int threat(int attacker, int defender, int distance) {
+        UnitType type = TYPES[unitType[attacker]];
+        if (type.attackRange == 0 || distance > type.moveRange + type.attackRange) {
+            return 0;
+        }
+        return Math.min(type.attackDamage, unitHp[defender]);
+    }
+
+    // Copies every unit's tile, hex, type, health and seat into the unit arrays
+    private void loadUnits() {
+        unitCount = 0;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            state.getUnitTilesForPlayer(state.getPlayer(seat), seatTiles);
+            if (unitCount + seatTiles.size() > unitTile.length) {
+                growUnits(unitCount + seatTiles.size());
+            }
+            for (int i = 0; i < seatTiles.size(); i++) {
+                int tile = seatTiles.get(i);
+                Unit unit = state.getUnitAt(tile);
+                unitTile[unitCount] = tile;
+                unitHex[unitCount] = board.hexAt(tile);
+                unitType[unitCount] = unit.getType().ordinal();
+                unitHp[unitCount] = unit.getHealth();
+                unitSeat[unitCount] = seat;
+                unitCount++;
+            }
+        }
+    }
+
+    private int unitAt(int tile) {
+        for (int i = 0; i < unitCount; i++) {
+            if (unitTile[i] == tile) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No unit at tile " + tile);
+    }
+
+    // Nonzero once one side has no units left. Sooner wins score higher
+    private int terminalScore(int depth) {
+        if (state.getUnitCount(state.getPlayer(ourSeat)) == 0) {
+            return -WIN - depth;
+        }
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (seat != ourSeat && state.getUnitCount(state.getPlayer(seat)) > 0) {
+                return 0;
+            }
+        }
+        return WIN + depth;
+    }
+
+    private int nextSeat(int seat) {
+        int count = state.getPlayerCount();
+        for (int i = 1; i <= count; i++) {
+            int next = (seat + i) % count;
+            if (state.getUnitCount(state.getPlayer(next)) > 0) {
+                return next;
+            }
+        }
+        return seat;
+    }
+
+    // ----- SCRATCH -----
+    private long[] moveList(int ply, int size) {
+        if (ply >= moves.length) {
+            moves = Arrays.copyOf(moves, ply + 1);
+        }
+        if (moves[ply] == null || moves[ply].length < size) {
+            moves[ply] = moves[ply] == null ? new long[Math.max(size, 64)] : Arrays.copyOf(moves[ply], size * 2);
+        }
+        return moves[ply];
+    }
+
+    private void growUnits(int size) {
+        int capacity = Math.max(size, unitTile.length * 2);
+        unitTile = Arrays.copyOf(unitTile, capacity);
+        unitHex = Arrays.copyOf(unitHex, capacity);
+        unitType = Arrays.copyOf(unitType, capacity);
+        unitHp = Arrays.copyOf(unitHp, capacity);
+        unitSeat = Arrays.copyOf(unitSeat, capacity);
+    }
+
+    private IntList turnOrder(int ply) {
+        if (ply >= turnOrders.length) {
+            turnOrders = Arrays.copyOf(turnOrders, ply + 1);
+        }
+        if (turnOrders[ply] == null) {
+            turnOrders[ply] = new IntList();
+        }
+        return turnOrders[ply];
+    }
+}
@@ -0,0 +1,199 @@
+package tbs_game.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.AxialPos;
+import tbs_game.units.Unit;
+import tbs_game.utils.IntList;
+import tbs_game.utils.Zobrist;
+
+/**
+ * Plans each turn with Monte Carlo tree search. Uses root parallelism: every
+ * worker searches its own copy of the game with its own tree, and the trees
+ * are merged by visit count once the time budget runs out or is cancelled. Workers share
+ * nothing while searching, so playouts scale with cores.
+ */
+public class MctsAI implements AI {
+
+    public static final int DEFAULT_ROLLOUT_ROUNDS = 2;
+
+    // Shared by every MctsAI, so AIs made for each game or match leave no threads behind
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Work done planning one turn.
+     */
+    public record Stats(long playouts, long elapsedNanos, int threads) {
+
+        public double playoutsPerSecond() {
+            return elapsedNanos == 0 ? 0 : playouts * 1e9 / elapsedNanos;
+        }
+    }
+
+    private final long budgetNanos;
+    private final int threads;
+    private final long maxPlayouts;
+    private final int rolloutRounds;
+    private final long seed;
+
+    private volatile Stats lastStats = new Stats(0, 0, 0);
+
+    public MctsAI(long budgetMillis) {
+        this(budgetMillis, Runtime.getRuntime().availableProcessors(), 0, Game.SEED);
+    }
+
+    /**
+     * @param budgetMillis - Time to spend planning each turn
+     * @param threads - Number of parallel searches. All MctsAIs share a pool
+     * with one worker per core, so searches past that wait for a free worker
+     * @param maxPlayouts - Cap on playouts per turn across all threads, or 0
+     * for none. With one thread and a cap, turns are deterministic
+     * @param seed - Seed for the rollout policy
+     */
+    public MctsAI(long budgetMillis, int threads, long maxPlayouts, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.budgetNanos = budgetMillis * 1_000_000;
+        this.threads = threads;
+        this.maxPlayouts = maxPlayouts;
+        this.rolloutRounds = DEFAULT_ROLLOUT_ROUNDS;
+        this.seed = seed;
+    }
+
+    public Stats getLastStats() {
+        return lastStats;
+    }
+
+    @Override
+    public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+        IntList tiles = new IntList();
+        state.getUnitTilesForPlayer(player, tiles);
+        if (tiles.isEmpty()) {
+            return List.of();
+        }
+        int[] unitTiles = tiles.toArray();
+
+        // Seeded from the state, so a turn plans the same whether or not others were planned first
+        long turnSeed = Zobrist.mix(seed) ^ state.hash();
+
+        // Forking is not thread safe, so every worker's copy is made here
+        List<MctsSearch> searches = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long searchSeed = turnSeed * 31 + t;
+            searches.add(new MctsSearch(state.createSimluationCopy(), player, unitTiles, rolloutRounds, searchSeed));
+        }
+
+        long start = System.nanoTime();
+        TurnBudget searchBudget = budget.capped(budgetNanos);
+        long perThreadCap = maxPlayouts == 0 ? 0 : Math.max(1, maxPlayouts / threads);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(threads);
+        for (MctsSearch search : searches) {
+            tasks.add(POOL.submit(() -> search.run(searchBudget, perThreadCap)));
+        }
+        long playouts = 0;
+        for (int t = 0; t < threads; t++) {
+            tasks.get(t).join();
+            playouts += searches.get(t).getPlayouts();
+        }
+        lastStats = new Stats(playouts, System.nanoTime() - start, threads);
+
+        return toActions(state, mergedPlan(searches, unitTiles.length));
+    }
+
+    // Follows the most visited move at each depth, summing visits across the trees
+    private static List<MctsSearch.Node> mergedPlan(List<MctsSearch> searches, int depth) {
+        List<MctsSearch.Node> level = new ArrayList<>();
+        for (MctsSearch search : searches) {
+            level.add(search.getRoot());
+        }
+
+        List<MctsSearch.Node> plan = new ArrayList<>(depth);
+        for (int d = 0; d < depth && !level.isEmpty(); d++) {
+            MctsSearch.Node best = null;
+            int bestVisits = 0;
+            for (MctsSearch.Node node : level) {
+                if (node.children == null) {
+                    continue;
+                }
+                for (MctsSearch.Node child : node.children) {
+                    int visits = visitsAcross(level, child.to);
+                    if (visits > bestVisits) {
+                        best = child;
+                        bestVisits = visits;
+                    }
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            plan.add(best);
+
+            List<MctsSearch.Node> next = new ArrayList<>();
+            for (MctsSearch.Node node : level) {
+                MctsSearch.Node match = childTo(node, best.to);
+                if (match != null) {
+                    next.add(match);
+                }
+            }
+            level = next;
+        }
+        return plan;
+    }
+
+    private static int visitsAcross(List<MctsSearch.Node> level, int to) {
+        int visits = 0;
+        for (MctsSearch.Node node : level) {
+            MctsSearch.Node child = childTo(node, to);
+            if (child != null) {
+                visits += child.visits;
+            }
+        }
+        return visits;
+    }
+
+    private static MctsSearch.Node childTo(MctsSearch.Node node, int to) {
+        if (node.children == null) {
+            return null;
+        }
+        for (MctsSearch.Node child : node.children) {
+            if (child.to == to) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    // Replays the plan on a copy to get the path each move takes
+    private static List<ActionPath> toActions(GameState state, List<MctsSearch.Node> plan) {
+        GameState sim = state.createSimluationCopy();
+        MovementPlanner planner = new MovementPlanner(sim);
+        ActionExecutor executor = new ActionExecutor(sim);
+
+        List<ActionPath> actions = new ArrayList<>();
+        for (MctsSearch.Node move : plan) {
+            if (move.from == move.to) {
+                continue;
+            }
+            Unit unit = sim.getUnitAt(move.from);
+            if (unit == null) {
+                continue;
+            }
+
+            AxialPos from = sim.getBoard().getPos(move.from);
+            ActionPath planned = planner.planAction(from, sim.getBoard().getPos(move.to));
+            if (planned != null && planned.cost <= unit.getMovementPoints() && executor.resolve(planned)) {
+                actions.add(planned);
+            }
+        }
+        return actions;
+    }
+}
@@ -0,0 +1,284 @@
+package tbs_game.player;
+
+import java.util.SplittableRandom;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.AxialPos;
+import tbs_game.units.Unit;
+import tbs_game.utils.IntList;
+
+/**
+ * One single threaded Monte Carlo tree search over a player's turn. Depth d of
+ * the tree is the choice of destination for the player's d-th unit, so a path
+ * from the root is a full turn. Units below the tree and every later turn are
+ * played out by a light random policy. A playout is scored by the player's
+ * share of units and health right after its turn, averaged with its share of
+ * health at the end of the rollout, so a kill this turn beats one the random
+ * policy may or may not find later.
+ *
+ * Each iteration plays on the same state and rolls it back with the journal,
+ * so nothing is copied per playout.
+ */
+class MctsSearch {
+
+    private static final double EXPLORATION = 1.4;
+
+    static final class Node {
+
+        final int from;
+        final int to; // Same as from to stay put
+        Node[] children;
+        int visits;
+        double value;
+
+        Node(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        double mean() {
+            return visits == 0 ? 0 : value / visits;
+        }
+    }
+
+    private final GameState state;
+    private final Player player;
+    private final int[] unitTiles;
+    private final int rolloutRounds;
+    private final SplittableRandom random;
+
+    private final MovementPlanner planner;
+    private final ActionExecutor executor;
+    private final IntList reachable = new IntList();
+    private final IntList turnUnits = new IntList();
+
+    private final Node root = new Node(-1, -1);
+    private long playouts;
+
+    /**
+     * @param state - A copy this search may change freely. Turns journaling on
+     * @param unitTiles - Tiles of the player's units, in decision order
+     */
+    MctsSearch(GameState state, Player player, int[] unitTiles, int rolloutRounds, long seed) {
+        this.state = state;
+        this.player = player;
+        this.unitTiles = unitTiles;
+        this.rolloutRounds = rolloutRounds;
+        this.random = new SplittableRandom(seed);
+
+        this.planner = new MovementPlanner(state);
+        this.executor = new ActionExecutor(state);
+        state.setJournaling(true);
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    long getPlayouts() {
+        return playouts;
+    }
+
+    /**
+     * Runs playouts until the budget expires or the playout cap is reached,
+     * whichever is first.
+     *
+     * @param maxPlayouts - Cap on playouts, or 0 for none
+     */
+    void run(TurnBudget budget, long maxPlayouts) {
+        while ((maxPlayouts == 0 || playouts < maxPlayouts) && !budget.isExpired()) {
+            playout();
+        }
+    }
+
+    void playout() {
+        int mark = state.mark();
+
+        Node[] path = new Node[unitTiles.length + 1];
+        path[0] = root;
+        int depth = 0;
+        Node node = root;
+        while (depth < unitTiles.length) {
+            if (node.children == null) {
+                expand(node, unitTiles[depth]);
+            }
+            Node child = select(node);
+            applyMove(child.from, child.to);
+            path[++depth] = child;
+            node = child;
+            if (child.visits == 0) {
+                break; // Newly expanded, play out from here
+            }
+        }
+
+        // Units below the tree move by the rollout policy
+        for (int i = depth; i < unitTiles.length; i++) {
+            playUnit(unitTiles[i]);
+        }
+        double afterTurn = materialShare();
+        rollout();
+        double score = (afterTurn + healthShare()) / 2;
+
+        for (int i = 0; i <= depth; i++) {
+            path[i].visits++;
+            path[i].value += score;
+        }
+        playouts++;
+        state.rollback(mark);
+    }
+
+    private void expand(Node node, int from) {
+        if (state.getUnitAt(from) == null) {
+            node.children = new Node[]{new Node(from, from)};
+            return;
+        }
+
+        planner.getReachableTiles(from, reachable);
+        Node[] children = new Node[reachable.size() + 1];
+        children[0] = new Node(from, from);
+        for (int i = 0; i < reachable.size(); i++) {
+            children[i + 1] = new Node(from, reachable.get(i));
+        }
+        node.children = children;
+    }
+
+    // Unvisited children first, in random order, then UCB1
+    private Node select(Node node) {
+        Node[] children = node.children;
+        int unvisited = 0;
+        for (Node child : children) {
+            if (child.visits == 0) {
+                unvisited++;
+            }
+        }
+        if (unvisited > 0) {
+            int pick = random.nextInt(unvisited);
+            for (Node child : children) {
+                if (child.visits == 0 && pick-- == 0) {
+                    return child;
+                }
+            }
+        }
+
+        double logVisits = Math.log(node.visits);
+        Node best = children[0];
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Node child : children) {
+            double score = child.mean() + EXPLORATION * Math.sqrt(logVisits / child.visits);
+            if (score > bestScore) {
+                best = child;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // Plays every other player's turn, then ours, for a few rounds
+    private void rollout() {
+        int seats = state.getPlayerCount();
+        int ourSeat = seatOf(player);
+        for (int round = 0; round < rolloutRounds; round++) {
+            for (int i = 1; i <= seats; i++) {
+                if (playersLeft() <= 1) {
+                    return;
+                }
+                Player current = state.getPlayer((ourSeat + i) % seats);
+                if (state.getUnitCount(current) == 0) {
+                    continue;
+                }
+
+                state.setCurrentPlayer(current);
+                state.startTurn(current);
+                state.getUnitTilesForPlayer(current, turnUnits);
+                int count = turnUnits.size();
+                for (int u = 0; u < count; u++) {
+                    playUnit(turnUnits.get(u));
+                }
+            }
+        }
+    }
+
+    // Attacks a reachable enemy if there is one, else moves somewhere reachable at random
+    private void playUnit(int from) {
+        Unit unit = state.getUnitAt(from);
+        if (unit == null || planner.getReachableTiles(from, reachable) == 0) {
+            return;
+        }
+
+        int targets = 0;
+        for (int i = 0; i < reachable.size(); i++) {
+            if (state.getUnitAt(reachable.get(i)) != null) {
+                reachable.set(targets++, reachable.get(i));
+            }
+        }
+        int to = targets > 0
+                ? reachable.get(random.nextInt(targets))
+                : reachable.get(random.nextInt(reachable.size()));
+        applyMove(from, to);
+    }
+
+    boolean applyMove(int from, int to) {
+        if (from == to) {
+            return false;
+        }
+        Unit unit = state.getUnitAt(from);
+        if (unit == null) {
+            return false;
+        }
+
+        AxialPos fromPos = state.getBoard().getPos(from);
+        ActionPath planned = planner.planAction(fromPos, state.getBoard().getPos(to));
+        if (planned == null || planned.cost > unit.getMovementPoints()) {
+            return false;
+        }
+        return executor.resolve(planned);
+    }
+
+    // Mean of the player's share of all remaining units and of all remaining health
+    private double materialShare() {
+        int totalUnits = 0;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            totalUnits += state.getUnitCount(state.getPlayer(seat));
+        }
+        if (totalUnits == 0) {
+            return 0;
+        }
+        double unitShare = (double) state.getUnitCount(player) / totalUnits;
+        return (unitShare + healthShare()) / 2;
+    }
+
+    private double healthShare() {
+        int ours = state.getTotalHealth(player);
+        if (ours == 0) {
+            return 0;
+        }
+
+        int total = 0;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            total += state.getTotalHealth(state.getPlayer(seat));
+        }
+        return (double) ours / total;
+    }
+
+    private int playersLeft() {
+        int left = 0;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (state.getUnitCount(state.getPlayer(seat)) > 0) {
+                left++;
+            }
+        }
+        return left;
+    }
+
+    private int seatOf(Player p) {
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (state.getPlayer(seat) == p) {
+                return seat;
+            }
+        }
+        throw new IllegalArgumentException("Player is not in this game");
+    }
+}
@@ -29,4 +29,8 @@ public class Player {
     public AI getAI() {
         return this.ai;
     }
+
+    public void setAI(AI ai) {
+        this.ai = ai;
+    }
 }
@@ -1,70 +1,126 @@
 package tbs_game.player;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import tbs_game.game.ActionPath;
 import tbs_game.game.Game;
 import tbs_game.game.Rules;
-import tbs_game.game.actions.Action;
-import tbs_game.game.actions.EndTurnAction;
-import tbs_game.game.actions.MoveAction;
+import tbs_game.game.board.Board;
 import tbs_game.game.game_helpers.ActionExecutor;
 import tbs_game.game.game_helpers.GameState;
 import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.game.game_helpers.ReachableSets;
 import tbs_game.hexes.AxialPos;
+import tbs_game.utils.IntList;
+import tbs_game.utils.Zobrist;
 
 public class RandomAI implements AI {
 
-    Random random = new Random(Game.SEED * 7);
+    private final long seed;
+    private final Random random = new Random();
+
+    // Scratch reused across turns
+    private final ReachableSets reachable = new ReachableSets();
+    private final IntList fresh = new IntList();
+    private final IntList path = new IntList();
 
     public RandomAI() {
+        this(Game.SEED * 7);
+    }
 
+    public RandomAI(long seed) {
+        this.seed = seed;
     }
 
     @Override
-    public void doTurn(Game game, Player player) {
+    public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+        // Seeded from the state, so a turn plans the same whether or not others were planned first
+        random.setSeed(Zobrist.mix(seed) ^ state.hash());
 
         // Create copy of state to simulate moves
-        GameState simState = game.copyState();
+        GameState simState = state.createSimluationCopy();
         MovementPlanner planner = new MovementPlanner(simState);
         ActionExecutor executor = new ActionExecutor(simState);
+        Board board = simState.getBoard();
 
-        ArrayList<AxialPos> unitPositions = new ArrayList<>(simState.getUnitPositionsForPlayer(player));
+        // Every unit's options in one pass. Earlier moves can leave a unit's set stale, which is then searched again
+        planner.getReachableSets(player, reachable, false);
+        List<ActionPath> moves = new ArrayList<>();
 
-        for (AxialPos pos : unitPositions) {
-            if (simState.getUnitAt(pos) == null) {
+        for (int unit = 0; unit < reachable.unitCount(); unit++) {
+            if (budget.isExpired()) {
+                break; // Remaining units stay put
+            }
+            int from = reachable.unitTile(unit);
+            if (simState.getUnitAt(from) == null) {
                 throw new Error("No unit at position. Unit positions is incorrect.");
             }
-
-            ArrayList<AxialPos> reachable = new ArrayList<>(planner.getReachableHexes(pos));
-            if (reachable.isEmpty()) {
+            if (reachable.count(unit) == 0) {
                 continue;
             }
 
-            // Choose random tile of reachable to move to
-            int randIdx = random.nextInt(reachable.size());
-            AxialPos dest = reachable.get(randIdx);
-
-            // Create and simulate the move
-            ActionPath simMove = planner.planAction(pos, dest);
+            // Choose random tile of reachable to move to, along the path the batch search found
+            int dest = reachable.tile(unit, random.nextInt(reachable.count(unit)));
+            reachable.path(unit, dest, path);
+            ActionPath simMove = isOpen(simState, path) ? toAction(board, planner, path) : null;
+            if (simMove == null) {
+                if (planner.getReachableTiles(from, fresh) == 0) {
+                    continue;
+                }
+                dest = fresh.get(random.nextInt(fresh.size()));
+                simMove = planMove(simState, planner, from, dest);
+            }
             if (simMove == null) {
                 throw new Error("Issue planning move. No move created.");
             }
 
-            if (Rules.isValidMove(simState, pos, dest)) {
+            AxialPos pos = board.getPos(from);
+            AxialPos destPos = board.getPos(dest);
+            if (Rules.isValidMove(simState, pos, destPos)) {
                 executor.move(simMove);
-            } else if (Rules.isValidAttack(simState, pos, dest)) {
-                executor.attack(pos, dest);
+            } else if (Rules.isValidAttack(simState, pos, destPos)) {
+                executor.attack(pos, destPos);
             } else {
                 executor.moveThenAttack(simMove);
             }
 
-            // Create move action. Use actual game so when the actions are executed, they update the actual game
-            Action move = new MoveAction(game, simMove);
-            game.getActionQueue().addAction(move);
+            moves.add(simMove);
+        }
+
+        return moves;
+    }
+
+    // Whether moves made since the batch search left the path free, and its end not taken by a friend
+    private static boolean isOpen(GameState state, IntList path) {
+        for (int i = 1; i < path.size() - 1; i++) {
+            if (state.hasUnitAt(path.get(i))) {
+                return false;
+            }
+        }
+        return !state.isFriendly(path.get(path.size() - 1), state.getOwnerAt(path.get(0)));
+    }
+
+    private static ActionPath toAction(Board board, MovementPlanner planner, IntList path) {
+        ArrayList<AxialPos> positions = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            positions.add(board.getPos(path.get(i)));
         }
+        return new ActionPath(positions.get(0), positions.get(positions.size() - 1), positions,
+                planner.countMovementCost(positions));
+    }
 
-        game.getActionQueue().addAction(new EndTurnAction(game));
+    // The move to the tile, or null if it is no longer reachable
+    private static ActionPath planMove(GameState state, MovementPlanner planner, int from, int to) {
+        if (state.isFriendly(to, state.getOwnerAt(from))) {
+            return null;
+        }
+        Board board = state.getBoard();
+        ActionPath planned = planner.planAction(board.getPos(from), board.getPos(to));
+        if (planned == null || planned.cost > state.getMovementPointsAt(from)) {
+            return null;
+        }
+        return planned;
     }
 }
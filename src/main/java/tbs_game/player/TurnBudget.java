@@ -0,0 +1,89 @@
+package tbs_game.player;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Time an AI may spend planning one turn, which can also be cancelled early.
+ * Anytime AIs check {@link #isExpired} as they work and return the best plan
+ * they have found once it is. Safe to share between threads.
+ */
+public final class TurnBudget {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long startNanos;
+    private final long budgetNanos;
+    private final AtomicBoolean cancelled; // Shared with budgets split from this one
+
+    private TurnBudget(long budgetNanos, AtomicBoolean cancelled) {
+        this.startNanos = System.nanoTime();
+        this.budgetNanos = Math.max(0, budgetNanos);
+        this.cancelled = cancelled;
+    }
+
+    public static TurnBudget ofMillis(long millis) {
+        return ofNanos(millis * 1_000_000);
+    }
+
+    public static TurnBudget ofNanos(long nanos) {
+        return new TurnBudget(nanos, new AtomicBoolean());
+    }
+
+    public static TurnBudget unlimited() {
+        return ofNanos(UNLIMITED);
+    }
+
+    public boolean isUnlimited() {
+        return budgetNanos == UNLIMITED;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long remainingNanos() {
+        if (isUnlimited()) {
+            return UNLIMITED;
+        }
+        return Math.max(0, budgetNanos - elapsedNanos());
+    }
+
+    public boolean isExpired() {
+        return cancelled.get() || (!isUnlimited() && elapsedNanos() >= budgetNanos);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Cancels this budget and every budget split from it.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Budget for the first of several equal pieces of the time left. It is
+     * cancelled along with this one.
+     */
+    public TurnBudget split(int pieces) {
+        if (pieces < 1) {
+            throw new IllegalArgumentException("Need at least one piece");
+        }
+        long remaining = remainingNanos();
+        return new TurnBudget(isUnlimited() ? UNLIMITED : remaining / pieces, cancelled);
+    }
+
+    /**
+     * Budget that ends after the given time or with this one, whichever is
+     * first. It is cancelled along with this one.
+     */
+    public TurnBudget capped(long nanos) {
+        return new TurnBudget(Math.min(remainingNanos(), nanos), cancelled);
+    }
+}
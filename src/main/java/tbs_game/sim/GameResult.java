@@ -0,0 +1,29 @@
+package tbs_game.sim;
+
+/**
+ * The outcome of one headless game.
+ *
+ * @param seed - The seed the game was created with
+ * @param outcome - How the game ended
+ * @param winner - Seat index of the winner, or -1 if there is none
+ * @param turns - Number of turns ended, across all players
+ * @param wallTimeNanos - Wall time spent playing, excluding setup
+ */
+public record GameResult(
+        long seed,
+        Outcome outcome,
+        int winner,
+        int turns,
+        long wallTimeNanos
+        ) {
+
+    public enum Outcome {
+        WIN, // One player left standing
+        TURN_LIMIT, // Hit the runner's turn cap first
+        STALLED // The current player queued no way to end its turn
+    }
+
+    public double wallTimeMillis() {
+        return wallTimeNanos / 1e6;
+    }
+}
@@ -0,0 +1,89 @@
+package tbs_game.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import tbs_game.game.Game;
+import tbs_game.game.actions.ActionQueue;
+import tbs_game.player.AI;
+import tbs_game.player.Player;
+
+/**
+ * Plays an all-AI game to completion without a GUI. AI turns queue their
+ * actions on the game's {@link ActionQueue}; the runner applies them directly
+ * and ignores their events instead of animating them.
+ */
+public class GameRunner {
+
+    public static final int DEFAULT_MAX_TURNS = 2000;
+
+    private final int width;
+    private final int height;
+    private final int numPlayers;
+    private final int maxTurns;
+    private final IntFunction<AI> aiForSeat;
+
+    public GameRunner(int width, int height, int numPlayers) {
+        this(width, height, numPlayers, DEFAULT_MAX_TURNS);
+    }
+
+    public GameRunner(int width, int height, int numPlayers, int maxTurns) {
+        this(width, height, numPlayers, maxTurns, null);
+    }
+
+    /**
+     * @param aiForSeat - Makes the AI for each seat in a new game. Seats it
+     * returns null for keep the default AI. May be null
+     */
+    public GameRunner(int width, int height, int numPlayers, int maxTurns, IntFunction<AI> aiForSeat) {
+        this.width = width;
+        this.height = height;
+        this.numPlayers = numPlayers;
+        this.maxTurns = maxTurns;
+        this.aiForSeat = aiForSeat;
+    }
+
+    public GameResult run(long seed) {
+        Game game = Game.selfPlay(width, height, numPlayers, seed);
+        if (aiForSeat != null) {
+            for (int seat = 0; seat < numPlayers; seat++) {
+                AI ai = aiForSeat.apply(seat);
+                if (ai != null) {
+                    game.getPlayer(seat).setAI(ai);
+                }
+            }
+        }
+        return run(game, maxTurns);
+    }
+
+    /**
+     * Plays an already set up game where every player is an AI.
+     */
+    public static GameResult run(Game game, int maxTurns) {
+        List<Player> seats = new ArrayList<>(game.getNumPlayers());
+        for (int i = 0; i < game.getNumPlayers(); i++) {
+            seats.add(game.getPlayer(i));
+        }
+
+        ActionQueue queue = game.getActionQueue();
+        long start = System.nanoTime();
+
+        game.startGame();
+        GameResult.Outcome outcome = GameResult.Outcome.TURN_LIMIT;
+        while (game.getTurnNumber() < maxTurns) {
+            if (game.isGameOver()) {
+                outcome = GameResult.Outcome.WIN;
+                break;
+            }
+            if (queue.applyNextAction(game) == null) {
+                outcome = GameResult.Outcome.STALLED;
+                break;
+            }
+        }
+
+        long wallTime = System.nanoTime() - start;
+        int winner = seats.indexOf(game.getWinner());
+        return new GameResult(game.getSeed(), outcome, winner, game.getTurnNumber(), wallTime);
+    }
+}
@@ -0,0 +1,98 @@
+package tbs_game.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import tbs_game.player.MctsAI;
+
+/**
+ * Command line entry point for batch AI self-play. Plays games with
+ * consecutive seeds in parallel and prints aggregate results.
+ *
+ * Usage: SelfPlay [games] [width] [height] [players] [baseSeed] [threads]
+ * [maxTurns] [mctsMillis]
+ *
+ * With mctsMillis, seat 0 plays with a single threaded {@link MctsAI} given
+ * that many milliseconds per turn, and the others keep the default AI.
+ */
+public class SelfPlay {
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = intArg(args, 0, 1000);
+        int width = intArg(args, 1, 25);
+        int height = intArg(args, 2, 20);
+        int players = intArg(args, 3, 4);
+        long baseSeed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        int threads = intArg(args, 5, Runtime.getRuntime().availableProcessors());
+        int maxTurns = intArg(args, 6, GameRunner.DEFAULT_MAX_TURNS);
+        int mctsMillis = intArg(args, 7, 0);
+
+        GameRunner runner = new GameRunner(width, height, players, maxTurns,
+                seat -> seat == 0 && mctsMillis > 0 ? new MctsAI(mctsMillis, 1, 0, baseSeed) : null);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        List<Future<GameResult>> futures = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            long seed = baseSeed + i;
+            futures.add(pool.submit(() -> runner.run(seed)));
+        }
+
+        List<GameResult> results = new ArrayList<>(games);
+        int failed = 0;
+        for (Future<GameResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                failed++;
+                System.err.println("Game failed: " + e.getCause());
+            }
+        }
+        pool.shutdown();
+
+        long elapsed = System.nanoTime() - start;
+        printSummary(results, players, failed, threads, elapsed);
+    }
+
+    private static void printSummary(List<GameResult> results, int players, int failed, int threads, long elapsedNanos) {
+        int[] wins = new int[players];
+        int[] outcomes = new int[GameResult.Outcome.values().length];
+        long totalTurns = 0;
+        double totalMillis = 0;
+
+        for (GameResult result : results) {
+            outcomes[result.outcome().ordinal()]++;
+            if (result.winner() >= 0) {
+                wins[result.winner()]++;
+            }
+            totalTurns += result.turns();
+            totalMillis += result.wallTimeMillis();
+        }
+
+        int played = results.size();
+        double elapsedMinutes = elapsedNanos / 6e10;
+        System.out.printf("Games: %d (%d failed) on %d threads in %.1fs%n",
+                played, failed, threads, elapsedNanos / 1e9);
+        System.out.printf("Games/min: %.0f%n", played / elapsedMinutes);
+        if (played == 0) {
+            return;
+        }
+
+        System.out.printf("Avg turns: %.1f, avg game time: %.2fms%n",
+                (double) totalTurns / played, totalMillis / played);
+        for (GameResult.Outcome outcome : GameResult.Outcome.values()) {
+            System.out.printf("%-10s %d%n", outcome, outcomes[outcome.ordinal()]);
+        }
+        for (int seat = 0; seat < players; seat++) {
+            System.out.printf("Seat %d wins: %d (%.1f%%)%n", seat, wins[seat], 100.0 * wins[seat] / played);
+        }
+    }
+
+    private static int intArg(String[] args, int index, int fallback) {
+        return args.length > index ? Integer.parseInt(args[index]) : fallback;
+    }
+}
@@ -6,19 +6,28 @@ public class Unit {
 
     private final UnitType type;
     private final Player owner;
-    private int hp;
-
     private final int maxMovementPoints;
+
+    // Hold the unit's values while it is not in a game state
+    private int hp;
     private int remainingMovementPoints;
     private boolean hasAttacked;
 
+    // Set while the unit is in a game state, which then holds its values
+    private UnitStore store;
+    private int slot;
+
     public Unit(UnitType type, Player owner) {
-        this.type = type;
-        this.hp = type.maxHp;
-        this.owner = owner;
+        this(type, owner, type.maxHp, type.moveRange, false);
+    }
 
+    // Handle onto a slot of a store
+    Unit(UnitStore store, int slot) {
+        this.type = store.typeOf(slot);
+        this.owner = store.ownerOf(slot);
         this.maxMovementPoints = type.moveRange;
-        this.remainingMovementPoints = maxMovementPoints;
+        this.store = store;
+        this.slot = slot;
     }
 
     public Player getOwner() {
@@ -30,7 +39,7 @@ public class Unit {
     }
 
     public int getHealth() {
-        return this.hp;
+        return store == null ? hp : store.hpOf(slot);
     }
 
     public AttackType getAttackType() {
@@ -46,34 +55,32 @@ public class Unit {
     }
 
     public int getMovementPoints() {
-        return this.remainingMovementPoints;
+        return store == null ? remainingMovementPoints : store.movementOf(slot);
     }
 
     public boolean hasActed() {
-        return this.remainingMovementPoints != this.maxMovementPoints;
+        return getMovementPoints() != this.maxMovementPoints;
     }
 
     public boolean hasAttacked() {
-        return this.hasAttacked;
+        return store == null ? hasAttacked : store.hasAttacked(slot);
     }
 
     // Unit cannot do anything else after attacking
     public void markAttacked() {
-        this.hasAttacked = true;
-        this.remainingMovementPoints = 0;
+        update(getHealth(), 0, true);
     }
 
     public void spendMovementPoints(int movementCost) {
-        this.remainingMovementPoints = Math.max(0, remainingMovementPoints - movementCost);
+        update(getHealth(), Math.max(0, getMovementPoints() - movementCost), hasAttacked());
     }
 
     public void resetTurnState() {
-        this.remainingMovementPoints = this.maxMovementPoints;
-        this.hasAttacked = false;
+        update(getHealth(), this.maxMovementPoints, false);
     }
 
     public boolean canAct() {
-        return this.remainingMovementPoints != 0 && !this.hasAttacked;
+        return getMovementPoints() != 0 && !hasAttacked();
     }
 
     @Override
@@ -82,28 +89,50 @@ public class Unit {
     }
 
     public void dealDamage(int damage) {
-        this.hp -= damage;
-        if (this.hp < 0) {
-            this.hp = 0;
-        }
+        update(Math.max(0, getHealth() - damage), getMovementPoints(), hasAttacked());
     }
 
     public boolean isDead() {
-        return this.hp == 0;
+        return getHealth() == 0;
+    }
+
+    // ----- STORAGE -----
+    // All changes go through here so the store can journal and hash them
+    private void update(int hp, int movementPoints, boolean hasAttacked) {
+        if (store != null) {
+            store.setValues(slot, hp, movementPoints, hasAttacked);
+            return;
+        }
+        this.hp = hp;
+        this.remainingMovementPoints = movementPoints;
+        this.hasAttacked = hasAttacked;
+    }
+
+    boolean isInStore() {
+        return store != null;
+    }
+
+    void attach(UnitStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    void detach(int hp, int movementPoints, boolean hasAttacked) {
+        this.store = null;
+        update(hp, movementPoints, hasAttacked);
     }
 
     // ----- COPYING -----
     private Unit(UnitType type, Player owner, int hp, int movementPts, boolean hasAttacked) {
         this.type = type;
-        this.hp = hp;
         this.owner = owner;
-
         this.maxMovementPoints = type.moveRange;
+        this.hp = hp;
         this.remainingMovementPoints = movementPts;
         this.hasAttacked = hasAttacked;
     }
 
     public Unit createCopy() {
-        return new Unit(type, owner, hp, remainingMovementPoints, hasAttacked);
+        return new Unit(type, owner, getHealth(), getMovementPoints(), hasAttacked());
     }
 }
@@ -0,0 +1,451 @@
+package tbs_game.units;
+
+import java.util.Arrays;
+
+import tbs_game.player.Player;
+import tbs_game.utils.CowArray;
+import tbs_game.utils.CowIntArray;
+import tbs_game.utils.UndoLog;
+import tbs_game.utils.Zobrist;
+
+/**
+ * Holds every unit in a game state as a table of primitive columns, one row
+ * (slot) per unit. Each owner's units are also threaded into a linked list
+ * through the slots, so they can be walked without scanning or allocating.
+ *
+ * Forking is O(1): columns are copy-on-write, so a fork shares them with the
+ * original and either side copies a 64-slot chunk of a column the first time
+ * it writes to it.
+ *
+ * Units read from a store are handles onto its slots, so a {@link Unit} always
+ * shows the current values of the store it came from. Each store hands out
+ * its own handles.
+ *
+ * While a journal is set, every change is also pushed to it so that
+ * {@link #undo} can reverse it. The store also keeps the XOR of every unit's
+ * {@link Zobrist} key up to date on each change.
+ */
+public final class UnitStore {
+
+    // Op codes this store pushes to its journal. Callers sharing the journal must use others
+    public static final int OP_ADD = 1;
+    public static final int OP_REMOVE = 2;
+    public static final int OP_WRITE = 3;
+
+    public static final int NONE = -1;
+
+    private static final UnitType[] TYPES = UnitType.values();
+
+    // Unit values by slot. Empty slots have type NONE
+    private final CowIntArray types;
+    private final CowIntArray seats;
+    private final CowIntArray hps;
+    private final CowIntArray movements;
+    private final CowIntArray attacked;
+    private final CowIntArray tiles;
+
+    // Per seat doubly linked lists of slots, oldest unit first
+    private final CowIntArray next;
+    private final CowIntArray prev;
+    private int[] heads;
+    private int[] tails;
+    private int[] counts;
+    private Player[] players;
+
+    // Handles are never shared between forks
+    private final CowArray<Unit> handles = new CowArray<>();
+    private int slotCount;
+    private UndoLog journal;
+    private long hash;
+    private long version;
+
+    public UnitStore() {
+        this.types = new CowIntArray(0, NONE);
+        this.seats = new CowIntArray(0, NONE);
+        this.hps = new CowIntArray(0, 0);
+        this.movements = new CowIntArray(0, 0);
+        this.attacked = new CowIntArray(0, 0);
+        this.tiles = new CowIntArray(0, NONE);
+        this.next = new CowIntArray(0, NONE);
+        this.prev = new CowIntArray(0, NONE);
+        this.heads = new int[0];
+        this.tails = new int[0];
+        this.counts = new int[0];
+        this.players = new Player[0];
+    }
+
+    private UnitStore(UnitStore source) {
+        this.types = source.types.fork();
+        this.seats = source.seats.fork();
+        this.hps = source.hps.fork();
+        this.movements = source.movements.fork();
+        this.attacked = source.attacked.fork();
+        this.tiles = source.tiles.fork();
+        this.next = source.next.fork();
+        this.prev = source.prev.fork();
+        this.heads = source.heads.clone();
+        this.tails = source.tails.clone();
+        this.counts = source.counts.clone();
+        this.players = source.players;
+        this.slotCount = source.slotCount;
+        this.hash = source.hash;
+        this.version = source.version;
+    }
+
+    /**
+     * Forks the store. Forking writes to this store's ownership tokens, so do
+     * not fork one store from several threads at once.
+     */
+    public UnitStore fork() {
+        return new UnitStore(this);
+    }
+
+    /**
+     * @param journal - Log to record changes to, or null to stop recording
+     */
+    public void setJournal(UndoLog journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * XOR of the Zobrist keys of every unit in the store.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Number of changes made to the store, undos included. Never goes down,
+     * so within one store a version seen once always means the same units. A
+     * fork carries on counting from its source's version.
+     */
+    public long version() {
+        return version;
+    }
+
+    // ----- PLAYERS -----
+    /**
+     * Registers a player that can own units.
+     *
+     * @return the player's seat
+     */
+    public int addPlayer(Player player) {
+        int seat = players.length;
+        players = Arrays.copyOf(players, seat + 1);
+        players[seat] = player;
+        heads = Arrays.copyOf(heads, seat + 1);
+        tails = Arrays.copyOf(tails, seat + 1);
+        counts = Arrays.copyOf(counts, seat + 1);
+        heads[seat] = NONE;
+        tails[seat] = NONE;
+        return seat;
+    }
+
+    /**
+     * @return the player's seat, or -1 if they are not registered
+     */
+    public int seatOf(Player player) {
+        for (int seat = 0; seat < players.length; seat++) {
+            if (players[seat] == player) {
+                return seat;
+            }
+        }
+        return NONE;
+    }
+
+    public Player playerAt(int seat) {
+        return players[seat];
+    }
+
+    public int playerCount() {
+        return players.length;
+    }
+
+    /**
+     * Number of units the seat owns, in O(1).
+     */
+    public int count(int seat) {
+        return counts[seat];
+    }
+
+    /**
+     * First of the seat's units, or NONE. Walk the rest with {@link #next}.
+     */
+    public int first(int seat) {
+        return heads[seat];
+    }
+
+    /**
+     * Next unit with the same owner as the slot, or NONE.
+     */
+    public int next(int slot) {
+        return next.get(slot);
+    }
+
+    // ----- UNITS -----
+    /**
+     * Moves a unit that is not in any store into a new slot. The unit becomes
+     * the handle for that slot.
+     *
+     * @return the slot
+     */
+    public int add(Unit unit, int tile, int seat) {
+        if (unit.isInStore()) {
+            throw new IllegalArgumentException("Unit is already in a game state");
+        }
+        if (seat < 0 || seat >= players.length || players[seat] != unit.getOwner()) {
+            throw new IllegalArgumentException("Unit owner is not in seat " + seat);
+        }
+
+        int slot = slotCount++;
+        types.set(slot, unit.getType().ordinal());
+        seats.set(slot, seat);
+        hps.set(slot, unit.getHealth());
+        movements.set(slot, unit.getMovementPoints());
+        attacked.set(slot, unit.hasAttacked() ? 1 : 0);
+        tiles.set(slot, tile);
+        link(slot, seat, tails[seat], NONE);
+        hash ^= key(slot);
+        version++;
+
+        handles.set(slot, unit);
+        unit.attach(this, slot);
+
+        if (journal != null) {
+            journal.pushInt(OP_ADD);
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot. A handle for it keeps the unit's last values.
+     */
+    public void remove(int slot) {
+        Unit handle = handles.get(slot);
+        if (handle != null) {
+            handles.set(slot, null);
+            handle.detach(hps.get(slot), movements.get(slot), attacked.get(slot) != 0);
+        }
+
+        if (journal != null) {
+            journal.pushInt(types.get(slot));
+            journal.pushInt(seats.get(slot));
+            journal.pushInt(hps.get(slot));
+            journal.pushInt(movements.get(slot));
+            journal.pushInt(attacked.get(slot));
+            journal.pushInt(tiles.get(slot));
+            journal.pushInt(prev.get(slot));
+            journal.pushInt(next.get(slot));
+            journal.pushRef(handle);
+            journal.pushInt(slot);
+            journal.pushInt(OP_REMOVE);
+        }
+
+        hash ^= key(slot);
+        version++;
+        unlink(slot);
+        types.set(slot, NONE);
+    }
+
+    /**
+     * @return the handle for a slot, or null if the slot is empty
+     */
+    public Unit get(int slot) {
+        if (!isLive(slot)) {
+            return null;
+        }
+
+        Unit handle = handles.get(slot);
+        if (handle == null) {
+            handle = new Unit(this, slot);
+            handles.set(slot, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Upper bound on slots in use. Empty slots below it are skipped by
+     * {@link #isLive}.
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public boolean isLive(int slot) {
+        return types.get(slot) != NONE;
+    }
+
+    public UnitType typeOf(int slot) {
+        return TYPES[types.get(slot)];
+    }
+
+    public int seatOfUnit(int slot) {
+        return seats.get(slot);
+    }
+
+    public Player ownerOf(int slot) {
+        return players[seats.get(slot)];
+    }
+
+    public int hpOf(int slot) {
+        return hps.get(slot);
+    }
+
+    public int movementOf(int slot) {
+        return movements.get(slot);
+    }
+
+    public boolean hasAttacked(int slot) {
+        return attacked.get(slot) != 0;
+    }
+
+    public int tileOf(int slot) {
+        return tiles.get(slot);
+    }
+
+    public void setTile(int slot, int tile) {
+        update(slot, hps.get(slot), movements.get(slot), attacked.get(slot) != 0, tile);
+    }
+
+    /**
+     * Sets a unit's changeable values.
+     */
+    public void setValues(int slot, int hp, int movementPoints, boolean hasAttacked) {
+        update(slot, hp, movementPoints, hasAttacked, tiles.get(slot));
+    }
+
+    /**
+     * Reverses the newest entry of the journal, whose op code has already been
+     * popped.
+     */
+    public void undo(int op, UndoLog log) {
+        version++;
+        switch (op) {
+            case OP_ADD -> {
+                int slot = --slotCount;
+                Unit handle = handles.get(slot);
+                if (handle != null) {
+                    handles.set(slot, null);
+                    handle.detach(hps.get(slot), movements.get(slot), attacked.get(slot) != 0);
+                }
+                hash ^= key(slot);
+                unlink(slot);
+                types.set(slot, NONE);
+            }
+            case OP_REMOVE -> {
+                int slot = log.popInt();
+                Unit handle = log.popRef();
+                int nextSlot = log.popInt();
+                int prevSlot = log.popInt();
+                tiles.set(slot, log.popInt());
+                attacked.set(slot, log.popInt());
+                movements.set(slot, log.popInt());
+                hps.set(slot, log.popInt());
+                int seat = log.popInt();
+                seats.set(slot, seat);
+                types.set(slot, log.popInt());
+                link(slot, seat, prevSlot, nextSlot);
+                hash ^= key(slot);
+
+                if (handle != null) {
+                    handles.set(slot, handle);
+                    handle.attach(this, slot);
+                }
+            }
+            case OP_WRITE -> {
+                int slot = log.popInt();
+                int tile = log.popInt();
+                boolean hasAttacked = log.popInt() != 0;
+                int movementPoints = log.popInt();
+                apply(slot, log.popInt(), movementPoints, hasAttacked, tile);
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown unit store op " + op);
+        }
+    }
+
+    // Sets all of a unit's changeable values, recording the old ones
+    private void update(int slot, int hp, int movementPoints, boolean hasAttacked, int tile) {
+        write(slot, hp, movementPoints, hasAttacked, tile, journal != null);
+    }
+
+    private void apply(int slot, int hp, int movementPoints, boolean hasAttacked, int tile) {
+        write(slot, hp, movementPoints, hasAttacked, tile, false);
+    }
+
+    // Reads the old values once for the journal and both hash keys. Only writes the
+    // columns that change, so untouched columns stay shared with forks
+    private void write(int slot, int hp, int movementPoints, boolean hasAttacked, int tile, boolean record) {
+        int oldHp = hps.get(slot);
+        int oldMovement = movements.get(slot);
+        int oldAttacked = attacked.get(slot);
+        int oldTile = tiles.get(slot);
+        if (record) {
+            journal.pushInt(oldHp);
+            journal.pushInt(oldMovement);
+            journal.pushInt(oldAttacked);
+            journal.pushInt(oldTile);
+            journal.pushInt(slot);
+            journal.pushInt(OP_WRITE);
+        }
+
+        int type = types.get(slot);
+        int seat = seats.get(slot);
+        version++;
+        hash ^= Zobrist.unitKey(oldTile, type, seat, oldHp, oldMovement, oldAttacked != 0)
+                ^ Zobrist.unitKey(tile, type, seat, hp, movementPoints, hasAttacked);
+
+        if (oldHp != hp) {
+            hps.set(slot, hp);
+        }
+        if (oldMovement != movementPoints) {
+            movements.set(slot, movementPoints);
+        }
+        int attackedFlag = hasAttacked ? 1 : 0;
+        if (oldAttacked != attackedFlag) {
+            attacked.set(slot, attackedFlag);
+        }
+        if (oldTile != tile) {
+            tiles.set(slot, tile);
+        }
+    }
+
+    // Inserts a slot into its seat's list between two neighbors
+    private void link(int slot, int seat, int prevSlot, int nextSlot) {
+        prev.set(slot, prevSlot);
+        next.set(slot, nextSlot);
+        if (prevSlot == NONE) {
+            heads[seat] = slot;
+        } else {
+            next.set(prevSlot, slot);
+        }
+        if (nextSlot == NONE) {
+            tails[seat] = slot;
+        } else {
+            prev.set(nextSlot, slot);
+        }
+        counts[seat]++;
+    }
+
+    private void unlink(int slot) {
+        int seat = seats.get(slot);
+        int prevSlot = prev.get(slot);
+        int nextSlot = next.get(slot);
+        if (prevSlot == NONE) {
+            heads[seat] = nextSlot;
+        } else {
+            next.set(prevSlot, nextSlot);
+        }
+        if (nextSlot == NONE) {
+            tails[seat] = prevSlot;
+        } else {
+            prev.set(nextSlot, prevSlot);
+        }
+        counts[seat]--;
+    }
+
+    private long key(int slot) {
+        return Zobrist.unitKey(tiles.get(slot), types.get(slot), seats.get(slot),
+                hps.get(slot), movements.get(slot), attacked.get(slot) != 0);
+    }
+}
@@ -0,0 +1,75 @@
+package tbs_game.utils;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of references that can be forked in O(1). Forks share
+ * fixed size chunks, and either side copies a chunk the first time it writes
+ * to it after the fork. Unwritten entries read as null.
+ *
+ * Forking hands the original a new writer token, so a single array must not be
+ * forked from several threads at once.
+ */
+public final class CowArray<T> {
+
+    static final int CHUNK_BITS = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks;
+    // The writer token that owns each chunk. Chunks owned by another token are shared
+    private Object[] owners;
+    private boolean sharedDirectory;
+    private Object writer = new Object();
+
+    public CowArray() {
+        this.chunks = new Object[0][];
+        this.owners = new Object[0];
+    }
+
+    private CowArray(Object[][] chunks, Object[] owners) {
+        this.chunks = chunks;
+        this.owners = owners;
+        this.sharedDirectory = true;
+    }
+
+    public CowArray<T> fork() {
+        this.writer = new Object();
+        this.sharedDirectory = true;
+        return new CowArray<>(chunks, owners);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        int c = i >>> CHUNK_BITS;
+        if (c >= chunks.length) {
+            return null;
+        }
+        Object[] chunk = chunks[c];
+        return chunk == null ? null : (T) chunk[i & CHUNK_MASK];
+    }
+
+    public void set(int i, T value) {
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("Index " + i + " is negative");
+        }
+        writableChunk(i >>> CHUNK_BITS)[i & CHUNK_MASK] = value;
+    }
+
+    private Object[] writableChunk(int c) {
+        if (sharedDirectory || c >= chunks.length) {
+            int length = c < chunks.length ? chunks.length : Math.max(c + 1, chunks.length * 2);
+            chunks = Arrays.copyOf(chunks, length);
+            owners = Arrays.copyOf(owners, length);
+            sharedDirectory = false;
+        }
+
+        Object[] chunk = chunks[c];
+        if (owners[c] != writer) {
+            chunk = chunk == null ? new Object[CHUNK_SIZE] : chunk.clone();
+            chunks[c] = chunk;
+            owners[c] = writer;
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,110 @@
+package tbs_game.utils;
+
+import java.util.Arrays;
+
+/**
+ * A growable int array that can be forked in O(1). Works like
+ * {@link CowArray}: forks share chunks until one side writes to them.
+ * Writing past the end grows the array.
+ */
+public final class CowIntArray {
+
+    private static final int CHUNK_BITS = CowArray.CHUNK_BITS;
+    private static final int CHUNK_SIZE = CowArray.CHUNK_SIZE;
+    private static final int CHUNK_MASK = CowArray.CHUNK_MASK;
+
+    private int length;
+    private final int fill;
+
+    private int[][] chunks;
+    private Object[] owners;
+    private boolean sharedDirectory;
+    private Object writer = new Object();
+
+    /**
+     * @param fill - Value of every entry until it is first written
+     */
+    public CowIntArray(int length, int fill) {
+        this.length = length;
+        this.fill = fill;
+        int chunkCount = (length + CHUNK_MASK) >>> CHUNK_BITS;
+        this.chunks = new int[chunkCount][];
+        this.owners = new Object[chunkCount];
+    }
+
+    private CowIntArray(CowIntArray source) {
+        this.length = source.length;
+        this.fill = source.fill;
+        this.chunks = source.chunks;
+        this.owners = source.owners;
+        this.sharedDirectory = true;
+    }
+
+    public CowIntArray fork() {
+        this.writer = new Object();
+        this.sharedDirectory = true;
+        return new CowIntArray(this);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int get(int i) {
+        int c = i >>> CHUNK_BITS;
+        if (c >= chunks.length) {
+            return fill;
+        }
+        int[] chunk = chunks[c];
+        return chunk == null ? fill : chunk[i & CHUNK_MASK];
+    }
+
+    public void set(int i, int value) {
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("Index " + i + " is negative");
+        }
+        writableChunk(i >>> CHUNK_BITS)[i & CHUNK_MASK] = value;
+        if (i >= length) {
+            length = i + 1;
+        }
+    }
+
+    /**
+     * Adds to an entry in place.
+     *
+     * @return the new value
+     */
+    public int add(int i, int delta) {
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("Index " + i + " is negative");
+        }
+        int[] chunk = writableChunk(i >>> CHUNK_BITS);
+        int value = chunk[i & CHUNK_MASK] += delta;
+        if (i >= length) {
+            length = i + 1;
+        }
+        return value;
+    }
+
+    private int[] writableChunk(int c) {
+        if (sharedDirectory || c >= chunks.length) {
+            int size = c < chunks.length ? chunks.length : Math.max(c + 1, chunks.length * 2);
+            chunks = Arrays.copyOf(chunks, size);
+            owners = Arrays.copyOf(owners, size);
+            sharedDirectory = false;
+        }
+
+        int[] chunk = chunks[c];
+        if (owners[c] != writer) {
+            if (chunk == null) {
+                chunk = new int[CHUNK_SIZE];
+                Arrays.fill(chunk, fill);
+            } else {
+                chunk = chunk.clone();
+            }
+            chunks[c] = chunk;
+            owners[c] = writer;
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,170 @@
+package tbs_game.utils;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap over int ids in [0, capacity) with long priorities. Each id
+ * is in the heap at most once, and its position is tracked so a queued id can
+ * have its priority lowered in place instead of being pushed again.
+ */
+public class IndexedMinHeap {
+
+    private int[] ids;
+    private long[] priorities;
+    private int[] positions; // -1 when an id is not in the heap
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.ids = new int[16];
+        this.priorities = new long[16];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int capacity() {
+        return positions.length;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) {
+            return;
+        }
+
+        int old = positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, old, capacity, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    public long peekPriority() {
+        return priorities[0];
+    }
+
+    /**
+     * Adds an id, or updates its priority if it is already queued.
+     */
+    public void push(int id, long priority) {
+        int pos = positions[id];
+        if (pos >= 0) {
+            long old = priorities[pos];
+            priorities[pos] = priority;
+            if (priority < old) {
+                siftUp(pos);
+            } else {
+                siftDown(pos);
+            }
+            return;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        ids[size] = id;
+        priorities[size] = priority;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    public int pop() {
+        int top = ids[0];
+        positions[top] = -1;
+
+        size--;
+        if (size > 0) {
+            ids[0] = ids[size];
+            priorities[0] = priorities[size];
+            positions[ids[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void remove(int id) {
+        int pos = positions[id];
+        if (pos < 0) {
+            return;
+        }
+
+        positions[id] = -1;
+        size--;
+        if (pos == size) {
+            return;
+        }
+
+        long removed = priorities[pos];
+        ids[pos] = ids[size];
+        priorities[pos] = priorities[size];
+        positions[ids[pos]] = pos;
+        if (priorities[pos] < removed) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    /**
+     * Empties the heap in O(size), leaving it ready for reuse.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[ids[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int id = ids[pos];
+        long priority = priorities[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            move(parent, pos);
+            pos = parent;
+        }
+        place(id, priority, pos);
+    }
+
+    private void siftDown(int pos) {
+        int id = ids[pos];
+        long priority = priorities[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            move(child, pos);
+            pos = child;
+        }
+        place(id, priority, pos);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        priorities[to] = priorities[from];
+        positions[ids[to]] = to;
+    }
+
+    private void place(int id, long priority, int pos) {
+        ids[pos] = id;
+        priorities[pos] = priority;
+        positions[id] = pos;
+    }
+}
@@ -0,0 +1,83 @@
+package tbs_game.utils;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints. Meant to be reused across calls so hot
+ * paths can hand back results without boxing or reallocating.
+ */
+public class IntList {
+
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        this.data = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        return data[i];
+    }
+
+    public void set(int i, int value) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        data[i] = value;
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    public int removeLast() {
+        return data[--size];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int tmp = data[i];
+            data[i] = data[j];
+            data[j] = tmp;
+        }
+    }
+
+    public void sort() {
+        Arrays.sort(data, 0, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,58 @@
+package tbs_game.utils;
+
+import java.util.Arrays;
+
+/**
+ * A stack of undo entries stored as primitive ints plus object references.
+ * Writers push an entry's fields and then an op code last, so undoing pops
+ * the op code first and then the fields in reverse.
+ *
+ * A mark is the int stack size, so rolling back to one only needs to pop until
+ * the size matches.
+ */
+public final class UndoLog {
+
+    private int[] ints = new int[64];
+    private int intSize;
+    private Object[] refs = new Object[16];
+    private int refSize;
+
+    public int size() {
+        return intSize;
+    }
+
+    public boolean isEmpty() {
+        return intSize == 0;
+    }
+
+    public void pushInt(int value) {
+        if (intSize == ints.length) {
+            ints = Arrays.copyOf(ints, intSize * 2);
+        }
+        ints[intSize++] = value;
+    }
+
+    public void pushRef(Object ref) {
+        if (refSize == refs.length) {
+            refs = Arrays.copyOf(refs, refSize * 2);
+        }
+        refs[refSize++] = ref;
+    }
+
+    public int popInt() {
+        return ints[--intSize];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T popRef() {
+        T ref = (T) refs[--refSize];
+        refs[refSize] = null;
+        return ref;
+    }
+
+    public void clear() {
+        intSize = 0;
+        Arrays.fill(refs, 0, refSize, null);
+        refSize = 0;
+    }
+}
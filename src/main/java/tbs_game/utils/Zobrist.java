@@ -0,0 +1,42 @@
+package tbs_game.utils;
+
+/**
+ * Zobrist keys for game positions. Instead of storing random tables, each key
+ * is a splitmix64 scramble of the packed feature, so keys are the same on every
+ * run and need no setup. A position's hash is the XOR of the keys of all its
+ * features.
+ */
+public final class Zobrist {
+
+    // Keeps player keys apart from unit keys, which never set the top bit
+    private static final long PLAYER_DOMAIN = 1L << 63;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Key for one unit with the given values. Fields must fit their bit
+     * widths: hp 10 bits, movement 8, seat 5, type 8.
+     */
+    public static long unitKey(int tile, int type, int seat, int hp, int movementPoints, boolean hasAttacked) {
+        long packed = (long) tile << 32
+                | (long) type << 24
+                | (long) (seat & 0x1F) << 19
+                | (long) (hp & 0x3FF) << 9
+                | (long) (movementPoints & 0xFF) << 1
+                | (hasAttacked ? 1 : 0);
+        return mix(packed);
+    }
+
+    public static long playerKey(int seat) {
+        return mix(PLAYER_DOMAIN | seat);
+    }
+
+    // splitmix64 finalizer. A bijection, so distinct features get distinct keys
+    public static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import tbs_game.hexes.FractionalHex;
 import tbs_game.hexes.AxialPos;
 import tbs_game.hexes.OffsetPos;
+import tbs_game.hexes.PackedHex;
 
 public class HexTest {
     // static public void equalOffsetcoord(String name, OffsetCoord a, OffsetCoord b)
@@ -103,4 +104,45 @@ public class HexTest {
         assertEquals(new AxialPos(-3, 2), new OffsetPos(-2, 2).toAxial());
         assertEquals(new AxialPos(2, -1), new OffsetPos(1, -1).toAxial());
     }
+
+    @Test
+    void testPackedRoundTrip() {
+        int hex = PackedHex.pack(-3, -7);
+        assertEquals(-3, PackedHex.q(hex));
+        assertEquals(-7, PackedHex.r(hex));
+        assertEquals(new AxialPos(-3, -7), PackedHex.toAxial(hex));
+        assertEquals(hex, new AxialPos(-3, -7).pack());
+    }
+
+    @Test
+    void testPackedNeighbor() {
+        AxialPos pos = new AxialPos(2, -1);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(pos.neighbor(i), PackedHex.toAxial(PackedHex.neighbor(pos.pack(), i)));
+        }
+    }
+
+    @Test
+    void testPackedDistance() {
+        assertEquals(7, PackedHex.distance(PackedHex.pack(3, -7), PackedHex.pack(0, 0)));
+    }
+
+    @Test
+    void testPackedOffsetConversion() {
+        int hex = new AxialPos(-3, 2).pack();
+        assertEquals(-2, PackedHex.toCol(hex));
+        assertEquals(2, PackedHex.toRow(hex));
+        assertEquals(hex, PackedHex.fromOffset(-2, 2));
+    }
+
+    @Test
+    void testPackedWrap() {
+        int width = 10;
+        int leftOfEdge = PackedHex.fromOffset(-1, 3);
+        int rightOfEdge = PackedHex.fromOffset(width, 3);
+
+        assertEquals(PackedHex.fromOffset(width - 1, 3), PackedHex.wrap(leftOfEdge, width));
+        assertEquals(PackedHex.fromOffset(0, 3), PackedHex.wrap(rightOfEdge, width));
+        assertEquals(1, PackedHex.wrappedDistance(PackedHex.fromOffset(0, 3), PackedHex.fromOffset(width - 1, 3), width));
+    }
 }
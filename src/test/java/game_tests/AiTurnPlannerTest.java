@@ -0,0 +1,232 @@
+package game_tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.AiClock;
+import tbs_game.game.game_helpers.AiTurnPlanner;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.player.AI;
+import tbs_game.player.Player;
+import tbs_game.player.RandomAI;
+import tbs_game.player.TurnBudget;
+import tbs_game.sim.GameResult;
+import tbs_game.sim.GameRunner;
+
+class AiTurnPlannerTest {
+
+    private static final long TIMEOUT_NANOS = 30_000_000_000L;
+
+    // Records the state hash of every turn it plans
+    private static final class RecordingAI implements AI {
+
+        private final AI inner;
+        private final List<Long> startHashes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingAI(AI inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+            startHashes.add(state.hash());
+            return inner.planTurn(state, player, budget);
+        }
+    }
+
+    // Holds its turn until released, then makes no moves
+    private static final class GateAI implements AI {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        }
+    }
+
+    // Runs queued actions, polling for background plans when the queue is empty
+    private static void playAsync(Game game, int maxTurns) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (!game.isGameOver() && game.getTurnNumber() < maxTurns) {
+            if (game.getActionQueue().applyNextAction(game) == null && !game.pollAiTurn()) {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for an AI turn");
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static void awaitAiTurn(Game game) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (!game.pollAiTurn()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for an AI turn");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testBackgroundGameMatchesForegroundGame() throws InterruptedException {
+        for (long seed = 0; seed < 3; seed++) {
+            Game foreground = Game.selfPlay(16, 12, 3, seed);
+            GameResult result = GameRunner.run(foreground, 150);
+
+            Game background = Game.selfPlay(16, 12, 3, seed);
+            try (AiTurnPlanner planner = new AiTurnPlanner()) {
+                background.setAiPlanner(planner);
+                background.startGame();
+                playAsync(background, 150);
+            }
+
+            assertEquals(result.turns(), background.getTurnNumber());
+            assertEquals(foreground.getStateHash(), background.getStateHash());
+        }
+    }
+
+    @Test
+    void testPlansDoNotDependOnEarlierPlans() {
+        Game game = Game.selfPlay(16, 12, 3, 2);
+        GameState first = game.copyState();
+        Player next = game.getPlayer(1);
+        GameState second = game.copyState();
+        second.setCurrentPlayer(next);
+        second.startTurn(next);
+
+        AI fresh = new RandomAI(5);
+        AI warmed = new RandomAI(5);
+        warmed.planTurn(first, game.getCurrentPlayer());
+        assertEquals(endHash(second, fresh.planTurn(second, next)), endHash(second, warmed.planTurn(second, next)));
+    }
+
+    private static long endHash(GameState start, List<ActionPath> moves) {
+        GameState state = start.createSimluationCopy();
+        ActionExecutor executor = new ActionExecutor(state);
+        for (ActionPath move : moves) {
+            executor.resolvePath(move);
+        }
+        return state.hash();
+    }
+
+    @Test
+    void testSpeculatedTurnsAreUsed() throws InterruptedException {
+        Game game = Game.selfPlay(16, 12, 3, 4);
+        List<RecordingAI> ais = new ArrayList<>();
+        for (int seat = 0; seat < 3; seat++) {
+            RecordingAI ai = new RecordingAI(new RandomAI(seat));
+            ais.add(ai);
+            game.getPlayer(seat).setAI(ai);
+        }
+
+        try (AiTurnPlanner planner = new AiTurnPlanner()) {
+            game.setAiPlanner(planner);
+            game.startGame();
+            playAsync(game, 60);
+        }
+
+        // Every turn is planned once. Speculation may have run a few turns past the end
+        int planned = 0;
+        for (RecordingAI ai : ais) {
+            planned += ai.startHashes.size();
+            assertEquals(ai.startHashes.size(), new HashSet<>(ai.startHashes).size());
+        }
+        assertTrue(planned >= 60);
+        assertTrue(planned <= 60 + 2);
+    }
+
+    @Test
+    void testUserMoveInvalidatesSpeculation() throws InterruptedException {
+        Game game = new Game(16, 12, 2);
+        game.setUpGame();
+        RecordingAI ai = new RecordingAI(new RandomAI(1));
+        game.getPlayer(1).setAI(ai);
+
+        try (AiTurnPlanner planner = new AiTurnPlanner()) {
+            game.setAiPlanner(planner);
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while (ai.startHashes.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+
+            // The user moves every unit, so the AI's speculated turn no longer applies
+            Player user = game.getCurrentPlayer();
+            for (AxialPos pos : game.getPositionsForPlayer(user)) {
+                for (AxialPos to : game.getReachableHexes(pos)) {
+                    if (game.getUnitAt(to) == null && game.resolveAction(pos, to)) {
+                        break;
+                    }
+                }
+                assertFalse(game.pollAiTurn());
+            }
+            game.endTurn();
+            long startHash = game.getStateHash();
+            assertFalse(game.getCurrentPlayer() == user);
+
+            awaitAiTurn(game);
+            assertTrue(ai.startHashes.contains(startHash));
+            assertTrue(new HashSet<>(ai.startHashes).size() > 1);
+            assertFalse(game.getActionQueue().isEmpty());
+        }
+    }
+
+    @Test
+    void testTakenTurnIsNotPlannedAgain() throws InterruptedException {
+        Game game = Game.selfPlay(16, 12, 3, 1);
+        GateAI gate = new GateAI();
+        game.getPlayer(1).setAI(gate);
+        Player last = game.getPlayer(2);
+        RecordingAI ai = new RecordingAI(new RandomAI(2));
+        last.setAI(ai);
+
+        // The last player's turn, as it starts after the gated player makes no moves
+        GameState turn = game.copyState();
+        turn.setCurrentPlayer(last);
+        turn.startTurn(last);
+        long hash = turn.hash();
+
+        AiClock clock = new AiClock();
+        try (AiTurnPlanner planner = new AiTurnPlanner()) {
+            planner.request(turn, clock);
+            planner.speculate(game.copyState(), List.of(), List.of(game.getPlayer(1), last), clock);
+            assertTrue(gate.started.await(30, TimeUnit.SECONDS));
+
+            // The turn is taken while speculation is still on the turn before
+            long deadline = System.nanoTime() + TIMEOUT_NANOS;
+            while (planner.take(hash) == null) {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for an AI turn");
+                Thread.sleep(1);
+            }
+            gate.release.countDown();
+            Thread.sleep(200);
+        }
+
+        assertEquals(List.of(hash), ai.startHashes);
+    }
+
+    @Test
+    void testTakeIgnoresUnknownStates() {
+        try (AiTurnPlanner planner = new AiTurnPlanner()) {
+            assertNull(planner.take(42));
+        }
+    }
+}
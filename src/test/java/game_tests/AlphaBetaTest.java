@@ -0,0 +1,146 @@
+package game_tests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.board.Terrain;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.AlphaBetaAI;
+import tbs_game.player.Player;
+import tbs_game.player.PlayerType;
+import tbs_game.player.RandomAI;
+import tbs_game.sim.GameResult;
+import tbs_game.sim.GameRunner;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class AlphaBetaTest {
+
+    private Game game;
+    private GameState state;
+    private Player player;
+    private Player enemy;
+    private final AxialPos attackerPos = new OffsetPos(5, 5).toAxial();
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(12, 12, 2);
+        state = game.copyState();
+        player = game.getPlayer(0);
+        enemy = game.getPlayer(1);
+        state.setCurrentPlayer(player);
+    }
+
+    private Unit place(AxialPos pos, UnitType type, Player owner, int health) {
+        Unit unit = new Unit(type, owner);
+        state.placeUnitAt(pos, unit);
+        unit.dealDamage(unit.getHealth() - health);
+        return unit;
+    }
+
+    @Test
+    void testTakesTheKill() {
+        place(attackerPos, UnitType.WARRIOR, player, 10);
+        AxialPos weakPos = attackerPos.neighbor(0);
+        place(weakPos, UnitType.WARRIOR, enemy, 3);
+        place(new OffsetPos(10, 10).toAxial(), UnitType.ARCHER, enemy, 8);
+
+        List<ActionPath> plan = new AlphaBetaAI(60_000, 3).planTurn(state, player);
+
+        assertEquals(1, plan.size());
+        assertEquals(weakPos, plan.get(0).to);
+    }
+
+    @Test
+    void testKillsMostValuableVictim() {
+        place(attackerPos, UnitType.WARRIOR, player, 10);
+        place(attackerPos.neighbor(0), UnitType.ARCHER, enemy, 1);
+        AxialPos cavalryPos = attackerPos.neighbor(3);
+        place(cavalryPos, UnitType.CAVALRY, enemy, 1);
+
+        List<ActionPath> plan = new AlphaBetaAI(60_000, 3).planTurn(state, player);
+
+        assertEquals(cavalryPos, plan.get(0).to);
+    }
+
+    @Test
+    void testPlanIsLegalAndLeavesStateUnchanged() {
+        place(attackerPos, UnitType.WARRIOR, player, 10);
+        place(attackerPos.neighbor(2), UnitType.ARCHER, player, 8);
+        place(attackerPos.neighbor(4), UnitType.CAVALRY, player, 12);
+        place(new OffsetPos(8, 5).toAxial(), UnitType.WARRIOR, enemy, 10);
+        place(new OffsetPos(8, 7).toAxial(), UnitType.ARCHER, enemy, 8);
+        long hash = state.hash();
+
+        AlphaBetaAI ai = new AlphaBetaAI(60_000, 4);
+        List<ActionPath> plan = ai.planTurn(state, player);
+
+        assertEquals(hash, state.hash());
+        assertEquals(4, ai.getLastStats().depth());
+        assertTrue(ai.getLastStats().nodes() > 0);
+
+        GameState copy = state.createSimluationCopy();
+        ActionExecutor executor = new ActionExecutor(copy);
+        for (ActionPath move : plan) {
+            assertTrue(executor.resolve(move));
+        }
+    }
+
+    @Test
+    void testSkipsRangedAttackItCannotAfford() {
+        AxialPos archerPos = new OffsetPos(3, 4).toAxial();
+        AxialPos targetPos = new OffsetPos(5, 4).toAxial();
+        place(archerPos, UnitType.ARCHER, player, 8);
+        place(targetPos, UnitType.WARRIOR, enemy, 2);
+        state.getBoard().setTerrain(state.getBoard().indexOf(new OffsetPos(4, 4).toAxial()), Terrain.FOREST);
+
+        // In range, but every path to the target costs 3, so the search must pick something else to do
+        List<ActionPath> plan = new AlphaBetaAI(60_000, 3).planTurn(state, player);
+        assertEquals(1, plan.size());
+
+        GameState copy = state.createSimluationCopy();
+        ActionExecutor executor = new ActionExecutor(copy);
+        for (ActionPath move : plan) {
+            assertTrue(executor.resolvePath(move));
+        }
+        assertEquals(enemy, copy.getUnitAt(targetPos).getOwner());
+    }
+
+    @Test
+    void testStopsAtDeadline() {
+        place(attackerPos, UnitType.WARRIOR, player, 10);
+        place(attackerPos.neighbor(2), UnitType.CAVALRY, player, 12);
+        place(new OffsetPos(9, 5).toAxial(), UnitType.WARRIOR, enemy, 10);
+        place(new OffsetPos(9, 8).toAxial(), UnitType.CAVALRY, enemy, 12);
+
+        AlphaBetaAI ai = new AlphaBetaAI(20);
+        ai.planTurn(state, player);
+
+        assertTrue(ai.getLastStats().elapsedNanos() < 1_000_000_000L);
+        assertTrue(ai.getLastStats().depth() < AlphaBetaAI.DEFAULT_MAX_DEPTH);
+    }
+
+    @Test
+    void testWinsBattleAgainstRandomAI() {
+        Game battle = Game.battleSim(25, 20, 2);
+        battle.getBoard().makeAllPlains(); // Keeps the battle the same whatever terrain is generated
+        Player first = battle.getPlayer(0);
+        first.type = PlayerType.AI;
+        first.setAI(new AlphaBetaAI(60_000, 3));
+        battle.getPlayer(1).setAI(new RandomAI(3));
+
+        GameResult result = GameRunner.run(battle, 400);
+
+        assertEquals(GameResult.Outcome.WIN, result.outcome());
+        assertEquals(0, result.winner());
+    }
+}
@@ -0,0 +1,147 @@
+package game_tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.board.Board;
+import tbs_game.game.board.CellularGenerator;
+import tbs_game.game.board.Terrain;
+import tbs_game.game.board.Tile;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+
+class BoardTest {
+
+    private Board board;
+
+    @BeforeEach
+    void init() {
+        board = new Board(12, 9);
+        board.makeAllPlains();
+    }
+
+    @Test
+    void indexRoundTripsThroughPositions() {
+        assertEquals(board.getWidth() * board.getHeight(), board.getTileCount());
+
+        for (int i = 0; i < board.getTileCount(); i++) {
+            AxialPos pos = board.getPos(i);
+            assertEquals(i, board.indexOf(pos));
+        }
+    }
+
+    @Test
+    void indexIsRowMajorOffset() {
+        AxialPos pos = new OffsetPos(3, 5).toAxial();
+
+        assertEquals(5 * board.getWidth() + 3, board.indexOf(pos));
+    }
+
+    @Test
+    void positionsOffBoardHaveNoTile() {
+        AxialPos above = new OffsetPos(0, -1).toAxial();
+        AxialPos right = new OffsetPos(board.getWidth(), 0).toAxial();
+
+        assertEquals(-1, board.indexOf(above));
+        assertEquals(-1, board.indexOf(right));
+        assertFalse(board.isOnBoard(right));
+        assertNull(board.getTile(above));
+    }
+
+    @Test
+    void tileViewsWriteThroughToBoard() {
+        AxialPos pos = new OffsetPos(4, 4).toAxial();
+        int index = board.indexOf(pos);
+
+        board.getTile(pos).setTerrain(Terrain.FOREST);
+
+        assertEquals(Terrain.FOREST, board.getTerrain(index));
+        assertEquals(Terrain.FOREST.moveCost, board.cost(index));
+        assertSame(board.getTile(pos), board.getTile(index));
+    }
+
+    @Test
+    void putTileReplacesTerrain() {
+        AxialPos pos = new OffsetPos(2, 7).toAxial();
+        Tile water = new Tile(Terrain.WATER);
+
+        Tile previous = board.putTile(pos, water);
+
+        assertEquals(Terrain.PLAINS, previous.getTerrain());
+        assertFalse(board.isPassable(pos));
+        assertSame(water, board.getTile(pos));
+
+        water.setTerrain(Terrain.PLAINS);
+        assertTrue(board.isPassable(pos));
+        assertEquals(Terrain.PLAINS, previous.getTerrain());
+    }
+
+    @Test
+    void neighborTableWrapsHorizontally() {
+        int row = 4;
+        int leftEdge = board.indexOf(new OffsetPos(0, row).toAxial());
+        int rightEdge = board.indexOf(new OffsetPos(board.getWidth() - 1, row).toAxial());
+
+        assertEquals(rightEdge, board.neighbor(leftEdge, 3)); // 3 is directly to the left
+        assertEquals(leftEdge, board.neighbor(rightEdge, 0)); // 0 is directly to the right
+    }
+
+    @Test
+    void neighborTableStopsAtVerticalEdges() {
+        int top = board.indexOf(new OffsetPos(5, 0).toAxial());
+
+        assertEquals(-1, board.neighbor(top, 1));
+        assertEquals(-1, board.neighbor(top, 2));
+    }
+
+    @Test
+    void neighborTableMatchesAxialNeighbors() {
+        AxialPos pos = new OffsetPos(6, 4).toAxial();
+        int index = board.indexOf(pos);
+
+        for (int dir = 0; dir < 6; dir++) {
+            assertEquals(board.indexOf(pos.neighbor(dir)), board.neighbor(index, dir));
+        }
+    }
+
+    @Test
+    void edgeTilesCountWrappedNeighbors() {
+        AxialPos edge = new OffsetPos(0, 4).toAxial();
+        AxialPos across = new OffsetPos(board.getWidth() - 1, 4).toAxial();
+        board.getTile(across).setTerrain(Terrain.WATER);
+
+        assertEquals(1, board.countNeighbors(edge, Terrain.WATER));
+    }
+
+    @Test
+    void generatedTerrainIsSameOnAnyThreadCount() {
+        byte[] serial = new byte[300 * 250];
+        byte[] parallel = new byte[300 * 250];
+        CellularGenerator.generate(serial, 300, 7, false);
+        CellularGenerator.generate(parallel, 300, 7, true);
+
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    void generatedTerrainFollowsSeed() {
+        Board same = new Board(40, 30, 5);
+        Board other = new Board(40, 30, 6);
+        Board again = new Board(40, 30, 5);
+
+        boolean differs = false;
+        for (int i = 0; i < same.getTileCount(); i++) {
+            assertEquals(same.getTerrain(i), again.getTerrain(i));
+            differs |= same.getTerrain(i) != other.getTerrain(i);
+        }
+        assertTrue(differs);
+        assertThrows(IllegalArgumentException.class, () -> CellularGenerator.generate(new byte[10], 4, 1));
+    }
+}
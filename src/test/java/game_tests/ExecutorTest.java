@@ -1,9 +1,14 @@
 package game_tests;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -184,4 +189,35 @@ public class ExecutorTest {
         assertNull(state.getUnitAt(rightEdgePos));
         assertNotNull(state.getUnitAt(target));
     }
+
+    // ----- resolvePath -----
+    private ActionPath path(AxialPos... steps) {
+        return new ActionPath(steps[0], steps[steps.length - 1], new ArrayList<>(List.of(steps)), -1);
+    }
+
+    @Test
+    void testResolvePathFollowsTheGivenPath() {
+        setUpSoloUnit(p1Pos);
+        state.setCurrentPlayer(player1);
+        Unit unit = state.getUnitAt(p1Pos);
+        AxialPos detour = p1Pos.neighbor(1);
+        AxialPos target = p1Pos.neighbor(0);
+
+        assertTrue(executor.resolvePath(path(p1Pos, detour, target)));
+
+        assertSame(unit, state.getUnitAt(target));
+        assertEquals(unit.getMaxMovementPoints() - 2, unit.getMovementPoints());
+    }
+
+    @Test
+    void testResolvePathRejectsBrokenOrCostlyPaths() {
+        setUpSoloUnit(p1Pos);
+        state.setCurrentPlayer(player1);
+        AxialPos far = p1Pos.add(new AxialPos(2, 0));
+
+        assertFalse(executor.resolvePath(path(p1Pos, far))); // Skips a tile
+        assertFalse(executor.resolvePath(path(p1Pos, p1Pos.neighbor(1), p1Pos.neighbor(0), p1Pos.neighbor(5),
+                p1Pos.neighbor(4)))); // Longer than the unit can go
+        assertNotNull(state.getUnitAt(p1Pos));
+    }
 }
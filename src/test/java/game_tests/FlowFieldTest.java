@@ -0,0 +1,138 @@
+package game_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.FlowField;
+import tbs_game.game.board.FlowFieldCache;
+import tbs_game.game.board.Terrain;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+class FlowFieldTest {
+
+    @Test
+    void testCostsMatchShortestPaths() {
+        Game game = Game.selfPlay(30, 20, 2, 8);
+        GameState state = new GameState(game.getBoard()); // No units in the way
+        Board board = state.getBoard();
+        MovementPlanner planner = new MovementPlanner(state);
+
+        int target = passableTile(board, board.getTileCount() / 2);
+        FlowField field = board.getFlowFields().get(target);
+
+        IntList path = new IntList();
+        for (int tile = 0; tile < board.getTileCount(); tile += 7) {
+            int expected = board.isPassable(tile) ? planner.findPath(tile, target, path) : -1;
+            int cost = field.path(tile, path);
+            assertEquals(expected, cost, "From tile " + tile);
+            if (cost >= 0) {
+                assertEquals(tile, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+            }
+        }
+    }
+
+    @Test
+    void testFieldWrapsAcrossEdge() {
+        Board board = Game.allPlains(20, 10, 2).getBoard();
+        int target = board.indexOf(new OffsetPos(0, 5).toAxial());
+        int farSide = board.indexOf(new OffsetPos(19, 5).toAxial());
+
+        FlowField field = board.getFlowFields().get(target);
+
+        assertEquals(1, field.costFrom(farSide));
+        assertEquals(target, field.nextTile(farSide));
+        assertEquals(-1, field.nextTile(target));
+    }
+
+    @Test
+    void testLeadsToNearestTarget() {
+        Board board = Game.allPlains(20, 10, 2).getBoard();
+        int near = board.indexOf(new OffsetPos(5, 5).toAxial());
+        int far = board.indexOf(new OffsetPos(15, 5).toAxial());
+        int start = board.indexOf(new OffsetPos(7, 5).toAxial());
+
+        FlowField field = board.getFlowFields().get(new int[]{far, near});
+
+        IntList path = new IntList();
+        assertEquals(2, field.path(start, path));
+        assertEquals(near, path.get(path.size() - 1));
+        assertTrue(field.isTarget(far));
+    }
+
+    @Test
+    void testCacheDropsFieldsOnceTerrainChanges() {
+        Board board = Game.allPlains(20, 10, 2).getBoard();
+        FlowFieldCache cache = board.getFlowFields();
+        int a = board.indexOf(new OffsetPos(3, 3).toAxial());
+        int b = board.indexOf(new OffsetPos(9, 6).toAxial());
+
+        FlowField first = cache.get(new int[]{a, b});
+        assertSame(first, cache.get(new int[]{b, a}));
+        assertEquals(1, cache.getHits());
+
+        int beside = board.neighbor(a, 0);
+        assertEquals(1, first.costFrom(beside));
+
+        // Entering a tile pays its cost, so a forest target is now further away
+        board.setTerrain(a, Terrain.FOREST);
+        FlowField rebuilt = cache.get(new int[]{a, b});
+
+        assertNotSame(first, rebuilt);
+        assertEquals(board.getVersion(), rebuilt.getBoardVersion());
+        assertEquals(2, rebuilt.costFrom(beside));
+    }
+
+    @Test
+    void testUnitsConvergeWithoutSearching() {
+        Game game = Game.allPlains(20, 12, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        MovementPlanner planner = new MovementPlanner(state);
+        Player player = game.getPlayer(0);
+
+        int target = board.indexOf(new OffsetPos(10, 6).toAxial());
+        int[] starts = {
+            board.indexOf(new OffsetPos(4, 6).toAxial()),
+            board.indexOf(new OffsetPos(16, 6).toAxial()),
+            board.indexOf(new OffsetPos(10, 1).toAxial())
+        };
+        for (int start : starts) {
+            state.placeUnitAt(board.getPos(start), new Unit(UnitType.CAVALRY, player));
+        }
+        FlowField field = board.getFlowFields().get(target);
+
+        IntList walk = new IntList();
+        for (int start : starts) {
+            int spent = planner.followFlowField(start, field, walk);
+            int end = walk.get(walk.size() - 1);
+
+            assertEquals(UnitType.CAVALRY.moveRange, spent);
+            assertEquals(field.costFrom(start) - spent, field.costFrom(end));
+            state.moveUnitInternal(start, end);
+        }
+
+        // A unit on the way stops the walk short
+        state.placeUnitAt(board.getPos(field.nextTile(starts[0])), new Unit(UnitType.WARRIOR, player));
+        assertEquals(0, planner.followFlowField(starts[0], field, walk));
+    }
+
+    private static int passableTile(Board board, int from) {
+        int tile = from;
+        while (!board.isPassable(tile)) {
+            tile++;
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,46 @@
+package game_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.sim.GameResult;
+import tbs_game.sim.GameRunner;
+
+class GameRunnerTest {
+
+    @Test
+    void testSameSeedPlaysSameGame() {
+        GameRunner runner = new GameRunner(20, 16, 3, 500);
+
+        GameResult first = runner.run(42);
+        GameResult second = runner.run(42);
+
+        assertEquals(first.outcome(), second.outcome());
+        assertEquals(first.winner(), second.winner());
+        assertEquals(first.turns(), second.turns());
+    }
+
+    @Test
+    void testRunnerStopsAtTurnLimit() {
+        GameResult result = new GameRunner(20, 16, 3, 10).run(7);
+
+        assertEquals(GameResult.Outcome.TURN_LIMIT, result.outcome());
+        assertEquals(10, result.turns());
+        assertEquals(-1, result.winner());
+    }
+
+    @Test
+    void testManySeedsFinish() {
+        GameRunner runner = new GameRunner(16, 12, 2, 3000);
+
+        for (long seed = 0; seed < 20; seed++) {
+            GameResult result = runner.run(seed);
+            assertNotEquals(GameResult.Outcome.STALLED, result.outcome());
+            if (result.outcome() == GameResult.Outcome.WIN) {
+                assertTrue(result.winner() >= 0);
+            }
+        }
+    }
+}
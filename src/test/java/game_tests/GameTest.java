@@ -1,14 +1,24 @@
 package game_tests;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import tbs_game.game.ActionPath;
 import tbs_game.game.Game;
+import tbs_game.game.actions.ActionQueue;
+import tbs_game.game.actions.GameEvent;
+import tbs_game.game.actions.MoveAction;
+import tbs_game.game.actions.MoveEvent;
 import tbs_game.hexes.AxialPos;
 import tbs_game.hexes.OffsetPos;
 import tbs_game.units.Unit;
@@ -121,4 +131,23 @@ public class GameTest {
 
         assertTrue(unit.canAct());
     }
+
+    @Test
+    void moveActionAppliesWithoutGui() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getCurrentPlayer());
+        game.placeUnitAt(start, unit);
+
+        AxialPos to = start.neighbor(2);
+        ActionPath move = new ActionPath(start, to, new ArrayList<>(List.of(start, to)), 1);
+        ActionQueue queue = game.getActionQueue();
+        queue.addAction(new MoveAction(move));
+
+        GameEvent event = queue.applyNextAction(game);
+
+        MoveEvent moveEvent = assertInstanceOf(MoveEvent.class, event);
+        assertTrue(moveEvent.applied());
+        assertSame(move, moveEvent.move());
+        assertEquals(unit, game.getUnitAt(to));
+        assertNull(queue.applyNextAction(game));
+    }
 }
@@ -0,0 +1,100 @@
+package game_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class HashTest {
+
+    private Game game;
+    private GameState state;
+    private final AxialPos a = new OffsetPos(3, 3).toAxial();
+    private final AxialPos b = new OffsetPos(7, 7).toAxial();
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(12, 12, 2);
+        state = game.copyState();
+    }
+
+    @Test
+    void testSamePositionSameHash() {
+        GameState other = game.copyState();
+
+        state.placeUnitAt(a, new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+        state.placeUnitAt(b, new Unit(UnitType.ARCHER, game.getPlayer(1)));
+        other.placeUnitAt(b, new Unit(UnitType.ARCHER, game.getPlayer(1)));
+        other.placeUnitAt(a, new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+
+        assertEquals(state.hash(), other.hash());
+    }
+
+    @Test
+    void testHashTracksUnitChanges() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        state.placeUnitAt(a, unit);
+        long placed = state.hash();
+
+        unit.dealDamage(1);
+        assertNotEquals(placed, state.hash());
+        assertEquals(state.computeHash(), state.hash());
+
+        unit.spendMovementPoints(1);
+        unit.markAttacked();
+        assertEquals(state.computeHash(), state.hash());
+
+        state.moveUnitInternal(a, b);
+        assertEquals(state.computeHash(), state.hash());
+    }
+
+    @Test
+    void testHashIncludesCurrentPlayer() {
+        long before = state.hash();
+
+        state.setCurrentPlayer(game.getPlayer(1));
+        assertNotEquals(before, state.hash());
+
+        state.setCurrentPlayer(game.getPlayer(0));
+        assertEquals(before, state.hash());
+    }
+
+    @Test
+    void testCaptureAndRollbackKeepHashInSync() {
+        state.placeUnitAt(a, new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+        AxialPos defenderPos = a.neighbor(0);
+        Unit defender = new Unit(UnitType.WARRIOR, game.getPlayer(1));
+        state.placeUnitAt(defenderPos, defender);
+        defender.dealDamage(defender.getHealth() - 1);
+
+        state.setJournaling(true);
+        long before = state.hash();
+        int mark = state.mark();
+
+        new ActionExecutor(state).attack(a, defenderPos);
+        assertEquals(state.computeHash(), state.hash());
+
+        state.rollback(mark);
+        assertEquals(before, state.hash());
+    }
+
+    @Test
+    void testCopyStartsWithSameHash() {
+        state.placeUnitAt(a, new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+
+        GameState copy = state.createSimluationCopy();
+        assertEquals(state.hash(), copy.hash());
+
+        copy.getUnitAt(a).dealDamage(2);
+        assertNotEquals(state.hash(), copy.hash());
+        assertEquals(state.computeHash(), state.hash());
+    }
+}
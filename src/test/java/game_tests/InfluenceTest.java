@@ -0,0 +1,172 @@
+package game_tests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.InfluenceMap;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.Player;
+import tbs_game.player.RandomAI;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class InfluenceTest {
+
+    private Game game;
+    private GameState state;
+    private Player player;
+    private Player enemy;
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(12, 12, 2);
+        state = game.copyState();
+        player = game.getPlayer(0);
+        enemy = game.getPlayer(1);
+    }
+
+    // Influence straight from its definition
+    private static int expected(GameState state, int seat, int index) {
+        Board board = state.getBoard();
+        int sum = 0;
+        Player owner = state.getPlayer(seat);
+        for (AxialPos pos : state.getUnitPositionsForPlayer(owner)) {
+            UnitType type = state.getUnitAt(pos).getType();
+            if (state.distanceBetween(pos, board.getPos(index)) <= InfluenceMap.radiusOf(type)) {
+                sum += InfluenceMap.strengthOf(type);
+            }
+        }
+        return sum;
+    }
+
+    private static void assertMatchesDefinition(GameState state) {
+        InfluenceMap map = state.getInfluenceMap();
+        for (int index = 0; index < state.getBoard().getTileCount(); index++) {
+            int total = 0;
+            for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+                int influence = expected(state, seat, index);
+                assertEquals(influence, map.influence(seat, index), "Seat " + seat + " tile " + index);
+                total += influence;
+            }
+            assertEquals(total, map.total(index));
+        }
+    }
+
+    @Test
+    void testUnitProjectsOverMoveAndAttackRange() {
+        AxialPos pos = new OffsetPos(5, 5).toAxial();
+        state.placeUnitAt(pos, new Unit(UnitType.WARRIOR, player));
+        state.setInfluenceTracking(true);
+
+        Board board = state.getBoard();
+        int radius = InfluenceMap.radiusOf(UnitType.WARRIOR);
+        AxialPos edge = pos;
+        for (int i = 0; i < radius; i++) {
+            edge = edge.neighbor(0);
+        }
+        assertEquals(UnitType.WARRIOR.attackDamage, state.getInfluence(player, board.indexOf(pos)));
+        assertEquals(UnitType.WARRIOR.attackDamage, state.getInfluence(player, board.indexOf(edge)));
+        assertEquals(0, state.getInfluence(player, board.indexOf(edge.neighbor(0))));
+        assertEquals(UnitType.WARRIOR.attackDamage, state.getThreat(enemy, board.indexOf(edge)));
+        assertEquals(0, state.getThreat(player, board.indexOf(edge)));
+    }
+
+    @Test
+    void testInfluenceWrapsAcrossEdge() {
+        state.placeUnitAt(new OffsetPos(0, 5).toAxial(), new Unit(UnitType.CAVALRY, player));
+        state.setInfluenceTracking(true);
+
+        assertMatchesDefinition(state);
+        int farSide = state.getBoard().indexOf(new OffsetPos(11, 5).toAxial());
+        assertEquals(UnitType.CAVALRY.attackDamage, state.getInfluence(player, farSide));
+    }
+
+    @Test
+    void testStaysCorrectOnNarrowBoards() {
+        // Narrower than a cavalry unit's reach, so its range meets itself round the wrap
+        for (int width = 2; width <= 10; width++) {
+            GameState narrow = Game.allPlains(width, 12, 2).copyState();
+            Player owner = narrow.getPlayer(0);
+            narrow.placeUnitAt(new OffsetPos(0, 6).toAxial(), new Unit(UnitType.CAVALRY, owner));
+            narrow.placeUnitAt(new OffsetPos(width - 1, 3).toAxial(), new Unit(UnitType.ARCHER, narrow.getPlayer(1)));
+            narrow.setInfluenceTracking(true);
+            assertMatchesDefinition(narrow);
+
+            for (int col = 1; col < width; col++) {
+                narrow.moveUnitInternal(new OffsetPos(col - 1, 6).toAxial(), new OffsetPos(col, 6).toAxial());
+                assertMatchesDefinition(narrow);
+            }
+            narrow.moveUnitInternal(new OffsetPos(width - 1, 6).toAxial(), new OffsetPos(width - 1, 7).toAxial());
+            assertMatchesDefinition(narrow);
+        }
+    }
+
+    @Test
+    void testStaysCorrectThroughPlay() {
+        Game selfPlay = Game.selfPlay(20, 16, 3, 9);
+        GameState sim = selfPlay.copyState();
+        sim.setInfluenceTracking(true);
+        ActionExecutor executor = new ActionExecutor(sim);
+        assertMatchesDefinition(sim);
+
+        for (int turn = 0; turn < 12; turn++) {
+            Player current = sim.getPlayer(turn % sim.getPlayerCount());
+            sim.setCurrentPlayer(current);
+            sim.startTurn(current);
+            List<ActionPath> moves = new RandomAI(turn).planTurn(sim, current);
+            for (ActionPath move : moves) {
+                executor.resolveMove(move.from, move.to);
+            }
+            assertMatchesDefinition(sim);
+        }
+    }
+
+    @Test
+    void testRollbackRestoresInfluence() {
+        AxialPos attackerPos = new OffsetPos(5, 5).toAxial();
+        AxialPos defenderPos = attackerPos.neighbor(0);
+        state.placeUnitAt(attackerPos, new Unit(UnitType.WARRIOR, player));
+        Unit defender = new Unit(UnitType.ARCHER, enemy);
+        state.placeUnitAt(defenderPos, defender);
+        state.setInfluenceTracking(true);
+        state.setJournaling(true);
+        int mark = state.mark();
+
+        state.captureUnit(attackerPos, defenderPos);
+        state.moveUnitInternal(defenderPos, defenderPos.neighbor(0));
+        state.placeUnitAt(new OffsetPos(1, 1).toAxial(), new Unit(UnitType.CAVALRY, enemy));
+        assertMatchesDefinition(state);
+
+        state.rollback(mark);
+        assertMatchesDefinition(state);
+    }
+
+    @Test
+    void testForksAreIndependent() {
+        AxialPos pos = new OffsetPos(5, 5).toAxial();
+        state.placeUnitAt(pos, new Unit(UnitType.WARRIOR, player));
+        state.setInfluenceTracking(true);
+
+        GameState fork = state.createSimluationCopy();
+        fork.moveUnitInternal(pos, new OffsetPos(9, 9).toAxial());
+        fork.removeUnitAt(new OffsetPos(9, 9).toAxial());
+
+        assertMatchesDefinition(state);
+        assertMatchesDefinition(fork);
+    }
+
+    @Test
+    void testQueriesNeedTracking() {
+        assertThrows(IllegalStateException.class, () -> state.getInfluenceMap());
+    }
+}
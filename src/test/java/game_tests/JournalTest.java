@@ -0,0 +1,225 @@
+package game_tests;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.ActionExecutor;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class JournalTest {
+
+    private Game game;
+    private GameState state;
+    private ActionExecutor executor;
+    private final AxialPos p1Pos = new OffsetPos(5, 5).toAxial();
+    private final AxialPos p2Pos = new OffsetPos(6, 5).toAxial();
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(12, 12, 2);
+        state = game.copyState();
+        executor = new ActionExecutor(state);
+        state.setJournaling(true);
+    }
+
+    @Test
+    void testRollbackUndoesMove() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        state.placeUnitAt(p1Pos, unit);
+        int mark = state.mark();
+
+        AxialPos to = p1Pos.neighbor(3);
+        state.moveUnitInternal(p1Pos, to);
+        unit.spendMovementPoints(1);
+        state.rollback(mark);
+
+        assertSame(unit, state.getUnitAt(p1Pos));
+        assertNull(state.getUnitAt(to));
+        assertEquals(unit.getMaxMovementPoints(), unit.getMovementPoints());
+        assertEquals(List.of(p1Pos), state.getUnitPositionsForPlayer(game.getPlayer(0)));
+    }
+
+    @Test
+    void testVersionKeepsCountingThroughRollback() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        state.placeUnitAt(p1Pos, unit);
+        long hash = state.hash();
+        long version = state.getVersion();
+        int mark = state.mark();
+
+        state.moveUnitInternal(p1Pos, p1Pos.neighbor(3));
+        assertTrue(state.getVersion() > version);
+        long moved = state.getVersion();
+
+        state.rollback(mark);
+        assertEquals(hash, state.hash()); // Same position, but a version never seen before
+        assertTrue(state.getVersion() > moved);
+    }
+
+    @Test
+    void testRollbackRestoresCapturedUnit() {
+        Unit attacker = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        Unit defender = new Unit(UnitType.WARRIOR, game.getPlayer(1));
+        state.placeUnitAt(p1Pos, attacker);
+        state.placeUnitAt(p2Pos, defender);
+        defender.dealDamage(defender.getHealth() - 1);
+        int mark = state.mark();
+
+        executor.attack(p1Pos, p2Pos);
+        assertSame(attacker, state.getUnitAt(p2Pos));
+
+        state.rollback(mark);
+        assertSame(attacker, state.getUnitAt(p1Pos));
+        assertSame(defender, state.getUnitAt(p2Pos));
+        assertEquals(1, defender.getHealth());
+        assertFalse(attacker.hasAttacked());
+    }
+
+    @Test
+    void testRollbackUndoesPlacement() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        int mark = state.mark();
+
+        state.placeUnitAt(p1Pos, unit);
+        state.rollback(mark);
+
+        assertNull(state.getUnitAt(p1Pos));
+        assertTrue(state.getAllUnitPositions().isEmpty());
+        state.placeUnitAt(p2Pos, unit); // Unit is free to place again
+        assertSame(unit, state.getUnitAt(p2Pos));
+    }
+
+    @Test
+    void testRollbackRestoresTurn() {
+        Player first = state.getCurrentPlayer();
+        int mark = state.mark();
+
+        state.setCurrentPlayer(game.getPlayer(1));
+        state.endGame();
+        state.rollback(mark);
+
+        assertSame(first, state.getCurrentPlayer());
+        assertFalse(state.isGameOver());
+    }
+
+    @Test
+    void testNestedMarks() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        state.placeUnitAt(p1Pos, unit);
+
+        int outer = state.mark();
+        unit.dealDamage(1);
+        int inner = state.mark();
+        unit.dealDamage(2);
+
+        state.rollback(inner);
+        assertEquals(UnitType.WARRIOR.maxHp - 1, unit.getHealth());
+        state.rollback(outer);
+        assertEquals(UnitType.WARRIOR.maxHp, unit.getHealth());
+    }
+
+    @Test
+    void testRollbackMatchesCopyAfterRandomPlay() {
+        Random random = new Random(3);
+        for (int i = 0; i < 12; i++) {
+            AxialPos pos = new OffsetPos(1 + random.nextInt(10), 1 + random.nextInt(10)).toAxial();
+            if (state.getUnitAt(pos) == null) {
+                state.placeUnitAt(pos, new Unit(UnitType.WARRIOR, game.getPlayer(i % 2)));
+            }
+        }
+        GameState before = state.createSimluationCopy();
+        int mark = state.mark();
+
+        MovementPlanner planner = new MovementPlanner(state);
+        for (int turn = 0; turn < 6; turn++) {
+            Player player = game.getPlayer(turn % 2);
+            state.setCurrentPlayer(player);
+            state.startTurn(player);
+            for (AxialPos pos : state.getUnitPositionsForPlayer(player)) {
+                List<AxialPos> reachable = List.copyOf(planner.getReachableHexes(pos));
+                if (reachable.isEmpty()) {
+                    continue;
+                }
+                AxialPos dest = reachable.get(random.nextInt(reachable.size()));
+                if (state.getUnitAt(dest) == null) {
+                    executor.move(planner.planAction(pos, dest));
+                } else if (state.distanceBetween(pos, dest) == 1) {
+                    executor.attack(pos, dest);
+                }
+            }
+        }
+
+        state.rollback(mark);
+        assertEquals(before.getAllUnitPositions(), state.getAllUnitPositions());
+        for (AxialPos pos : before.getAllUnitPositions()) {
+            Unit expected = before.getUnitAt(pos);
+            Unit actual = state.getUnitAt(pos);
+            assertEquals(expected.getHealth(), actual.getHealth());
+            assertEquals(expected.getMovementPoints(), actual.getMovementPoints());
+            assertEquals(expected.hasAttacked(), actual.hasAttacked());
+        }
+        assertSame(before.getCurrentPlayer(), state.getCurrentPlayer());
+    }
+
+    @Test
+    void testMarkNeedsJournaling() {
+        state.setJournaling(false);
+
+        assertThrows(IllegalStateException.class, () -> state.mark());
+    }
+
+    @Test
+    void testUserMoveUndoAndRedo() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getCurrentPlayer());
+        game.placeUnitAt(p1Pos, unit);
+        AxialPos to = p1Pos.neighbor(2);
+
+        assertTrue(game.resolveAction(p1Pos, to));
+        assertTrue(game.undoLastMove());
+        assertSame(unit, game.getUnitAt(p1Pos));
+        assertTrue(unit.canAct());
+        assertFalse(unit.hasActed());
+
+        assertTrue(game.redoMove());
+        assertSame(unit, game.getUnitAt(to));
+        assertFalse(game.redoMove());
+    }
+
+    @Test
+    void testUndoGivesBackCancelledOrder() {
+        Unit unit = new Unit(UnitType.WARRIOR, game.getCurrentPlayer());
+        game.placeUnitAt(p1Pos, unit);
+        AxialPos to = p1Pos.neighbor(2);
+        AxialPos goal = p1Pos.neighbor(5).neighbor(5);
+        int from = game.getBoard().indexOf(p1Pos);
+        int goalIndex = game.getBoard().indexOf(goal);
+        assertTrue(game.giveMoveOrder(p1Pos, goal));
+
+        assertTrue(game.resolveAction(p1Pos, to));
+        assertFalse(game.getMoveOrders().hasOrder(from));
+
+        assertTrue(game.undoLastMove());
+        assertEquals(goalIndex, game.getMoveOrders().goalOf(from));
+
+        assertTrue(game.redoMove());
+        assertFalse(game.getMoveOrders().hasOrder(game.getBoard().indexOf(to)));
+        assertTrue(game.undoLastMove());
+        assertEquals(goalIndex, game.getMoveOrders().goalOf(from));
+    }
+}
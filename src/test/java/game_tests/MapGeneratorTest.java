@@ -0,0 +1,109 @@
+package game_tests;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.board.Board;
+import tbs_game.game.board.MapGenerator;
+import tbs_game.game.board.MapLayers;
+import tbs_game.game.board.MapStages;
+import tbs_game.game.board.Terrain;
+import tbs_game.hexes.OffsetPos;
+
+class MapGeneratorTest {
+
+    @Test
+    void noiseMapIsSameOnAnyThreadCount() {
+        byte[] serial = new byte[300 * 250];
+        byte[] parallel = new byte[300 * 250];
+        MapGenerator.noise().generate(new MapLayers(serial, 300, 7, false));
+        MapGenerator.noise().generate(new MapLayers(parallel, 300, 7, true));
+
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    void noiseRunsOnAcrossTheSeam() {
+        int width = 200;
+        MapLayers map = new MapLayers(new byte[width * 100], width, 3);
+        MapStages.elevation(20, 4).generate(map);
+        float[] elevation = map.getElevation();
+
+        // No step across the seam is bigger than the steps between any other neighbors in a row
+        float seam = 0;
+        float inside = 0;
+        for (int row = 0; row < 100; row++) {
+            int start = row * width;
+            seam = Math.max(seam, Math.abs(elevation[start] - elevation[start + width - 1]));
+            for (int col = 1; col < width; col++) {
+                inside = Math.max(inside, Math.abs(elevation[start + col] - elevation[start + col - 1]));
+            }
+        }
+        assertTrue(seam <= inside, "Seam step " + seam + " against " + inside);
+    }
+
+    @Test
+    void classifyPaintsRequestedShares() {
+        byte[] terrain = new byte[256 * 256];
+        MapStages.elevation(32, 4)
+                .then(MapStages.moisture(16, 3))
+                .then(MapStages.classify(0.3, 0.1, 0.2))
+                .generate(new MapLayers(terrain, 256, 11));
+
+        int[] counts = new int[Terrain.values().length];
+        for (byte type : terrain) {
+            counts[type]++;
+        }
+        assertEquals(0.3, counts[Terrain.WATER.ordinal()] / (double) terrain.length, 0.01);
+        assertEquals(0.1, counts[Terrain.MOUNTAIN.ordinal()] / (double) terrain.length, 0.01);
+        assertEquals(0.2 * 0.6, counts[Terrain.FOREST.ordinal()] / (double) terrain.length, 0.05);
+        assertThrows(IllegalArgumentException.class, () -> MapStages.classify(0.8, 0.3, 0));
+    }
+
+    @Test
+    void cleanCoastRemovesLoneTiles() {
+        Board board = new Board(20, 20, 1, map -> { });
+        board.makeAllPlains();
+        int puddle = board.indexOf(new OffsetPos(5, 5).toAxial());
+        board.setTerrain(puddle, Terrain.WATER);
+
+        // A sea with a one tile island at the wrapped edge, and land along its shore
+        for (int row = 10; row < 20; row++) {
+            for (int col = 0; col < 20; col++) {
+                board.setTerrain(board.indexOf(new OffsetPos(col, row).toAxial()), Terrain.WATER);
+            }
+        }
+        int island = board.indexOf(new OffsetPos(19, 14).toAxial());
+        board.setTerrain(island, Terrain.FOREST);
+        int shore = board.indexOf(new OffsetPos(8, 10).toAxial());
+        board.setTerrain(shore, Terrain.PLAINS);
+
+        int version = board.getVersion();
+        board.generate(MapStages.cleanCoast(), 1);
+        assertEquals(Terrain.PLAINS, board.getTerrain(puddle));
+        assertEquals(Terrain.WATER, board.getTerrain(island));
+        assertEquals(Terrain.PLAINS, board.getTerrain(shore)); // Touches the land above it
+        assertTrue(board.getVersion() > version);
+    }
+
+    @Test
+    void stagesRunInOrder() {
+        MapGenerator forest = map -> Arrays.fill(map.getTerrain(), (byte) Terrain.FOREST.ordinal());
+        MapGenerator water = map -> map.getTerrain()[0] = (byte) Terrain.WATER.ordinal();
+
+        Board board = new Board(10, 10, 1, forest.then(water));
+        assertEquals(Terrain.WATER, board.getTerrain(0));
+        assertEquals(Terrain.FOREST, board.getTerrain(1));
+
+        Board noise = new Board(40, 30, 5, MapGenerator.noise());
+        Board again = new Board(40, 30, 5, MapGenerator.noise());
+        for (int i = 0; i < noise.getTileCount(); i++) {
+            assertEquals(noise.getTerrain(i), again.getTerrain(i));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package game_tests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.MctsAI;
+import tbs_game.player.Player;
+import tbs_game.sim.GameResult;
+import tbs_game.sim.GameRunner;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class MctsTest {
+
+    private Game game;
+    private GameState state;
+    private Player player;
+    private final AxialPos attackerPos = new OffsetPos(5, 5).toAxial();
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(12, 12, 2);
+        state = game.copyState();
+        player = game.getPlayer(0);
+        state.setCurrentPlayer(player);
+    }
+
+    @Test
+    void testFinishesOffWeakEnemy() {
+        AxialPos enemyPos = attackerPos.neighbor(0);
+        state.placeUnitAt(attackerPos, new Unit(UnitType.WARRIOR, player));
+        Unit enemy = new Unit(UnitType.WARRIOR, game.getPlayer(1));
+        state.placeUnitAt(enemyPos, enemy);
+        enemy.dealDamage(enemy.getHealth() - 1);
+
+        List<ActionPath> plan = new MctsAI(10_000, 1, 300, 1).planTurn(state, player);
+
+        assertEquals(1, plan.size());
+        assertEquals(enemyPos, plan.get(0).to);
+    }
+
+    @Test
+    void testPlanningLeavesStateUnchanged() {
+        state.placeUnitAt(attackerPos, new Unit(UnitType.WARRIOR, player));
+        state.placeUnitAt(new OffsetPos(8, 8).toAxial(), new Unit(UnitType.ARCHER, game.getPlayer(1)));
+        long hash = state.hash();
+
+        MctsAI ai = new MctsAI(10_000, 2, 100, 1);
+        ai.planTurn(state, player);
+
+        assertEquals(hash, state.hash());
+        assertEquals(100, ai.getLastStats().playouts());
+        assertTrue(ai.getLastStats().playoutsPerSecond() > 0);
+    }
+
+    @Test
+    void testSameSeedSamePlan() {
+        state.placeUnitAt(attackerPos, new Unit(UnitType.WARRIOR, player));
+        state.placeUnitAt(attackerPos.neighbor(3), new Unit(UnitType.CAVALRY, player));
+        state.placeUnitAt(new OffsetPos(9, 5).toAxial(), new Unit(UnitType.WARRIOR, game.getPlayer(1)));
+
+        List<ActionPath> first = new MctsAI(10_000, 1, 200, 5).planTurn(state, player);
+        List<ActionPath> second = new MctsAI(10_000, 1, 200, 5).planTurn(state, player);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).to, second.get(i).to);
+        }
+    }
+
+    @Test
+    void testPlaysFullGames() {
+        GameRunner runner = new GameRunner(16, 12, 2, 60,
+                seat -> seat == 0 ? new MctsAI(1_000, 1, 50, seat) : null);
+
+        GameResult result = runner.run(3);
+        assertNotEquals(GameResult.Outcome.STALLED, result.outcome());
+    }
+}
@@ -0,0 +1,246 @@
+package game_tests;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.Terrain;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MoveOrders;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.Player;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+class MoveOrdersTest {
+
+    @Test
+    void testRepairedPathsMatchFreshSearches() {
+        Game game = Game.selfPlay(40, 30, 2, 5);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        MovementPlanner planner = new MovementPlanner(state);
+        MoveOrders orders = new MoveOrders(state);
+        Random random = new Random(3);
+
+        int start = passableTile(board, random);
+        int goal = passableTile(board, random);
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+        assertTrue(orders.give(start, goal));
+
+        IntList path = new IntList();
+        IntList fresh = new IntList();
+        for (int change = 0; change < 60; change++) {
+            int cost = orders.path(start, path);
+            assertEquals(planner.findPath(start, goal, fresh), cost, "After " + change + " changes");
+            if (cost >= 0) {
+                assertValidPath(board, start, goal, path, cost);
+            }
+
+            // Block a tile on the path, free one, or repaint terrain
+            int tile = path.size() > 2 ? path.get(1 + random.nextInt(path.size() - 2)) : passableTile(board, random);
+            switch (change % 3) {
+                case 0 -> {
+                    if (!state.hasUnitAt(tile)) {
+                        state.placeUnitAt(board.getPos(tile), new Unit(UnitType.ARCHER, game.getPlayer(1)));
+                    }
+                }
+                case 1 -> board.setTerrain(tile, Terrain.FOREST);
+                default -> {
+                    IntList units = new IntList();
+                    state.getUnitTilesForPlayer(game.getPlayer(1), units);
+                    state.removeUnitAt(units.get(random.nextInt(units.size())));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testUnchangedBoardNeedsNoSearch() {
+        Game game = Game.allPlains(100, 30, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        MoveOrders orders = new MoveOrders(state);
+        int start = board.indexOf(new OffsetPos(5, 15).toAxial());
+        int goal = board.indexOf(new OffsetPos(45, 15).toAxial());
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.WARRIOR, game.getPlayer(0)));
+        orders.give(start, goal);
+
+        IntList path = new IntList();
+        assertEquals(40, orders.path(start, path));
+        long first = orders.getExpansions();
+
+        assertEquals(40, orders.path(start, path));
+        assertEquals(first, orders.getExpansions());
+
+        // A unit stepping off to the side of the route only costs a local repair
+        int aside = board.indexOf(new OffsetPos(20, 2).toAxial());
+        state.placeUnitAt(board.getPos(aside), new Unit(UnitType.WARRIOR, game.getPlayer(1)));
+        assertEquals(40, orders.path(start, path));
+        assertTrue(orders.getExpansions() - first < first / 4);
+    }
+
+    @Test
+    void testUnitWalksToGoalOverTurns() {
+        Game game = Game.allPlains(40, 20, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        Player player = game.getPlayer(0);
+        MoveOrders orders = new MoveOrders(state);
+
+        int start = board.indexOf(new OffsetPos(4, 10).toAxial());
+        int goal = board.indexOf(new OffsetPos(14, 10).toAxial());
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.WARRIOR, player));
+        orders.give(start, goal);
+
+        int tile = start;
+        for (int turn = 0; turn < 5; turn++) {
+            state.startTurn(player);
+            assertEquals(1, orders.advance(player));
+
+            IntList tiles = new IntList();
+            state.getUnitTilesForPlayer(player, tiles);
+            assertEquals(UnitType.WARRIOR.moveRange, state.distanceBetween(board.hexAt(tile), board.hexAt(tiles.get(0))));
+            tile = tiles.get(0);
+        }
+
+        assertEquals(goal, tile);
+        assertEquals(0, orders.size());
+    }
+
+    @Test
+    void testOrdersRouteAroundEachOther() {
+        Game game = Game.allPlains(40, 20, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        Player player = game.getPlayer(0);
+        MoveOrders orders = new MoveOrders(state);
+        MovementPlanner planner = new MovementPlanner(state);
+
+        int lead = board.indexOf(new OffsetPos(6, 10).toAxial());
+        int follower = board.indexOf(new OffsetPos(4, 10).toAxial());
+        int goal = board.indexOf(new OffsetPos(20, 10).toAxial());
+        state.placeUnitAt(board.getPos(lead), new Unit(UnitType.WARRIOR, player));
+        state.placeUnitAt(board.getPos(follower), new Unit(UnitType.CAVALRY, player));
+        orders.give(lead, board.neighbor(goal, 0));
+        orders.give(follower, goal);
+
+        IntList path = new IntList();
+        IntList fresh = new IntList();
+        for (int turn = 0; turn < 3; turn++) {
+            state.startTurn(player);
+            orders.advance(player);
+
+            IntList tiles = new IntList();
+            state.getUnitTilesForPlayer(player, tiles);
+            int cavalry = tiles.get(1);
+            if (orders.hasOrder(cavalry)) {
+                assertEquals(planner.findPath(cavalry, goal, fresh), orders.path(cavalry, path));
+            }
+        }
+    }
+
+    @Test
+    void testOrdersDroppedWithTheirUnit() {
+        Game game = Game.allPlains(30, 20, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        Player player = game.getPlayer(0);
+        MoveOrders orders = new MoveOrders(state);
+
+        int start = board.indexOf(new OffsetPos(4, 4).toAxial());
+        int goal = board.indexOf(new OffsetPos(20, 4).toAxial());
+        assertFalse(orders.give(start, goal)); // No unit yet
+
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.WARRIOR, player));
+        board.setTerrain(goal, Terrain.WATER);
+        assertFalse(orders.give(start, goal));
+        board.setTerrain(goal, Terrain.PLAINS);
+
+        assertTrue(orders.give(start, goal));
+        assertEquals(goal, orders.goalOf(start));
+        state.removeUnitAt(start);
+        assertEquals(0, orders.advance(player));
+        assertEquals(0, orders.size());
+    }
+
+    @Test
+    void testOrderIsNotPassedToTheNextUnitOnItsTile() {
+        Game game = Game.allPlains(30, 20, 2);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        Player player = game.getPlayer(0);
+        MoveOrders orders = new MoveOrders(state);
+
+        int start = board.indexOf(new OffsetPos(4, 4).toAxial());
+        int goal = board.indexOf(new OffsetPos(20, 4).toAxial());
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.WARRIOR, player));
+        assertTrue(orders.give(start, goal));
+
+        // The unit dies and a friend steps onto its tile before the orders look again
+        state.removeUnitAt(start);
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.ARCHER, player));
+        assertFalse(orders.hasOrder(start));
+        assertEquals(-1, orders.goalOf(start));
+
+        assertTrue(orders.give(start, goal));
+        state.removeUnitAt(start);
+        state.placeUnitAt(board.getPos(start), new Unit(UnitType.CAVALRY, player));
+        state.startTurn(player);
+        assertEquals(0, orders.advance(player));
+        assertEquals(0, orders.size());
+    }
+
+    @Test
+    void testGameMovesOrderedUnitsEachTurn() {
+        Game game = Game.allPlains(40, 20, 2);
+        Board board = game.getBoard();
+        Player user = game.getPlayer(0);
+        AxialPos from = new OffsetPos(4, 10).toAxial();
+        AxialPos goal = new OffsetPos(12, 10).toAxial();
+        Unit unit = new Unit(UnitType.WARRIOR, user);
+        game.placeUnitAt(from, unit);
+        game.placeUnitAt(new OffsetPos(30, 2).toAxial(), new Unit(UnitType.WARRIOR, game.getPlayer(1)));
+
+        // A move by hand cancels the order
+        assertTrue(game.giveMoveOrder(from, goal));
+        AxialPos moved = from.neighbor(0);
+        assertTrue(game.moveUnit(from, moved));
+        assertEquals(0, game.getMoveOrders().size());
+
+        assertTrue(game.giveMoveOrder(moved, goal));
+        unit.spendMovementPoints(unit.getMovementPoints());
+        game.endTurn();
+        game.endTurn(); // Back to the user, whose unit has moved on
+
+        AxialPos now = game.getPositionsForPlayer(user).get(0);
+        assertEquals(UnitType.WARRIOR.moveRange, game.distanceBetween(moved, now));
+        assertEquals(board.indexOf(goal), game.getMoveOrders().goalOf(board.indexOf(now)));
+    }
+
+    private static int passableTile(Board board, Random random) {
+        int tile;
+        do {
+            tile = random.nextInt(board.getTileCount());
+        } while (!board.isPassable(tile));
+        return tile;
+    }
+
+    private static void assertValidPath(Board board, int start, int end, IntList path, int cost) {
+        assertEquals(start, path.get(0));
+        assertEquals(end, path.get(path.size() - 1));
+        int total = 0;
+        for (int i = 1; i < path.size(); i++) {
+            total += board.cost(path.get(i));
+        }
+        assertEquals(cost, total);
+    }
+}
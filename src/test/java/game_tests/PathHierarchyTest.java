@@ -0,0 +1,184 @@
+package game_tests;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.PathHierarchy;
+import tbs_game.game.board.Terrain;
+import tbs_game.game.board.Tile;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+class PathHierarchyTest {
+
+    @Test
+    void testCostsMatchFlatSearch() {
+        Board board = Game.selfPlay(60, 40, 2, 3).getBoard();
+        MovementPlanner planner = new MovementPlanner(new GameState(board)); // No units in the way
+
+        for (int size : new int[]{PathHierarchy.DEFAULT_CLUSTER_SIZE, 7, 64}) {
+            assertMatchesFlat(board, new PathHierarchy(board, size), planner, 300);
+        }
+    }
+
+    @Test
+    void testPathWrapsAcrossEdge() {
+        Board board = Game.allPlains(64, 16, 2).getBoard();
+        int start = board.indexOf(new OffsetPos(62, 8).toAxial());
+        int end = board.indexOf(new OffsetPos(1, 8).toAxial());
+
+        IntList path = new IntList();
+        assertEquals(3, board.getPathHierarchy().findPath(start, end, path));
+        assertEquals(4, path.size());
+    }
+
+    @Test
+    void testTerrainChangesRebuildClusters() {
+        Board board = Game.allPlains(48, 32, 2).getBoard();
+        PathHierarchy paths = board.getPathHierarchy();
+        MovementPlanner planner = new MovementPlanner(new GameState(board));
+        int start = board.indexOf(new OffsetPos(2, 16).toAxial());
+        int end = board.indexOf(new OffsetPos(22, 16).toAxial());
+
+        IntList path = new IntList();
+        int open = paths.findPath(start, end, path);
+
+        // Wall off a column, leaving a gap at the bottom
+        for (int row = 0; row < 31; row++) {
+            board.getTile(board.getPos(row * 48 + 12)).setTerrain(Terrain.MOUNTAIN);
+        }
+        int walled = paths.findPath(start, end, path);
+        assertTrue(walled > open);
+        assertEquals(planner.findFlatPath(start, end, new IntList()), walled);
+
+        board.putTile(board.getPos(16 * 48 + 12), new Tile(Terrain.FOREST));
+        assertEquals(planner.findFlatPath(start, end, new IntList()), paths.findPath(start, end, path));
+
+        board.makeAllForest();
+        assertEquals(2 * open, paths.findPath(start, end, path));
+    }
+
+    @Test
+    void testUnreachableTiles() {
+        Board board = Game.allPlains(32, 32, 2).getBoard();
+        int start = board.indexOf(new OffsetPos(3, 3).toAxial());
+        int end = board.indexOf(new OffsetPos(20, 20).toAxial());
+        for (int dir = 0; dir < 6; dir++) {
+            board.setTerrain(board.neighbor(end, dir), Terrain.WATER);
+        }
+
+        IntList path = new IntList();
+        assertEquals(-1, board.getPathHierarchy().findPath(start, end, path));
+        assertTrue(path.isEmpty());
+        assertEquals(-1, board.getPathHierarchy().findPath(start, board.neighbor(end, 0), path));
+    }
+
+    @Test
+    void testLongPlannerSearchesGoAroundUnits() {
+        Game game = Game.selfPlay(300, 60, 2, 5);
+        GameState state = game.copyState();
+        Board board = state.getBoard();
+        MovementPlanner planner = new MovementPlanner(state);
+        Random random = new Random(4);
+
+        IntList path = new IntList();
+        IntList flat = new IntList();
+        for (int i = 0; i < 40; i++) {
+            int start = random.nextInt(board.getTileCount());
+            int end = random.nextInt(board.getTileCount());
+            if (!board.isPassable(start) || state.distanceBetween(board.hexAt(start), board.hexAt(end)) < 100) {
+                continue;
+            }
+
+            int cost = planner.findPath(start, end, path);
+            assertGoesAroundUnits(state, planner, start, end, path, cost);
+            if (cost < 0) {
+                continue;
+            }
+
+            // Block the path just found, so the next search has to leave it
+            int blocked = path.get(path.size() / 2);
+            state.placeUnitAt(board.getPos(blocked), new Unit(UnitType.WARRIOR, game.getPlayer(1)));
+            cost = planner.findPath(start, end, path);
+            assertGoesAroundUnits(state, planner, start, end, path, cost);
+            assertTrue(cost < 0 || !path.contains(blocked));
+        }
+    }
+
+    @Test
+    void testRoughShareFollowsTerrain() {
+        Board board = Game.allPlains(10, 10, 2).getBoard();
+        assertEquals(0, board.getRoughShare());
+
+        board.setTerrain(3, Terrain.FOREST);
+        board.setTerrain(4, Terrain.WATER);
+        assertEquals(0.02, board.getRoughShare(), 1e-9);
+        board.setTerrain(4, Terrain.PLAINS);
+        assertEquals(0.01, board.getRoughShare(), 1e-9);
+
+        board.makeAllForest();
+        assertEquals(1, board.getRoughShare());
+    }
+
+    // Reachable whenever a flat search finds a way, and never through a unit short of the end
+    private static void assertGoesAroundUnits(GameState state, MovementPlanner planner, int start, int end,
+            IntList path, int cost) {
+        int expected = planner.findFlatPath(start, end, new IntList());
+        assertEquals(expected < 0, cost < 0);
+        if (cost < 0) {
+            return;
+        }
+        assertTrue(cost >= expected);
+        assertValidPath(state.getBoard(), start, end, path, cost);
+        for (int i = 1; i < path.size() - 1; i++) {
+            assertFalse(state.hasUnitAt(path.get(i)));
+        }
+    }
+
+    private static void assertMatchesFlat(Board board, PathHierarchy paths, MovementPlanner planner, int pairs) {
+        Random random = new Random(11);
+        IntList flat = new IntList();
+        IntList path = new IntList();
+        for (int i = 0; i < pairs; i++) {
+            int start = random.nextInt(board.getTileCount());
+            int end = random.nextInt(board.getTileCount());
+            if (!board.isPassable(start) || start == end) {
+                continue;
+            }
+
+            int expected = planner.findFlatPath(start, end, flat);
+            int cost = paths.findPath(start, end, path);
+            assertEquals(expected, cost, "From " + start + " to " + end);
+            if (cost >= 0) {
+                assertValidPath(board, start, end, path, cost);
+            }
+        }
+    }
+
+    private static void assertValidPath(Board board, int start, int end, IntList path, int cost) {
+        assertEquals(start, path.get(0));
+        assertEquals(end, path.get(path.size() - 1));
+        int total = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int tile = path.get(i);
+            boolean adjacent = false;
+            for (int dir = 0; dir < 6; dir++) {
+                adjacent |= board.neighbor(path.get(i - 1), dir) == tile;
+            }
+            assertTrue(adjacent, "Step " + i + " is not between neighbors");
+            assertTrue(board.isPassable(tile));
+            total += board.cost(tile);
+        }
+        assertEquals(cost, total);
+    }
+}
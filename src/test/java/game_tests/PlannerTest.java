@@ -1,6 +1,12 @@
 package game_tests;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
@@ -11,14 +17,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import tbs_game.game.ActionPath;
 import tbs_game.game.Game;
+import tbs_game.game.board.Board;
+import tbs_game.game.board.Terrain;
 import tbs_game.game.game_helpers.GameState;
 import tbs_game.game.game_helpers.MovementPlanner;
+import tbs_game.game.game_helpers.ReachableSets;
 import tbs_game.hexes.AxialPos;
 import tbs_game.hexes.OffsetPos;
 import tbs_game.player.Player;
 import tbs_game.units.Unit;
 import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
 
 public class PlannerTest {
 
@@ -190,6 +201,152 @@ public class PlannerTest {
         }
     }
 
+    @Test
+    void testReachableTilesMatchPlainDijkstra() {
+        // Mixed terrain, with units of both sides scattered around
+        Board board = state.getBoard();
+        Random random = new Random(2);
+        Terrain[] mix = {Terrain.PLAINS, Terrain.PLAINS, Terrain.FOREST, Terrain.WATER, Terrain.MOUNTAIN};
+        for (int tile = 0; tile < board.getTileCount(); tile++) {
+            board.setTerrain(tile, mix[random.nextInt(mix.length)]);
+        }
+        for (int i = 0; i < 80; i++) {
+            int tile = random.nextInt(board.getTileCount());
+            if (board.isPassable(tile) && !state.hasUnitAt(tile)) {
+                state.placeUnitAt(board.getPos(tile), new Unit(UnitType.WARRIOR, i % 2 == 0 ? player1 : player2));
+            }
+        }
+
+        IntList tiles = new IntList();
+        for (int from = 0; from < board.getTileCount(); from += 7) {
+            if (!board.isPassable(from) || state.hasUnitAt(from)) {
+                continue;
+            }
+            AxialPos pos = board.getPos(from);
+            state.placeUnitAt(pos, new Unit(UnitType.values()[from % UnitType.values().length], player1));
+            Set<Integer> expected = reachableByDijkstra(from);
+
+            // Run twice so the second call reuses the scratch buffers
+            planner.getReachableTiles(from, tiles);
+            assertEquals(expected.size(), planner.getReachableTiles(from, tiles), "From " + from);
+            Set<Integer> found = new HashSet<>();
+            for (int i = 0; i < tiles.size(); i++) {
+                found.add(tiles.get(i));
+            }
+            assertEquals(expected, found, "From " + from);
+
+            Set<AxialPos> hexes = new HashSet<>();
+            for (int tile : expected) {
+                hexes.add(board.getPos(tile));
+            }
+            assertEquals(hexes, planner.getReachableHexes(pos), "From " + from);
+            state.removeUnitAt(from);
+        }
+    }
+
+    // Reference for getReachableTiles: a textbook Dijkstra over positions, sharing no code with the planner
+    private Set<Integer> reachableByDijkstra(int from) {
+        Board board = state.getBoard();
+        Unit unit = state.getUnitAt(from);
+        boolean canAttack = unit.getType().attackRange != 0;
+        Map<Integer, Integer> best = new HashMap<>();
+        PriorityQueue<int[]> open = new PriorityQueue<>(Comparator.comparingInt((int[] entry) -> entry[0]));
+        best.put(from, 0);
+        open.add(new int[]{0, from});
+
+        Set<Integer> reached = new HashSet<>();
+        while (!open.isEmpty()) {
+            int[] entry = open.poll();
+            int cost = entry[0];
+            int tile = entry[1];
+            if (cost > best.get(tile)) {
+                continue;
+            }
+            for (AxialPos next : board.getPos(tile).getNeighbors()) {
+                int neighbor = board.indexOf(state.wrap(next));
+                if (neighbor < 0 || !board.isPassable(neighbor)) {
+                    continue;
+                }
+                Unit other = state.getUnitAt(neighbor);
+                if (other != null && (other.getOwner() == unit.getOwner() || !canAttack)) {
+                    continue;
+                }
+                int total = cost + board.cost(neighbor);
+                if (total > unit.getMovementPoints() || total >= best.getOrDefault(neighbor, Integer.MAX_VALUE)) {
+                    continue;
+                }
+                best.put(neighbor, total);
+                reached.add(neighbor);
+                if (other == null) { // Attacks end the move
+                    open.add(new int[]{total, neighbor});
+                }
+            }
+        }
+        reached.remove(from);
+        return reached;
+    }
+
+    @Test
+    void testReachableSetsMatchPerUnitSearches() {
+        Game game = Game.selfPlay(30, 24, 4, 11);
+        GameState sim = game.copyState();
+        MovementPlanner simPlanner = new MovementPlanner(sim);
+        for (int seat = 0; seat < 4; seat++) {
+            sim.placeUnitAt(sim.getBoard().getPos(freeTile(sim, seat * 150)), new Unit(UnitType.CAVALRY, game.getPlayer(seat)));
+        }
+
+        // One instance for every call, so later calls reuse and shrink it
+        ReachableSets sets = new ReachableSets();
+        IntList tiles = new IntList();
+        IntList expected = new IntList();
+        IntList costs = new IntList();
+        IntList path = new IntList();
+        for (boolean parallel : new boolean[]{false, true}) {
+            for (int seat = 0; seat < 4; seat++) {
+                Player player = game.getPlayer(seat);
+                simPlanner.getReachableSets(player, sets, parallel);
+                sim.getUnitTilesForPlayer(player, tiles);
+
+                assertEquals(tiles.size(), sets.unitCount());
+                for (int unit = 0; unit < sets.unitCount(); unit++) {
+                    assertEquals(tiles.get(unit), sets.unitTile(unit));
+                    int count = simPlanner.getReachableTiles(tiles.get(unit), expected, null, costs);
+                    assertEquals(count, sets.count(unit));
+
+                    int n = 0;
+                    for (int tile = sets.nextTile(unit, 0); tile >= 0; tile = sets.nextTile(unit, tile + 1)) {
+                        assertTrue(expected.contains(tile));
+                        assertEquals(tile, sets.tile(unit, n++));
+
+                        // The path read back runs tile by tile and costs what a fresh search finds
+                        assertTrue(sets.path(unit, tile, path));
+                        assertEquals(tiles.get(unit), path.get(0));
+                        assertEquals(tile, path.get(path.size() - 1));
+                        int cost = 0;
+                        for (int i = 1; i < path.size(); i++) {
+                            assertEquals(1, sim.distanceBetween(sim.getBoard().hexAt(path.get(i - 1)), sim.getBoard().hexAt(path.get(i))));
+                            cost += sim.getBoard().cost(path.get(i));
+                        }
+                        int index = 0;
+                        while (expected.get(index) != tile) {
+                            index++;
+                        }
+                        assertEquals(costs.get(index), cost);
+                    }
+                    assertEquals(count, n);
+                }
+            }
+        }
+    }
+
+    private static int freeTile(GameState state, int from) {
+        int tile = from;
+        while (state.hasUnitAt(tile) || !state.getBoard().isPassable(tile)) {
+            tile++;
+        }
+        return tile;
+    }
+
     // ----- findPath ----- ADD MORE TESTS 
     @Test
     void testPathUsesWrappedShortcut() {
@@ -204,4 +361,83 @@ public class PlannerTest {
         // Distance + 1 because path includes the starting tile
         assertEquals(state.distanceBetween(leftEdgePos, end) + 1, path.size());
     }
+
+    @Test
+    void testIndexPathWritesIntoBuffer() {
+        AxialPos end = unitPos.add(new AxialPos(4, -2));
+        int start = state.getBoard().indexOf(unitPos);
+        int goal = state.getBoard().indexOf(end);
+
+        IntList path = new IntList();
+        int cost = planner.findPath(start, goal, path);
+
+        assertEquals(unitPos.distanceTo(end), cost);
+        assertEquals(cost + 1, path.size());
+        assertEquals(start, path.get(0));
+        assertEquals(goal, path.get(path.size() - 1));
+    }
+
+    @Test
+    void testNoPathToBlockedTileReturnsNegative() {
+        AxialPos end = unitPos.add(new AxialPos(4, -2));
+        for (AxialPos pos : end.getNeighbors()) {
+            setUpEnemyUnit(pos);
+        }
+
+        IntList path = new IntList();
+        int cost = planner.findPath(state.getBoard().indexOf(unitPos), state.getBoard().indexOf(end), path);
+
+        assertEquals(-1, cost);
+        assertTrue(path.isEmpty());
+    }
+
+    // ----- cache -----
+    @Test
+    void testCachedReachIsReusedUntilUnitsChange() {
+        MovementPlanner cached = new MovementPlanner(state, 4);
+        setUpSoloUnit(unitPos);
+        int from = state.getBoard().indexOf(unitPos);
+
+        IntList first = new IntList();
+        IntList second = new IntList();
+        cached.getReachableTiles(from, first);
+        cached.getReachableTiles(from, second);
+        assertEquals(1, cached.getCacheHits());
+        assertEquals(1, cached.getCacheMisses());
+        assertEquals(first.size(), second.size());
+
+        // A unit moving anywhere retires the entry, as does a terrain change
+        setUpEnemyUnit(rightEdgePos);
+        cached.getReachableTiles(from, second);
+        assertEquals(2, cached.getCacheMisses());
+        assertTrue(second.contains(state.getBoard().indexOf(unitPos.add(new AxialPos(3, 0)))));
+
+        state.getBoard().setTerrain(state.getBoard().indexOf(unitPos.add(new AxialPos(1, 0))), Terrain.WATER);
+        cached.getReachableTiles(from, second);
+        assertEquals(3, cached.getCacheMisses());
+        assertFalse(second.contains(state.getBoard().indexOf(unitPos.add(new AxialPos(1, 0)))));
+    }
+
+    @Test
+    void testCachedPathsMatchSearches() {
+        MovementPlanner cached = new MovementPlanner(state, MovementPlanner.DEFAULT_CACHE_CAPACITY);
+        setUpSoloUnit(unitPos);
+        setUpEnemyUnit(unitPos.add(new AxialPos(2, -1)));
+        setUpFriendlyBlocker(unitPos.add(new AxialPos(-1, 1)));
+
+        Set<AxialPos> reachable = planner.getReachableHexes(unitPos);
+        for (AxialPos to : reachable) {
+            ActionPath expected = planner.planAction(unitPos, to);
+            assertEquals(expected.path, cached.planAction(unitPos, to).path);
+            assertEquals(expected.path, cached.planAction(unitPos, to).path);
+            assertEquals(expected.cost, cached.planAction(unitPos, to).cost);
+        }
+        assertEquals(reachable.size(), cached.getCacheMisses());
+        assertEquals(reachable.size() * 2, cached.getCacheHits());
+
+        AxialPos far = unitPos.add(new AxialPos(6, 0));
+        assertEquals(6, cached.planAction(unitPos, far).cost);
+        cached.planAction(unitPos, far).path.clear(); // Callers get their own copy
+        assertEquals(7, cached.planAction(unitPos, far).path.size());
+    }
 }
@@ -6,12 +6,14 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import tbs_game.game.Game;
 import tbs_game.game.board.Board;
+import tbs_game.game.board.MapGenerator;
 import tbs_game.game.board.Terrain;
 import tbs_game.game.board.Tile;
 import tbs_game.game.game_helpers.SetupHandler;
@@ -80,4 +82,61 @@ class SetupTest {
 
         assertEquals(first, second);
     }
+
+    @Test
+    void generateSpawnSpots_picksFurthestSpotsOnGeneratedBoards() {
+        for (long seed = 0; seed < 4; seed++) {
+            Game generated = new Game(60, 40, 8);
+            generated.getBoard().generate(MapGenerator.cellular(), seed);
+            ArrayList<AxialPos> spawns = SetupHandler.generateSpawnSpots(generated, seed);
+
+            // Each spawn after the first beats every other spot left, as a search of them all finds
+            for (int i = 1; i < spawns.size(); i++) {
+                AxialPos best = null;
+                int bestScore = -1;
+                for (AxialPos pos : SetupHandler.findSpawnableHexes(generated.getBoard())) {
+                    int minDist = Integer.MAX_VALUE;
+                    for (AxialPos spawn : spawns.subList(0, i)) {
+                        minDist = Math.min(minDist, generated.distanceBetween(spawn, pos));
+                    }
+                    int score = minDist * 10 + SetupHandler.getSpawnScore(pos, generated.getBoard());
+                    if (minDist >= SetupHandler.MIN_SPAWN_DIST && score > bestScore && hasRoom(generated, pos)) {
+                        best = pos;
+                        bestScore = score;
+                    }
+                }
+                assertEquals(best, spawns.get(i), "Spawn " + i + " with seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void generateSpawnSpots_failsWhenBoardIsFull() {
+        Game crowded = Game.allPlains(8, 8, 12);
+
+        assertThrows(IllegalStateException.class, () -> SetupHandler.generateSpawnSpots(crowded, 1));
+    }
+
+    @Test
+    void generateSpawnSpots_failsWhenNoSpotHasRoom() {
+        Game flooded = Game.allPlains(12, 12, 2);
+        Board board = flooded.getBoard();
+        for (int tile = 0; tile < board.getTileCount(); tile++) {
+            board.setTerrain(tile, Terrain.WATER);
+        }
+        assertThrows(IllegalStateException.class, () -> SetupHandler.generateSpawnSpots(flooded, 1));
+
+        // One island tile, with nowhere beside it for the other units
+        board.setTerrain(board.indexOf(new OffsetPos(6, 2).toAxial()), Terrain.PLAINS);
+        assertThrows(IllegalStateException.class, () -> SetupHandler.generateSpawnSpots(flooded, 1));
+    }
+
+    private static boolean hasRoom(Game game, AxialPos pos) {
+        for (AxialPos neighbor : pos.getNeighbors()) {
+            if (SetupHandler.isValidSpawn(neighbor, game.getBoard()) && game.getUnitAt(neighbor) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,84 @@
+package game_tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+
+class StateCopyTest {
+
+    private GameState state;
+    private Unit unit;
+    private final AxialPos pos = new OffsetPos(5, 5).toAxial();
+
+    @BeforeEach
+    void init() {
+        Game game = Game.allPlains(10, 10, 2);
+        state = game.copyState();
+        unit = new Unit(UnitType.WARRIOR, game.getPlayer(0));
+        state.placeUnitAt(pos, unit);
+    }
+
+    @Test
+    void testCopyChangesDoNotReachOriginal() {
+        GameState copy = state.createSimluationCopy();
+        Unit copied = copy.getUnitAt(pos);
+
+        copied.dealDamage(3);
+        copied.spendMovementPoints(1);
+        copy.moveUnitInternal(pos, pos.neighbor(0));
+
+        assertEquals(UnitType.WARRIOR.maxHp, unit.getHealth());
+        assertEquals(unit.getMaxMovementPoints(), unit.getMovementPoints());
+        assertSame(unit, state.getUnitAt(pos));
+        assertNull(state.getUnitAt(pos.neighbor(0)));
+    }
+
+    @Test
+    void testOriginalChangesDoNotReachCopy() {
+        GameState copy = state.createSimluationCopy();
+
+        unit.dealDamage(3);
+        state.removeUnitAt(pos);
+
+        Unit copied = copy.getUnitAt(pos);
+        assertEquals(UnitType.WARRIOR.maxHp, copied.getHealth());
+        assertEquals(1, copy.getAllUnitPositions().size());
+    }
+
+    @Test
+    void testCopyHasItsOwnUnitObjects() {
+        GameState copy = state.createSimluationCopy();
+
+        Unit copied = copy.getUnitAt(pos);
+        assertNotSame(unit, copied);
+        assertSame(copied, copy.getUnitAt(pos));
+    }
+
+    @Test
+    void testRemovedUnitKeepsLastValues() {
+        unit.dealDamage(4);
+        state.removeUnitAt(pos);
+
+        assertEquals(UnitType.WARRIOR.maxHp - 4, unit.getHealth());
+        unit.dealDamage(1);
+        assertEquals(UnitType.WARRIOR.maxHp - 5, unit.getHealth());
+    }
+
+    @Test
+    void testUnitCannotBeInTwoStates() {
+        GameState copy = state.createSimluationCopy();
+
+        assertThrows(IllegalArgumentException.class, () -> copy.placeUnitAt(pos.neighbor(1), unit));
+    }
+}
@@ -0,0 +1,154 @@
+package game_tests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.ActionPath;
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.AiClock;
+import tbs_game.game.game_helpers.AiTurnPlanner;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.player.AI;
+import tbs_game.player.AlphaBetaAI;
+import tbs_game.player.MctsAI;
+import tbs_game.player.Player;
+import tbs_game.player.TurnBudget;
+
+class TurnBudgetTest {
+
+    // Ignores its budget and sleeps until cancelled or a fixed time is up
+    private static final class SlowAI implements AI {
+
+        private final long sleepMillis;
+
+        SlowAI(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public List<ActionPath> planTurn(GameState state, Player player, TurnBudget budget) {
+            long end = System.nanoTime() + sleepMillis * 1_000_000;
+            while (System.nanoTime() < end && !budget.isCancelled()) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return List.of();
+        }
+    }
+
+    private static void playTurns(Game game, int turns) {
+        while (game.getTurnNumber() < turns && !game.isGameOver()) {
+            assertTrue(game.getActionQueue().applyNextAction(game) != null);
+        }
+    }
+
+    @Test
+    void testSplitSharesCancellation() {
+        TurnBudget budget = TurnBudget.ofMillis(10_000);
+        TurnBudget piece = budget.split(4);
+
+        assertTrue(piece.getBudgetNanos() <= budget.getBudgetNanos() / 4);
+        assertFalse(piece.isExpired());
+        budget.cancel();
+        assertTrue(piece.isExpired());
+        assertTrue(budget.capped(1_000_000_000L).isCancelled());
+    }
+
+    @Test
+    void testUnlimitedBudgetNeverExpires() {
+        TurnBudget budget = TurnBudget.unlimited();
+
+        assertTrue(budget.split(3).isUnlimited());
+        assertFalse(budget.isExpired());
+        assertEquals(5, budget.capped(5).getBudgetNanos());
+        assertTrue(TurnBudget.ofNanos(0).isExpired());
+    }
+
+    @Test
+    void testCancelledSearchReturnsQuickly() {
+        Game game = Game.selfPlay(20, 16, 2, 3);
+        GameState state = game.copyState();
+        Player player = game.getPlayer(0);
+        TurnBudget budget = TurnBudget.unlimited();
+        budget.cancel();
+
+        long start = System.nanoTime();
+        new AlphaBetaAI(60_000).planTurn(state, player, budget);
+        new MctsAI(60_000, 1, 0, 1).planTurn(state, player, budget);
+
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+
+    @Test
+    void testRoundStaysBoundedWithSixteenPlayers() {
+        Game game = Game.selfPlay(48, 40, 16, 5);
+        for (int seat = 0; seat < 16; seat++) {
+            AI ai = seat % 2 == 0 ? new AlphaBetaAI(60_000) : new MctsAI(60_000, 1, 0, seat);
+            game.getPlayer(seat).setAI(ai);
+        }
+        game.setAiClock(new AiClock(320, AiClock.DEFAULT_GRACE_MILLIS));
+
+        long start = System.nanoTime();
+        game.startGame();
+        playTurns(game, 16);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(20_000_000, game.getAiClock().getTurnNanos());
+        assertTrue(elapsed < 10_000_000_000L, "Round took " + elapsed / 1_000_000 + "ms");
+    }
+
+    @Test
+    void testSlowTurnIsRecordedAsOverrun() {
+        Game game = Game.selfPlay(16, 12, 2, 1);
+        // Wide margins, so only the slow AI can run over, and by far. The other seat's first turn is cold
+        game.getPlayer(1).setAI(new SlowAI(1000));
+        game.setAiClock(new AiClock(400, 200));
+
+        game.startGame();
+        playTurns(game, 2);
+
+        List<AiClock.Overrun> overruns = game.getAiClock().getOverruns();
+        assertTrue(overruns.size() >= 1);
+        for (AiClock.Overrun overrun : overruns) {
+            assertTrue(overrun.player() == game.getPlayer(1));
+            assertTrue(overrun.elapsedNanos() > overrun.budgetNanos());
+            assertFalse(overrun.forfeited());
+        }
+    }
+
+    @Test
+    void testBackgroundTurnIsForfeitedWhenOverdue() throws InterruptedException {
+        Game game = Game.selfPlay(16, 12, 2, 1);
+        Player slow = game.getPlayer(0);
+        slow.setAI(new SlowAI(60_000));
+        game.setAiClock(new AiClock(20, 10));
+
+        try (AiTurnPlanner planner = new AiTurnPlanner()) {
+            game.setAiPlanner(planner);
+            game.startGame();
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!game.pollAiTurn()) {
+                assertTrue(System.nanoTime() < deadline, "Turn was never forfeited");
+                Thread.sleep(1);
+            }
+
+            // Only the end of the turn was queued
+            game.getActionQueue().applyNextAction(game);
+            assertEquals(1, game.getTurnNumber());
+        }
+
+        List<AiClock.Overrun> overruns = game.getAiClock().getOverruns();
+        assertEquals(1, overruns.size());
+        assertTrue(overruns.get(0).forfeited());
+        assertTrue(overruns.get(0).player() == slow);
+    }
+}
@@ -0,0 +1,87 @@
+package game_tests;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tbs_game.game.Game;
+import tbs_game.game.game_helpers.GameState;
+import tbs_game.hexes.AxialPos;
+import tbs_game.hexes.OffsetPos;
+import tbs_game.player.Player;
+import tbs_game.player.PlayerType;
+import tbs_game.units.Unit;
+import tbs_game.units.UnitType;
+import tbs_game.utils.IntList;
+
+class UnitTableTest {
+
+    private Game game;
+    private GameState state;
+    private Player player;
+    private final AxialPos a = new OffsetPos(2, 2).toAxial();
+    private final AxialPos b = new OffsetPos(4, 4).toAxial();
+    private final AxialPos c = new OffsetPos(6, 6).toAxial();
+
+    @BeforeEach
+    void init() {
+        game = Game.allPlains(10, 10, 2);
+        state = game.copyState();
+        player = game.getPlayer(0);
+
+        state.placeUnitAt(a, new Unit(UnitType.WARRIOR, player));
+        state.placeUnitAt(b, new Unit(UnitType.ARCHER, game.getPlayer(1)));
+        state.placeUnitAt(c, new Unit(UnitType.CAVALRY, player));
+    }
+
+    @Test
+    void testPlayerUnitsInPlacementOrder() {
+        assertEquals(List.of(a, c), state.getUnitPositionsForPlayer(player));
+        assertEquals(2, state.getUnitCount(player));
+        assertEquals(1, state.getUnitCount(game.getPlayer(1)));
+    }
+
+    @Test
+    void testRemoveAndMoveUpdatePlayerUnits() {
+        state.removeUnitAt(a);
+        AxialPos to = c.neighbor(0);
+        state.moveUnitInternal(c, to);
+
+        assertEquals(List.of(to), state.getUnitPositionsForPlayer(player));
+        assertEquals(1, state.getUnitCount(player));
+    }
+
+    @Test
+    void testUnitTilesIntoBuffer() {
+        IntList tiles = new IntList();
+        state.getUnitTilesForPlayer(player, tiles);
+
+        assertEquals(2, tiles.size());
+        assertEquals(state.getBoard().indexOf(a), tiles.get(0));
+        assertEquals(state.getBoard().indexOf(c), tiles.get(1));
+    }
+
+    @Test
+    void testRollbackRestoresListOrder() {
+        state.setJournaling(true);
+        int mark = state.mark();
+
+        state.removeUnitAt(a);
+        state.removeUnitAt(c);
+        state.rollback(mark);
+
+        assertEquals(List.of(a, c), state.getUnitPositionsForPlayer(player));
+    }
+
+    @Test
+    void testUnknownPlayerRejected() {
+        Player stranger = new Player(PlayerType.AI, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> state.getUnitCount(stranger));
+        assertThrows(IllegalArgumentException.class,
+                () -> state.placeUnitAt(c.neighbor(1), new Unit(UnitType.WARRIOR, stranger)));
+    }
+}